@@ -37,6 +37,8 @@ public class KeycloakClientImpl implements KeycloakClient {
 
     private static final int MAX_RETRIES = 10;
 
+    private static final String SERVICE_ACCOUNT_USER_PREFIX = "service-account-";
+
     static {
         // Configure Unirest ObjectMapper
         Unirest.config().setObjectMapper(new JacksonObjectMapper());
@@ -138,6 +140,15 @@ public class KeycloakClientImpl implements KeycloakClient {
             String serviceAccountUsername,
             String secret) throws KeycloakClientException {
 
+        // Keycloak names the user of a service account the same way, so it can't clash with a real user
+        String cacheUsername = SERVICE_ACCOUNT_USER_PREFIX + serviceAccountUsername;
+        Optional<Credential> cachedCredential = CacheFile
+                .getCredentialFromCacheFile(keycloakBaseUrl, realm, cacheUsername);
+        if (cachedCredential.isPresent() && cachedCredential.get().isAccessTokenFresh()) {
+            log.debug("Using cached service account token");
+            return cachedCredential.get();
+        }
+
         String keycloakEndpoint = keycloakEndpoint(keycloakBaseUrl, realm);
 
         try {
@@ -152,16 +163,22 @@ public class KeycloakClientImpl implements KeycloakClient {
             KeycloakResponse response = getKeycloakResponseWithRetries(body);
             Instant now = Instant.now();
 
-            return Credential.builder()
+            Credential credential = Credential.builder()
                     .keycloakBaseUrl(keycloakBaseUrl)
                     .realm(realm)
                     .client(serviceAccountUsername)
+                    .username(cacheUsername)
                     .accessToken(response.getAccessToken())
                     .accessTokenExpiresIn(now.plusSeconds(response.getExpiresIn()))
                     .refreshToken(response.getRefreshToken())
                     .refreshTokenExpiresIn(now.plusSeconds(response.getRefreshExpiresIn()))
                     .build();
 
+            if (credential.isAccessTokenValid()) {
+                CacheFile.writeCredentialToCacheFile(keycloakBaseUrl, realm, cacheUsername, credential);
+            }
+            return credential;
+
         } catch (Exception e) {
             throw new KeycloakClientException(e);
         }
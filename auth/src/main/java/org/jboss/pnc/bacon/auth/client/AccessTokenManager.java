@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.auth.client;
+
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.unwrap;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.jboss.pnc.bacon.auth.model.Credential;
+import org.jboss.pnc.bacon.common.exception.FatalException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the access token shared by all the clients, and gets a new credential when necessary.
+ * <p>
+ * Getting a credential is single-flight: the callers that find the token expired at the same time all wait for one
+ * request to Keycloak. When a refresh executor is given, a token that is about to expire is replaced in the
+ * background, while the callers keep using it, so that they don't block on Keycloak.
+ */
+@Slf4j
+class AccessTokenManager {
+
+    private final Supplier<Credential> credentialSupplier;
+
+    /**
+     * Null if the token must not be refreshed in the background, e.g. because the user could be asked for a password
+     */
+    private final Executor refreshExecutor;
+
+    private volatile Credential cached;
+
+    /**
+     * The credential being obtained, guarded by this
+     */
+    private CompletableFuture<Credential> pending;
+
+    AccessTokenManager(Supplier<Credential> credentialSupplier, Executor refreshExecutor) {
+        this.credentialSupplier = credentialSupplier;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    String getAccessToken() {
+        Credential credential = cached;
+        if (credential == null || !credential.isAccessTokenValid()) {
+            credential = awaitCredential();
+        } else if (refreshExecutor != null && !credential.isAccessTokenFresh()) {
+            refreshInBackground();
+        }
+        return credential.getAccessToken();
+    }
+
+    private Credential awaitCredential() {
+        CompletableFuture<Credential> future;
+        boolean owner = false;
+        synchronized (this) {
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+                owner = true;
+            }
+            future = pending;
+        }
+        if (owner) {
+            obtainCredential(future);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private void refreshInBackground() {
+        CompletableFuture<Credential> future;
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new CompletableFuture<>();
+            future = pending;
+        }
+        future.whenComplete((credential, e) -> {
+            if (e != null) {
+                log.warn("Could not refresh the access token in advance, will retry: {}", e.getMessage());
+            }
+        });
+        refreshExecutor.execute(() -> obtainCredential(future));
+    }
+
+    private void obtainCredential(CompletableFuture<Credential> future) {
+        try {
+            log.debug("Getting or Refreshing access token!");
+            Credential credential = credentialSupplier.get();
+            if (credential.getAccessToken() == null || credential.getAccessToken().isEmpty()) {
+                throw new FatalException("Credentials don't seem to be valid");
+            }
+            cached = credential;
+            future.complete(credential);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+}
@@ -23,7 +23,8 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.Date;
-import java.util.function.Supplier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import org.jboss.pnc.bacon.auth.KeycloakClientImpl;
 import org.jboss.pnc.bacon.auth.model.Credential;
@@ -31,6 +32,7 @@ import org.jboss.pnc.bacon.auth.spi.KeycloakClient;
 import org.jboss.pnc.bacon.common.exception.FatalException;
 import org.jboss.pnc.bacon.config.Config;
 import org.jboss.pnc.bacon.config.KeycloakConfig;
+import org.jboss.pnc.bacon.config.PncConfig;
 import org.jboss.pnc.client.Configuration;
 import org.jboss.pnc.client.GenericSettingClient;
 import org.jboss.pnc.client.RemoteResourceException;
@@ -44,7 +46,7 @@ public class PncClientHelper {
 
     private static boolean bannerChecked = false;
 
-    private static PncClientTokenHolder pncClientTokenHolder;
+    private static AccessTokenManager accessTokenManager;
 
     private static boolean resteasyAvailable = true;
 
@@ -62,11 +64,24 @@ public class PncClientHelper {
         return setup(authenticationNeeded);
     }
 
+    /**
+     * @param authenticationNeeded whether the clients need to authenticate
+     * @param pageSize number of entities per page, or null to use the pageSize of the pnc config
+     * @return the configuration, the shared pnc config is left unchanged
+     */
+    public static Configuration getPncConfiguration(boolean authenticationNeeded, Integer pageSize) {
+        return setup(authenticationNeeded, pageSize);
+    }
+
     public static Configuration getPncConfiguration() {
         return getPncConfiguration(true);
     }
 
     public static Configuration setup(boolean authenticationNeeded) {
+        return setup(authenticationNeeded, null);
+    }
+
+    private static Configuration setup(boolean authenticationNeeded, Integer pageSize) {
         Config config = Config.instance();
 
         KeycloakConfig keycloakConfig = config.getActiveProfile().getKeycloak();
@@ -79,8 +94,9 @@ public class PncClientHelper {
             keycloakConfig.validate();
         }
 
-        config.getActiveProfile().getPnc().validate();
-        String url = config.getActiveProfile().getPnc().getUrl();
+        PncConfig pncConfig = config.getActiveProfile().getPnc();
+        pncConfig.validate();
+        String url = pncConfig.getUrl();
 
         try {
             URI uri = new URI(url);
@@ -94,14 +110,12 @@ public class PncClientHelper {
                     .protocol(uri.getScheme())
                     .port(port)
                     .host(uri.getHost())
-                    .pageSize(50)
+                    .pageSize(pageSize == null ? pncConfig.getPageSize() : pageSize)
                     .addDefaultMdcToHeadersMappings();
 
             if (authenticationNeeded) {
-                if (pncClientTokenHolder == null) {
-                    pncClientTokenHolder = new PncClientTokenHolder(() -> getCredential(keycloakConfig));
-                }
-                builder = builder.bearerTokenSupplier(() -> pncClientTokenHolder.getAccessToken());
+                AccessTokenManager tokenManager = getAccessTokenManager(keycloakConfig);
+                builder = builder.bearerTokenSupplier(tokenManager::getAccessToken);
             }
             Configuration configuration = builder.build();
 
@@ -114,6 +128,26 @@ public class PncClientHelper {
         }
     }
 
+    /**
+     * The token manager is shared by all the clients, both PNC and DA ones, so that they don't each get their own
+     * token. Service account tokens are refreshed in the background before they expire. User tokens are not: refreshing
+     * them could ask for the password.
+     */
+    private static synchronized AccessTokenManager getAccessTokenManager(KeycloakConfig keycloakConfig) {
+        if (accessTokenManager == null) {
+            Executor refreshExecutor = null;
+            if (keycloakConfig.isServiceAccount()) {
+                refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "access-token-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            accessTokenManager = new AccessTokenManager(() -> getCredential(keycloakConfig), refreshExecutor);
+        }
+        return accessTokenManager;
+    }
+
     /**
      * Return credential based on keycloak config, making the choice between client secret auth or user auth
      *
@@ -187,28 +221,4 @@ public class PncClientHelper {
     public static String getTodayDayInYYYYMMDDFormat() {
         return sdf.format(new Date());
     }
-
-    /**
-     * Private static class to contain the logic to automatically get a new access token when necessary
-     */
-    private static class PncClientTokenHolder {
-        Credential cached;
-        Supplier<Credential> credentialSupplier;
-
-        PncClientTokenHolder(Supplier<Credential> credentialSupplier) {
-            this.credentialSupplier = credentialSupplier;
-        }
-
-        public String getAccessToken() {
-            if (cached == null || !cached.isAccessTokenValid()) {
-                log.debug("Getting or Refreshing access token!");
-                cached = credentialSupplier.get();
-                if (cached.getAccessToken() == null || cached.getAccessToken().isEmpty()) {
-                    throw new FatalException("Credentials don't seem to be valid");
-                }
-            }
-
-            return cached.getAccessToken();
-        }
-    }
 }
@@ -2,12 +2,17 @@ package org.jboss.pnc.bacon.auth.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -28,6 +33,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CacheFile {
 
+    private static final String LOCK_SUFFIX = ".lock";
+
     private Map<String, Credential> cachedData;
     private static final ObjectMapper mapper;
 
@@ -36,26 +43,44 @@ public class CacheFile {
         mapper.registerModule(new JavaTimeModule());
     }
 
-    public static void writeCredentialToCacheFile(
+    /**
+     * Stores the credential in the cache file, next to the credentials of the other users, realms and Keycloak servers.
+     * Concurrent bacon processes are serialized with a lock file, so that no entry is lost, and the file is replaced
+     * atomically, so that readers never see a partially written file.
+     */
+    public static synchronized void writeCredentialToCacheFile(
             String keycloakUrl,
             String realm,
             String username,
             Credential credential) {
-        File file = new File(getCacheFile());
+        Path path = Paths.get(getCacheFile());
 
-        log.debug("Writing credential to cache file {}", file);
+        log.debug("Writing credential to cache file {}", path);
 
         try {
             createConfigFolderIfAbsent();
 
-            Map<String, Credential> data = Collections
-                    .singletonMap(generateUsernameMd5(keycloakUrl, realm, username), credential);
-            CacheFile cacheFile = new CacheFile();
-            cacheFile.setCachedData(data);
-            mapper.writeValue(file, cacheFile);
-            setOwnerFilePermissions(file.toPath());
+            try (FileChannel channel = FileChannel
+                    .open(Paths.get(getCacheFile() + LOCK_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock lock = channel.lock()) {
+                Map<String, Credential> data = new HashMap<>(readCachedData(path));
+                // entries that can't be used anymore would otherwise pile up
+                data.values().removeIf(c -> !c.isAccessTokenValid() && !c.isRefreshTokenValid());
+                data.put(generateUsernameMd5(keycloakUrl, realm, username), credential);
+
+                CacheFile cacheFile = new CacheFile();
+                cacheFile.setCachedData(data);
+                Path tmpFile = Files.createTempFile(path.getParent(), Constant.CACHE_FILE, ".tmp");
+                try {
+                    setOwnerFilePermissions(tmpFile);
+                    mapper.writeValue(tmpFile.toFile(), cacheFile);
+                    Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmpFile);
+                }
+            }
         } catch (IOException e) {
-            log.error("Error saving credential to file {}", file, e);
+            log.error("Error saving credential to file {}", path, e);
         }
     }
 
@@ -68,21 +93,23 @@ public class CacheFile {
         }
 
         try {
-            CacheFile cacheFile = mapper.readValue(new File(getCacheFile()), CacheFile.class);
-            Map<String, Credential> data = cacheFile.getCachedData();
-
-            if (data != null) {
-                String key = generateUsernameMd5(keycloakUrl, realm, username);
-                return Optional.ofNullable(data.get(key));
-            } else {
-                return Optional.empty();
-            }
+            String key = generateUsernameMd5(keycloakUrl, realm, username);
+            return Optional.ofNullable(readCachedData(path).get(key));
         } catch (IOException e) {
             log.error("Error getting credential", e);
             return Optional.empty();
         }
     }
 
+    private static Map<String, Credential> readCachedData(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Collections.emptyMap();
+        }
+        CacheFile cacheFile = mapper.readValue(path.toFile(), CacheFile.class);
+        Map<String, Credential> data = cacheFile.getCachedData();
+        return data == null ? Collections.emptyMap() : data;
+    }
+
     private static void createConfigFolderIfAbsent() throws IOException {
         Path path = Paths.get(Config.getConfigLocation());
 
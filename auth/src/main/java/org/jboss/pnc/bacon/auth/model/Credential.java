@@ -1,5 +1,6 @@
 package org.jboss.pnc.bacon.auth.model;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
@@ -17,6 +18,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class Credential {
 
+    /**
+     * How long before its expiry an access token is replaced in advance, while it's still valid
+     */
+    private static final Duration REFRESH_AHEAD = Duration.ofMinutes(3);
+
     private String keycloakBaseUrl;
 
     private String realm;
@@ -46,13 +52,24 @@ public class Credential {
     @JsonIgnore
     public boolean isAccessTokenValid() {
 
-        if (!isRefreshTokenValid()) {
+        if (accessToken == null || accessTokenExpiresIn == null) {
+            return false;
+        } else if (refreshToken != null && !isRefreshTokenValid()) {
+            // service accounts may not get a refresh token, their access token is valid on its own
             return false;
         } else {
             return Instant.now().until(accessTokenExpiresIn, ChronoUnit.MINUTES) > 1;
         }
     }
 
+    /**
+     * @return whether the access token is valid and stays valid long enough not to be replaced in advance yet
+     */
+    @JsonIgnore
+    public boolean isAccessTokenFresh() {
+        return isAccessTokenValid() && Instant.now().plus(REFRESH_AHEAD).isBefore(accessTokenExpiresIn);
+    }
+
     @JsonPOJOBuilder(withPrefix = "")
     public static class Builder {
     }
@@ -0,0 +1,99 @@
+package org.jboss.pnc.bacon.auth.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.pnc.bacon.auth.model.Credential;
+import org.jboss.pnc.bacon.common.exception.FatalException;
+import org.junit.jupiter.api.Test;
+
+class AccessTokenManagerTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    @Test
+    void shouldGetOneTokenForConcurrentCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AccessTokenManager manager = new AccessTokenManager(() -> {
+            await(release);
+            return credential("token-" + fetches.incrementAndGet(), 60);
+        }, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                tokens.add(executor.submit(manager::getAccessToken));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> token : tokens) {
+                assertThat(token.get(10, TimeUnit.SECONDS)).isEqualTo("token-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void shouldRefreshInBackgroundBeforeExpiry() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+        try {
+            AccessTokenManager manager = new AccessTokenManager(() -> {
+                if (fetches.incrementAndGet() == 1) {
+                    // valid, but about to expire
+                    return credential("token-1", 2);
+                }
+                await(release);
+                return credential("token-2", 60);
+            }, refreshExecutor);
+
+            assertThat(manager.getAccessToken()).isEqualTo("token-1");
+            // the refresh is started, but the callers don't wait for it
+            assertThat(manager.getAccessToken()).isEqualTo("token-1");
+            assertThat(manager.getAccessToken()).isEqualTo("token-1");
+
+            release.countDown();
+            refreshExecutor.shutdown();
+            assertThat(refreshExecutor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(manager.getAccessToken()).isEqualTo("token-2");
+            assertThat(fetches).hasValue(2);
+        } finally {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectEmptyToken() {
+        AccessTokenManager manager = new AccessTokenManager(() -> credential("", 60), null);
+
+        assertThatThrownBy(manager::getAccessToken).isInstanceOf(FatalException.class);
+    }
+
+    private static Credential credential(String accessToken, int minutesValid) {
+        return Credential.builder()
+                .accessToken(accessToken)
+                .accessTokenExpiresIn(Instant.now().plusSeconds(minutesValid * 60L + 30))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.jboss.pnc.bacon.auth.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.bacon.config.Config;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CacheFileTest {
+
+    private static final String KEYCLOAK_URL = "https://keycloak.example.com";
+
+    @TempDir
+    Path configDir;
+
+    @BeforeEach
+    void configure() {
+        Config.configure(configDir.toString(), "config.yaml", "default");
+    }
+
+    @Test
+    void shouldKeepEntriesOfOtherUsers() {
+        CacheFile.writeCredentialToCacheFile(KEYCLOAK_URL, "realm", "alice", credential("alice-token"));
+        CacheFile.writeCredentialToCacheFile(KEYCLOAK_URL, "other-realm", "alice", credential("other-token"));
+        CacheFile.writeCredentialToCacheFile(KEYCLOAK_URL, "realm", "bob", credential("bob-token"));
+
+        assertThat(CacheFile.getCredentialFromCacheFile(KEYCLOAK_URL, "realm", "alice"))
+                .hasValueSatisfying(c -> assertThat(c.getAccessToken()).isEqualTo("alice-token"));
+        assertThat(CacheFile.getCredentialFromCacheFile(KEYCLOAK_URL, "other-realm", "alice"))
+                .hasValueSatisfying(c -> assertThat(c.getAccessToken()).isEqualTo("other-token"));
+        assertThat(CacheFile.getCredentialFromCacheFile(KEYCLOAK_URL, "realm", "bob"))
+                .hasValueSatisfying(c -> assertThat(c.getAccessToken()).isEqualTo("bob-token"));
+        assertThat(CacheFile.getCredentialFromCacheFile("https://other.example.com", "realm", "bob")).isEmpty();
+    }
+
+    @Test
+    void shouldDropExpiredEntries() {
+        Credential expired = credential("expired").toBuilder().accessTokenExpiresIn(Instant.now()).build();
+        CacheFile.writeCredentialToCacheFile(KEYCLOAK_URL, "realm", "alice", expired);
+        CacheFile.writeCredentialToCacheFile(KEYCLOAK_URL, "realm", "bob", credential("bob-token"));
+
+        assertThat(CacheFile.getCredentialFromCacheFile(KEYCLOAK_URL, "realm", "alice")).isEmpty();
+        assertThat(CacheFile.getCredentialFromCacheFile(KEYCLOAK_URL, "realm", "bob")).isPresent();
+    }
+
+    @Test
+    void shouldNotLoseConcurrentWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String username = "user-" + i;
+                writes.add(
+                        executor.submit(
+                                () -> CacheFile.writeCredentialToCacheFile(
+                                        KEYCLOAK_URL,
+                                        "realm",
+                                        username,
+                                        credential(username))));
+            }
+            for (Future<?> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < 32; i++) {
+            assertThat(CacheFile.getCredentialFromCacheFile(KEYCLOAK_URL, "realm", "user-" + i)).isPresent();
+        }
+    }
+
+    private static Credential credential(String accessToken) {
+        return Credential.builder()
+                .accessToken(accessToken)
+                .accessTokenExpiresIn(Instant.now().plusSeconds(3600))
+                .build();
+    }
+}
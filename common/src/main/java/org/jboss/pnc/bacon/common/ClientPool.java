@@ -0,0 +1,67 @@
+package org.jboss.pnc.bacon.common;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Pool of clients that are not thread safe, e.g. PNC clients, shared by the threads of a concurrent task. Every
+ * client is used by a single thread at a time, and new clients are only created when all the existing ones are in use.
+ *
+ * @param <T> type of the clients, or of a group of clients used together
+ */
+public class ClientPool<T> implements Closeable {
+
+    private final Supplier<T> factory;
+    private final Consumer<T> closer;
+
+    private final Queue<T> idleClients = new ConcurrentLinkedQueue<>();
+    private final List<T> allClients = new ArrayList<>();
+
+    /**
+     * @param factory creates a new client
+     * @param closer closes a client when the pool is closed
+     */
+    public ClientPool(Supplier<T> factory, Consumer<T> closer) {
+        this.factory = factory;
+        this.closer = closer;
+    }
+
+    /**
+     * Run the action with a client no other thread is using
+     *
+     * @param action action to run
+     * @return the result of the action
+     */
+    public <R> R withClient(Function<T, R> action) {
+        T client = idleClients.poll();
+        if (client == null) {
+            client = factory.get();
+            synchronized (allClients) {
+                allClients.add(client);
+            }
+        }
+        try {
+            return action.apply(client);
+        } finally {
+            idleClients.add(client);
+        }
+    }
+
+    /**
+     * Close all the clients created by the pool
+     */
+    @Override
+    public void close() {
+        synchronized (allClients) {
+            allClients.forEach(closer);
+            allClients.clear();
+        }
+        idleClients.clear();
+    }
+}
@@ -0,0 +1,87 @@
+package org.jboss.pnc.bacon.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Helpers for looking up many entities at once: splitting the values into batched queries, and computing every cached
+ * value only once when several threads need it at the same time
+ */
+public final class ConcurrentLookups {
+
+    /**
+     * Number of names or ids per query when looking up entities in bulk, keeps the query URL reasonably short
+     */
+    public static final int VALUES_PER_QUERY = 50;
+
+    private ConcurrentLookups() {
+    }
+
+    /**
+     * Split the distinct values, e.g. names, into batches small enough for a single query. The values keep their
+     * order.
+     *
+     * @param values values to split
+     * @return batches of at most {@link #VALUES_PER_QUERY} values
+     */
+    public static List<List<String>> batches(Stream<String> values) {
+        List<String> distinctValues = values.distinct().collect(Collectors.toList());
+        List<List<String>> result = new ArrayList<>();
+        for (int i = 0; i < distinctValues.size(); i += VALUES_PER_QUERY) {
+            result.add(distinctValues.subList(i, Math.min(distinctValues.size(), i + VALUES_PER_QUERY)));
+        }
+        return result;
+    }
+
+    /**
+     * @param values values to quote
+     * @return the values in single quotes, separated by commas, e.g. for a {@code name=in=(...)} query
+     */
+    public static String quote(Collection<String> values) {
+        return values.stream().map(value -> "'" + value + "'").collect(Collectors.joining(","));
+    }
+
+    /**
+     * Get the value from the cache, or compute it if no other thread is computing it already. If the computation
+     * fails, the threads waiting for it fail with the same exception.
+     *
+     * @param cache values, or their computation in progress, by key
+     * @param key key of the value
+     * @param supplier computes the value
+     * @return the value
+     */
+    public static <T> T getOrCompute(Map<String, CompletableFuture<T>> cache, String key, Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> existing = cache.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        try {
+            T value = supplier.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @param e exception thrown when joining a future
+     * @return the runtime exception the future failed with, or {@code e} if it failed with a checked exception
+     */
+    public static RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+}
@@ -1,5 +1,7 @@
 package org.jboss.pnc.bacon.common;
 
+import java.util.Iterator;
+
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -48,6 +50,49 @@ public class ObjectHelper {
         }
     }
 
+    /**
+     * Print every object on its own line in compact JSON format, so that results can be streamed as JSON lines
+     *
+     * If the root logger is set to LOG_LEVEL_SILENT or more, nothing is printed
+     *
+     * @param objects Objects to print
+     * @throws JsonProcessingException
+     */
+    public static void printJsonLines(Iterable<?> objects) throws JsonProcessingException {
+        if (!getLogger(Logger.ROOT_LOGGER_NAME).getLevel().isGreaterOrEqual(LOG_LEVEL_SILENT)) {
+            ObjectMapper mapper = getOutputMapper(true);
+            StringBuilder lines = new StringBuilder();
+            for (Object o : objects) {
+                lines.append(mapper.writeValueAsString(o)).append(System.lineSeparator());
+            }
+            System.out.print(lines);
+            System.out.flush();
+        }
+    }
+
+    /**
+     * Print the objects one by one as the iterator provides them, so that the output starts before the last object is
+     * available: one compact JSON document per line if the json parameter is set to true, one YAML document per object
+     * otherwise
+     *
+     * If the root logger is set to LOG_LEVEL_SILENT or more, nothing is printed
+     *
+     * @param json whether to print JSON lines instead of YAML documents
+     * @param objects Objects to print
+     * @throws JsonProcessingException
+     */
+    public static void printStream(boolean json, Iterator<?> objects) throws JsonProcessingException {
+        if (!getLogger(Logger.ROOT_LOGGER_NAME).getLevel().isGreaterOrEqual(LOG_LEVEL_SILENT)) {
+            ObjectMapper mapper = getOutputMapper(json);
+            while (objects.hasNext()) {
+                String document = mapper.writeValueAsString(objects.next());
+                // YAML documents end with a line break already
+                System.out.print(json ? document + System.lineSeparator() : document);
+                System.out.flush();
+            }
+        }
+    }
+
     public static void setRootLoggingLevel(Level level) {
         ch.qos.logback.classic.Logger root = getLogger(ch.qos.logback.classic.Logger.ROOT_LOGGER_NAME);
         root.setLevel(level);
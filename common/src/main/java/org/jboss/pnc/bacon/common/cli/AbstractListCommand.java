@@ -17,12 +17,17 @@
  */
 package org.jboss.pnc.bacon.common.cli;
 
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import org.jboss.pnc.bacon.common.ObjectHelper;
 import org.jboss.pnc.bacon.common.exception.FatalException;
+import org.jboss.pnc.bacon.config.Config;
 import org.jboss.pnc.client.ClientException;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -33,33 +38,109 @@ import picocli.CommandLine.Option;
 /**
  * Class used to provide a default implementation for List* type commands.
  *
- * The subclass only needs to implement the 'getAll' method to teach it how to retrieve all the contents
+ * The subclass only needs to implement the 'getAll' method to teach it how to retrieve all the contents. The returned
+ * collection is read lazily, page by page, and the next pages are fetched in the background while the current ones are
+ * processed. With --stream, every entity is printed as soon as its page arrives instead of after the last page.
  *
  * @param <T>
  */
 @Slf4j
 public abstract class AbstractListCommand<T> extends JSONCommandHandler implements Callable<Integer> {
 
+    /**
+     * Number of pages fetched ahead of the printing
+     */
+    private static final int PREFETCHED_PAGES = 2;
+
     @Option(names = "--sort", description = "Sort order (using RSQL)")
     private String sort;
 
     @Option(names = "--query", description = "Query parameter (using RSQL)")
     private String query;
 
+    @Option(
+            names = "--stream",
+            description = "Print the entities as their pages arrive: one JSON document per line with JSON output, "
+                    + "one YAML document per entity otherwise")
+    private boolean stream;
+
+    @Option(names = "--limit", description = "Maximum number of entities to list, no page is fetched past it")
+    private Long limit;
+
+    @Option(
+            names = "--page-size",
+            description = "Number of entities fetched at once. Defaults to the pageSize of the pnc config, or 50")
+    private Integer pageSize;
+
     protected boolean print = true;
 
+    private final Deque<AutoCloseable> clients = new ArrayDeque<>();
+
     @Override
     public Integer call() {
-        if (query == null && sort == null && print == true) {
+        if (query == null && sort == null && limit == null && print == true) {
             log.warn("Listing entities without filters may take some time, please be patient.");
         }
-        try {
-            ObjectHelper.print(getJsonOutput(), getAll(sort, query));
+        if (limit != null && limit < 0) {
+            throw new FatalException("The limit must not be negative, got {}", limit);
+        }
+        if (pageSize != null && pageSize < 1) {
+            throw new FatalException("The page size must be positive, got {}", pageSize);
+        }
+        int entitiesPerPage = pageSize == null ? Config.instance().getActiveProfile().getPnc().getPageSize()
+                : pageSize;
+        try (PrefetchingIterator<T> entities = new PrefetchingIterator<>(
+                getAll(sort, query).iterator(),
+                PREFETCHED_PAGES * entitiesPerPage,
+                limit == null ? Long.MAX_VALUE : limit)) {
+            if (stream) {
+                ObjectHelper.printStream(getJsonOutput(), entities);
+            } else {
+                List<T> all = new ArrayList<>();
+                entities.forEachRemaining(all::add);
+                ObjectHelper.print(getJsonOutput(), all);
+            }
         } catch (JsonProcessingException | ClientException e) {
             throw new FatalException("Caught exception", e);
+        } finally {
+            // the reader thread is stopped by now, no page is being fetched through the clients
+            closeClients();
         }
         return 0;
     }
 
-    public abstract Collection<T> getAll(String sort, String query) throws RemoteResourceException;
+    /**
+     * @return the entities, the collection is read after this method returns, so the clients it uses must stay open
+     * @see #closeAfterListing(AutoCloseable)
+     */
+    public abstract RemoteCollection<T> getAll(String sort, String query) throws RemoteResourceException;
+
+    /**
+     * @return the number of entities per page requested with --page-size, or null to use the pageSize of the pnc config.
+     *         The clients used in {@link #getAll(String, String)} should be created with it.
+     */
+    protected Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Keeps the client open until all the entities are listed, the remaining pages are fetched through it.
+     *
+     * @param client client used to get the entities
+     * @return the client
+     */
+    protected <C extends AutoCloseable> C closeAfterListing(C client) {
+        clients.push(client);
+        return client;
+    }
+
+    private void closeClients() {
+        while (!clients.isEmpty()) {
+            try {
+                clients.pop().close();
+            } catch (Exception e) {
+                log.debug("Error closing client", e);
+            }
+        }
+    }
 }
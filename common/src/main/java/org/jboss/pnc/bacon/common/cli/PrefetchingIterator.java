@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.common.cli;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads a lazily loaded iterator, e.g. the pages of a remote collection, ahead of its consumer in a background thread,
+ * so that the next pages are fetched while the current ones are processed.
+ * <p>
+ * At most {@code capacity} elements are read ahead, and reading stops after {@code limit} elements, so that no page is
+ * fetched past the limit.
+ *
+ * @param <T> type of the elements
+ */
+@Slf4j
+class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Object END = new Object();
+
+    /**
+     * How long closing waits for the page being fetched, interrupting the reader doesn't stop a request in progress
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final BlockingQueue<Object> queue;
+    private final Thread reader;
+
+    private Object next;
+
+    PrefetchingIterator(Iterator<T> source, int capacity, long limit) {
+        queue = new ArrayBlockingQueue<>(capacity);
+        reader = new Thread(() -> read(source, limit), "list-prefetch");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void read(Iterator<T> source, long limit) {
+        try {
+            Object last = END;
+            try {
+                // the count is checked first, hasNext() may fetch the next page
+                for (long count = 0; count < limit && source.hasNext(); count++) {
+                    queue.put(source.next());
+                }
+            } catch (Throwable e) {
+                // errors too, the consumer would wait for the end forever otherwise
+                last = new Failure(e);
+            }
+            queue.put(last);
+        } catch (InterruptedException e) {
+            // closed by the consumer
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the next page", e);
+            }
+        }
+        if (next instanceof Failure) {
+            Throwable exception = ((Failure) next).exception;
+            if (exception instanceof RuntimeException) {
+                throw (RuntimeException) exception;
+            }
+            if (exception instanceof Error) {
+                throw (Error) exception;
+            }
+            throw new IllegalStateException("Failed to read the next page", exception);
+        }
+        return next != END;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T element = (T) next;
+        next = null;
+        return element;
+    }
+
+    /**
+     * Stops reading ahead, e.g. when the consumer failed before reading everything, and waits for the page being
+     * fetched, so that the clients can be closed afterwards
+     */
+    @Override
+    public void close() {
+        reader.interrupt();
+        try {
+            reader.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (reader.isAlive()) {
+            log.warn(
+                    "The next page is still being fetched after {} seconds, not waiting for it",
+                    CLOSE_TIMEOUT_SECONDS);
+        }
+    }
+
+    private static class Failure {
+        private final Throwable exception;
+
+        private Failure(Throwable exception) {
+            this.exception = exception;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.jboss.pnc.bacon.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentLookupsTest {
+
+    @Test
+    void shouldSplitDistinctValuesIntoBatches() {
+        List<String> values = IntStream.range(0, ConcurrentLookups.VALUES_PER_QUERY + 10)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.toList());
+
+        List<List<String>> batches = ConcurrentLookups.batches(Stream.concat(values.stream(), values.stream()));
+
+        assertEquals(2, batches.size());
+        assertEquals(values.subList(0, ConcurrentLookups.VALUES_PER_QUERY), batches.get(0));
+        assertEquals(values.subList(ConcurrentLookups.VALUES_PER_QUERY, values.size()), batches.get(1));
+    }
+
+    @Test
+    void shouldQuoteValues() {
+        assertEquals("'a','b'", ConcurrentLookups.quote(List.of("a", "b")));
+    }
+
+    @Test
+    void shouldComputeEveryValueOnce() throws Exception {
+        Map<String, CompletableFuture<Integer>> cache = new ConcurrentHashMap<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Integer>> results = IntStream.range(0, 4)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        started.countDown();
+                        return ConcurrentLookups.getOrCompute(cache, "key", () -> {
+                            try {
+                                started.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return computations.incrementAndGet();
+                        });
+                    }, executor))
+                    .collect(Collectors.toList());
+
+            for (CompletableFuture<Integer> result : results) {
+                assertEquals(1, result.get());
+            }
+            assertEquals(1, computations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldFailWaitingThreadsWithTheSameException() {
+        Map<String, CompletableFuture<String>> cache = new ConcurrentHashMap<>();
+        IllegalStateException failure = new IllegalStateException("failed");
+
+        assertSame(
+                failure,
+                assertThrows(
+                        IllegalStateException.class,
+                        () -> ConcurrentLookups.getOrCompute(cache, "key", () -> {
+                            throw failure;
+                        })));
+        assertSame(
+                failure,
+                assertThrows(
+                        IllegalStateException.class,
+                        () -> ConcurrentLookups.getOrCompute(cache, "key", () -> "computed again")));
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -48,6 +49,39 @@ class ObjectHelperTest {
         assertEquals(expected, systemOut.getText());
     }
 
+    @Test
+    void printJsonLines() throws Exception {
+        ObjectHelper.setRootLoggingLevel(Level.INFO);
+
+        ObjectHelper.printJsonLines(List.of(Map.of("test", "first"), Map.of("test", "second")));
+
+        String expected = String.format("{\"test\":\"first\"}%n{\"test\":\"second\"}%n");
+
+        assertEquals(expected, systemOut.getText());
+    }
+
+    @Test
+    void printStreamJson() throws Exception {
+        ObjectHelper.setRootLoggingLevel(Level.INFO);
+
+        ObjectHelper.printStream(true, List.of(Map.of("test", "first"), Map.of("test", "second")).iterator());
+
+        String expected = String.format("{\"test\":\"first\"}%n{\"test\":\"second\"}%n");
+
+        assertEquals(expected, systemOut.getText());
+    }
+
+    @Test
+    void printStreamYaml() throws Exception {
+        ObjectHelper.setRootLoggingLevel(Level.INFO);
+
+        ObjectHelper.printStream(false, List.of(Map.of("test", "first"), Map.of("test", "second")).iterator());
+
+        String expected = String.format("---%ntest: \"first\"%n---%ntest: \"second\"%n");
+
+        assertEquals(expected, systemOut.getText());
+    }
+
     @Test
     void setRootLoggingLevel() {
         ch.qos.logback.classic.Logger root = (ch.qos.logback.classic.Logger) org.slf4j.LoggerFactory
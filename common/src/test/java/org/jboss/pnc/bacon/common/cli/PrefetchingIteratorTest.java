@@ -0,0 +1,103 @@
+package org.jboss.pnc.bacon.common.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class PrefetchingIteratorTest {
+
+    @Test
+    void readsEverythingInOrder() {
+        List<Integer> source = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source.iterator(), 10, Long.MAX_VALUE)) {
+            assertEquals(source, drain(iterator));
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    void stopsReadingAtLimit() throws Exception {
+        AtomicInteger read = new AtomicInteger();
+        Iterator<Integer> source = IntStream.range(0, 1000).peek(i -> read.incrementAndGet()).iterator();
+
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 100, 5)) {
+            assertEquals(List.of(0, 1, 2, 3, 4), drain(iterator));
+        }
+        assertEquals(5, read.get());
+    }
+
+    @Test
+    void rethrowsReadFailure() {
+        IllegalStateException failure = new IllegalStateException("page not available");
+        Iterator<Integer> source = IntStream.range(0, 10).map(i -> {
+            if (i == 3) {
+                throw failure;
+            }
+            return i;
+        }).iterator();
+
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 100, Long.MAX_VALUE)) {
+            assertEquals(0, iterator.next());
+            assertEquals(1, iterator.next());
+            assertEquals(2, iterator.next());
+            assertSame(failure, assertThrows(IllegalStateException.class, iterator::hasNext));
+        }
+    }
+
+    @Test
+    void rethrowsReadError() {
+        AssertionError failure = new AssertionError("unexpected page");
+        Iterator<Integer> source = IntStream.range(0, 10).map(i -> {
+            throw failure;
+        }).iterator();
+
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 100, Long.MAX_VALUE)) {
+            assertSame(failure, assertThrows(AssertionError.class, iterator::hasNext));
+        }
+    }
+
+    @Test
+    void closeWaitsForThePageBeingFetched() {
+        AtomicBoolean fetching = new AtomicBoolean();
+        AtomicBoolean fetched = new AtomicBoolean();
+        Iterator<Integer> source = IntStream.range(0, 10).map(i -> {
+            if (i == 1) {
+                fetching.set(true);
+                // like a request in progress, not stopped by the interruption
+                long end = System.nanoTime() + 200_000_000L;
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+                fetched.set(true);
+            }
+            return i;
+        }).iterator();
+
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 100, Long.MAX_VALUE)) {
+            assertEquals(0, iterator.next());
+            while (!fetching.get()) {
+                Thread.onSpinWait();
+            }
+        }
+        assertTrue(fetched.get());
+    }
+
+    private static <T> List<T> drain(Iterator<T> iterator) {
+        List<T> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+}
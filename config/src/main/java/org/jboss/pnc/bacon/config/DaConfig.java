@@ -17,6 +17,9 @@
  */
 package org.jboss.pnc.bacon.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import lombok.Data;
 
 /**
@@ -27,6 +30,28 @@ import lombok.Data;
 public class DaConfig implements Validate {
     private String url;
 
+    /**
+     * Maximum number of artifacts sent to DA in a single lookup request
+     */
+    private int lookupBatchSize = 100;
+
+    /**
+     * Maximum number of lookup requests sent to DA concurrently
+     */
+    private int lookupParallelism = 4;
+
+    /**
+     * Time in minutes for which DA lookup results are kept in the local lookup cache, by lookup mode. Modes that are not
+     * listed use {@link #lookupCacheDefaultTtl}. A TTL of 0 disables the cache for the mode.
+     */
+    private Map<String, Long> lookupCacheTtl = new HashMap<>(Map.of("PERSISTENT", 24 * 60L));
+
+    /**
+     * Time in minutes for which DA lookup results are kept in the local lookup cache if their lookup mode doesn't have
+     * its own TTL in {@link #lookupCacheTtl}
+     */
+    private long lookupCacheDefaultTtl = 60;
+
     @Override
     public void validate() {
         Validate.validateUrl(url, "Dependency Analysis URL");
@@ -30,9 +30,17 @@ public class PncConfig implements Validate {
 
     private String bifrostBaseurl;
 
+    /**
+     * Number of entities fetched at once when listing entities
+     */
+    private int pageSize = 50;
+
     @Override
     public void validate() {
         Validate.validateUrl(url, "PNC");
         Validate.validateUrl(bifrostBaseurl, "Bifrost");
+        if (pageSize < 1) {
+            Validate.fail("PNC page size must be positive in the config file!");
+        }
     }
 }
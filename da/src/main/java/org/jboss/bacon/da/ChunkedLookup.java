@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.bacon.da;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Looks up artifacts in fixed-size chunks, with a limited number of chunks in flight. The artifacts are consumed lazily,
+ * only when there is room for another chunk, so arbitrarily long inputs can be looked up in constant memory. The results
+ * of each chunk are passed on as soon as the chunk completes. A failed chunk is retried on its own.
+ *
+ * @param <A> looked up artifact
+ * @param <R> lookup result
+ */
+@Slf4j
+public class ChunkedLookup<A, R> {
+
+    private final int chunkSize;
+    private final int concurrency;
+    private final int attempts;
+    private final long retryDelayMillis;
+    private final Function<Set<A>, Collection<R>> lookup;
+    private final Consumer<Collection<R>> resultConsumer;
+
+    /**
+     * @param chunkSize maximum number of artifacts looked up at once
+     * @param concurrency maximum number of chunks looked up concurrently
+     * @param attempts number of times a chunk is looked up before it's considered failed
+     * @param retryDelayMillis delay before the first retry of a chunk, doubled on every following retry
+     * @param lookup looks up a chunk of artifacts
+     * @param resultConsumer receives the results of every chunk, never called concurrently
+     */
+    public ChunkedLookup(
+            int chunkSize,
+            int concurrency,
+            int attempts,
+            long retryDelayMillis,
+            Function<Set<A>, Collection<R>> lookup,
+            Consumer<Collection<R>> resultConsumer) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.attempts = Math.max(1, attempts);
+        this.retryDelayMillis = retryDelayMillis;
+        this.lookup = lookup;
+        this.resultConsumer = resultConsumer;
+    }
+
+    /**
+     * Look up all the artifacts. Duplicate artifacts are only removed within a chunk.
+     *
+     * @param artifacts artifacts to look up
+     * @return number of chunks that couldn't be looked up, even after retrying
+     */
+    public int run(Iterator<A> artifacts) {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger failedChunks = new AtomicInteger();
+        int chunks = 0;
+        try {
+            while (artifacts.hasNext()) {
+                Set<A> chunk = new LinkedHashSet<>();
+                while (artifacts.hasNext() && chunk.size() < chunkSize) {
+                    chunk.add(artifacts.next());
+                }
+                int chunkNumber = ++chunks;
+                inFlight.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        if (!lookupChunk(chunkNumber, chunk)) {
+                            failedChunks.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        log.error("Unable to process the results of chunk {}", chunkNumber, e);
+                        failedChunks.incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // wait for the chunks still in flight
+            inFlight.acquireUninterruptibly(concurrency);
+        } finally {
+            executor.shutdown();
+        }
+        awaitTermination(executor);
+        log.debug("Looked up {} chunks, {} failed", chunks, failedChunks.get());
+        return failedChunks.get();
+    }
+
+    private boolean lookupChunk(int chunkNumber, Set<A> chunk) {
+        for (int attempt = 1;; attempt++) {
+            Collection<R> results;
+            try {
+                results = lookup.apply(chunk);
+            } catch (RuntimeException e) {
+                if (attempt >= attempts) {
+                    log.error("Lookup of chunk {} ({} artifacts) failed: {}", chunkNumber, chunk.size(), e.getMessage());
+                    log.debug("Failed chunk {}: {}", chunkNumber, chunk, e);
+                    return false;
+                }
+                long delay = retryDelayMillis << (attempt - 1);
+                log.warn("Lookup of chunk {} failed, retrying in {} ms: {}", chunkNumber, delay, e.getMessage());
+                if (!sleep(delay)) {
+                    return false;
+                }
+                continue;
+            }
+            synchronized (resultConsumer) {
+                resultConsumer.accept(results);
+            }
+            return true;
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
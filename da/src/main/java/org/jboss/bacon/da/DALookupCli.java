@@ -20,11 +20,16 @@ package org.jboss.bacon.da;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 import org.jboss.bacon.da.rest.endpoint.LookupApi;
 import org.jboss.da.lookup.model.MavenLatestRequest;
@@ -45,6 +50,8 @@ import org.jboss.pnc.bacon.common.ObjectHelper;
 import org.jboss.pnc.bacon.common.cli.JSONCommandHandler;
 import org.jboss.pnc.bacon.common.exception.FatalException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine;
 
@@ -60,6 +67,8 @@ import picocli.CommandLine;
 @Slf4j
 public class DALookupCli {
 
+    private static final long CHUNK_RETRY_DELAY_MILLIS = 1000;
+
     private final static String availableModes = "Available modes: PERSISTENT, TEMPORARY, TEMPORARY_PREFER_PERSISTENT, SERVICE, SERVICE_TEMPORARY, SERVICE_TEMPORARY_PREFER_PERSISTENT";
 
     @CommandLine.Command(
@@ -89,6 +98,11 @@ public class DALookupCli {
         @CommandLine.Parameters(description = "groupId:artifactId:version of the artifact to lookup")
         private String[] gavs;
 
+        @CommandLine.Option(
+                names = "--no-cache",
+                description = "Ignore the locally cached lookup results and look up all the artifacts in DA")
+        private boolean noCache = false;
+
         @Override
         public Integer call() {
 
@@ -101,15 +115,25 @@ public class DALookupCli {
                 gavSet.add(DaHelper.toGAV(gav));
             }
 
-            MavenLookupRequest request = MavenLookupRequest.builder()
-                    .mode(DaHelper.getMode(temporary, managedService, lookupMode))
-                    .brewPullActive(brewPullActive)
-                    .artifacts(gavSet)
-                    .build();
+            String mode = DaHelper.getMode(temporary, managedService, lookupMode);
 
             LookupApi lookupApi = DaHelper.createLookupApi();
+            DaLookupCache lookupCache = DaLookupCache.create(noCache);
             try {
-                Set<MavenLookupResult> result = lookupApi.lookupMaven(request);
+                Set<MavenLookupResult> result = lookupCache.lookup(
+                        "maven",
+                        mode,
+                        brewPullActive,
+                        gavSet,
+                        MavenLookupResult.class,
+                        MavenLookupResult::getGav,
+                        missing -> lookupApi.lookupMaven(
+                                MavenLookupRequest.builder()
+                                        .mode(mode)
+                                        .brewPullActive(brewPullActive)
+                                        .artifacts(missing)
+                                        .build()));
+                log.info("DA lookup cache: {} hits, {} misses", lookupCache.getHits(), lookupCache.getMisses());
                 List<MavenLookupResult> orderedResult = DaHelper.orderMavenResult(gavSet, result);
                 ObjectHelper.print(getJsonOutput(), orderedResult);
             } catch (IOException e) {
@@ -166,6 +190,11 @@ public class DALookupCli {
         @CommandLine.Parameters(description = "groupId:artifactId:version of the artifact to lookup")
         private String[] gavs;
 
+        @CommandLine.Option(
+                names = "--no-cache",
+                description = "Ignore the locally cached lookup results and look up all the artifacts in DA")
+        private boolean noCache = false;
+
         @Override
         public Integer call() throws Exception {
 
@@ -178,17 +207,27 @@ public class DALookupCli {
                 gavSet.add(DaHelper.toGAV(gav));
             }
 
-            MavenVersionsRequest request = MavenVersionsRequest.builder()
-                    .filter(filter)
-                    .distanceRule(VersionDistanceRule.valueOf(distanceRule))
-                    .mode(lookupMode)
-                    .brewPullActive(brewPullActive)
-                    .artifacts(gavSet)
-                    .build();
+            VersionDistanceRule rule = VersionDistanceRule.valueOf(distanceRule);
 
             LookupApi lookupApi = DaHelper.createLookupApi();
+            DaLookupCache lookupCache = DaLookupCache.create(noCache);
             try {
-                Set<MavenVersionsResult> result = lookupApi.versionsMaven(request);
+                Set<MavenVersionsResult> result = lookupCache.lookup(
+                        "maven-versions|" + filter + "|" + rule,
+                        lookupMode,
+                        brewPullActive,
+                        gavSet,
+                        MavenVersionsResult.class,
+                        MavenVersionsResult::getGav,
+                        missing -> lookupApi.versionsMaven(
+                                MavenVersionsRequest.builder()
+                                        .filter(filter)
+                                        .distanceRule(rule)
+                                        .mode(lookupMode)
+                                        .brewPullActive(brewPullActive)
+                                        .artifacts(missing)
+                                        .build()));
+                log.info("DA lookup cache: {} hits, {} misses", lookupCache.getHits(), lookupCache.getMisses());
                 List<MavenVersionsResult> orderedResult = DaHelper.orderMavenResult(gavSet, result);
                 ObjectHelper.print(getJsonOutput(), orderedResult);
             } catch (IOException e) {
@@ -225,6 +264,38 @@ public class DALookupCli {
         @CommandLine.Option(names = "--filename", description = "filename to specify GAVs, one per line")
         private String filename;
 
+        @CommandLine.Option(
+                names = "--no-cache",
+                description = "Ignore the locally cached lookup results and look up all the artifacts in DA")
+        private boolean noCache = false;
+
+        @CommandLine.Option(
+                names = "--stream",
+                description = "Read the GAVs lazily and look them up in chunks. The results of every chunk are printed "
+                        + "as JSON lines as soon as the chunk completes, so they may not follow the order of the input.")
+        private boolean stream = false;
+
+        @CommandLine.Option(
+                names = "--chunk-size",
+                description = "Number of GAVs looked up at once in streaming mode",
+                defaultValue = "500",
+                showDefaultValue = CommandLine.Help.Visibility.ALWAYS)
+        private int chunkSize;
+
+        @CommandLine.Option(
+                names = "--concurrency",
+                description = "Number of chunks looked up concurrently in streaming mode",
+                defaultValue = "4",
+                showDefaultValue = CommandLine.Help.Visibility.ALWAYS)
+        private int concurrency;
+
+        @CommandLine.Option(
+                names = "--chunk-attempts",
+                description = "Number of times a chunk is looked up before giving up on it in streaming mode",
+                defaultValue = "3",
+                showDefaultValue = CommandLine.Help.Visibility.ALWAYS)
+        private int chunkAttempts;
+
         @Override
         public Integer call() {
 
@@ -232,6 +303,10 @@ public class DALookupCli {
                 throw new FatalException("You didn't specify any GAVs or file!");
             }
 
+            if (stream) {
+                return streamLookup();
+            }
+
             // Use LinkedHashSet to maintain order of insertion
             LinkedHashSet<GAV> gavSet = new LinkedHashSet<>();
             if (gavs != null) {
@@ -254,14 +329,21 @@ public class DALookupCli {
                 }
             }
 
-            MavenLatestRequest request = MavenLatestRequest.builder()
-                    .mode(DaHelper.getMode(temporary, managedService, lookupMode))
-                    .artifacts(gavSet)
-                    .build();
+            String mode = DaHelper.getMode(temporary, managedService, lookupMode);
 
             LookupApi lookupApi = DaHelper.createLookupApi();
+            DaLookupCache lookupCache = DaLookupCache.create(noCache);
             try {
-                Set<MavenLatestResult> result = lookupApi.lookupMaven(request);
+                Set<MavenLatestResult> result = lookupCache.lookup(
+                        "maven-latest",
+                        mode,
+                        false,
+                        gavSet,
+                        MavenLatestResult.class,
+                        MavenLatestResult::getGav,
+                        missing -> lookupApi.lookupMaven(
+                                MavenLatestRequest.builder().mode(mode).artifacts(missing).build()));
+                log.info("DA lookup cache: {} hits, {} misses", lookupCache.getHits(), lookupCache.getMisses());
                 List<MavenLatestResult> orderedResult = DaHelper.orderMavenResult(gavSet, result);
                 ObjectHelper.print(getJsonOutput(), orderedResult);
             } catch (IOException e) {
@@ -270,6 +352,62 @@ public class DALookupCli {
             return 0;
         }
 
+        private int streamLookup() {
+            String mode = DaHelper.getMode(temporary, managedService, lookupMode);
+
+            LookupApi lookupApi = DaHelper.createLookupApi();
+            DaLookupCache lookupCache = DaLookupCache.create(noCache);
+            ChunkedLookup<GAV, MavenLatestResult> chunkedLookup = new ChunkedLookup<>(
+                    chunkSize,
+                    concurrency,
+                    chunkAttempts,
+                    CHUNK_RETRY_DELAY_MILLIS,
+                    chunk -> lookupCache.lookup(
+                            "maven-latest",
+                            mode,
+                            false,
+                            chunk,
+                            MavenLatestResult.class,
+                            MavenLatestResult::getGav,
+                            missing -> lookupApi.lookupMaven(
+                                    MavenLatestRequest.builder().mode(mode).artifacts(missing).build())),
+                    results -> {
+                        try {
+                            ObjectHelper.printJsonLines(results);
+                        } catch (JsonProcessingException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+
+            int failedChunks;
+            try (Stream<String> lines = readGavs()) {
+                failedChunks = chunkedLookup.run(lines.map(DaHelper::toGAV).iterator());
+            }
+            log.info("DA lookup cache: {} hits, {} misses", lookupCache.getHits(), lookupCache.getMisses());
+            if (failedChunks > 0) {
+                log.error("Lookup of {} chunks failed", failedChunks);
+                return 1;
+            }
+            return 0;
+        }
+
+        private Stream<String> readGavs() {
+            Stream<String> gavStream = gavs == null ? Stream.empty() : Arrays.stream(gavs);
+            if (filename == null) {
+                return gavStream;
+            }
+            try {
+                Stream<String> fileLines = Files.lines(Path.of(filename))
+                        .map(String::strip)
+                        // ignore line if it starts with '#', it's a comment
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"));
+                return Stream.concat(gavStream, fileLines);
+            } catch (NoSuchFileException e) {
+                throw new FatalException("File " + filename + " does not exist!");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     @CommandLine.Command(name = "npm", description = "Finds best matching versions for given NPM artifact coordinates")
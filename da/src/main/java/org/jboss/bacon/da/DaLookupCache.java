@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.bacon.da;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jboss.pnc.bacon.config.Config;
+import org.jboss.pnc.bacon.config.DaConfig;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local cache of DA lookup results, shared by all the bacon commands that query DA.
+ * <p>
+ * Every result is stored in its own file, named by the sha256 of its key. The key is made of the DA url, the kind of
+ * lookup with its options, the lookup mode, whether Brew pull is active and the looked up artifact, so results are
+ * never shared between DA servers or lookup options. Results expire after the TTL configured for their lookup mode,
+ * see {@link DaConfig#getLookupCacheTtl()}. Entries are written to a temporary file and atomically moved into place,
+ * so several bacon processes can share the cache.
+ */
+@Slf4j
+public class DaLookupCache {
+
+    public static final String CACHE_LOCATION = System.getProperty("user.home") + File.separator + ".cache"
+            + File.separator + "pnc-bacon" + File.separator + "da-lookup-cache";
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path cacheDir;
+    private final DaConfig daConfig;
+    private final boolean bypass;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param cacheDir directory holding the cache
+     * @param daConfig configuration of the DA server the results come from
+     * @param bypass if true, cached results are ignored and all the artifacts are looked up in DA. The results are
+     *        still stored in the cache.
+     */
+    public DaLookupCache(Path cacheDir, DaConfig daConfig, boolean bypass) {
+        this.cacheDir = cacheDir;
+        this.daConfig = daConfig;
+        this.bypass = bypass;
+    }
+
+    /**
+     * Create the cache in the default location for the DA server of the active profile
+     *
+     * @param bypass whether the cached results should be ignored
+     * @return the cache
+     */
+    public static DaLookupCache create(boolean bypass) {
+        return new DaLookupCache(Path.of(CACHE_LOCATION), Config.instance().getActiveProfile().getDa(), bypass);
+    }
+
+    /**
+     * Look up the artifacts in the cache and pass only the ones that are missing, or expired, to the remote lookup. The
+     * results of the remote lookup are stored in the cache.
+     *
+     * @param lookup kind of the lookup, including any options that influence its results
+     * @param mode lookup mode, determines how long the results are cached. Can be null for lookups without a mode.
+     * @param brewPullActive whether Brew pull is active for the lookup
+     * @param artifacts artifacts to look up
+     * @param resultType type of the lookup results
+     * @param artifactOf gets the looked up artifact from a lookup result
+     * @param remoteLookup looks up the artifacts missing in the cache in DA
+     * @return cached and remote lookup results
+     */
+    public <A, R> Set<R> lookup(
+            String lookup,
+            String mode,
+            boolean brewPullActive,
+            Collection<A> artifacts,
+            Class<R> resultType,
+            Function<R, A> artifactOf,
+            Function<Set<A>, Collection<R>> remoteLookup) {
+        Duration ttl = getTtl(mode);
+        String keyPrefix = String.join("|", daConfig.getUrl(), lookup, mode, String.valueOf(brewPullActive));
+
+        Set<R> results = new LinkedHashSet<>();
+        Set<A> missing = new LinkedHashSet<>();
+        for (A artifact : artifacts) {
+            R cached = bypass || ttl.isZero() ? null : read(keyPrefix + "|" + artifact, ttl, resultType);
+            if (cached != null) {
+                results.add(cached);
+            } else {
+                missing.add(artifact);
+            }
+        }
+        int lookupHits = artifacts.size() - missing.size();
+        hits.addAndGet(lookupHits);
+        misses.addAndGet(missing.size());
+        log.debug("DA lookup cache for {}: {} hits, {} misses", lookup, lookupHits, missing.size());
+
+        if (missing.isEmpty()) {
+            return results;
+        }
+        for (R result : remoteLookup.apply(missing)) {
+            results.add(result);
+            if (!ttl.isZero()) {
+                write(keyPrefix + "|" + artifactOf.apply(result), result);
+            }
+        }
+        return results;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private Duration getTtl(String mode) {
+        Map<String, Long> ttls = daConfig.getLookupCacheTtl() == null ? Map.of() : daConfig.getLookupCacheTtl();
+        long minutes = mode == null ? daConfig.getLookupCacheDefaultTtl()
+                : ttls.getOrDefault(mode, daConfig.getLookupCacheDefaultTtl());
+        return Duration.ofMinutes(Math.max(0, minutes));
+    }
+
+    private <R> R read(String key, Duration ttl, Class<R> resultType) {
+        Path entryFile = entryPath(key);
+        try {
+            Entry entry = mapper.readValue(Files.readAllBytes(entryFile), Entry.class);
+            if (!key.equals(entry.getKey()) || System.currentTimeMillis() - entry.getStoredAt() > ttl.toMillis()) {
+                return null;
+            }
+            return mapper.treeToValue(entry.getValue(), resultType);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Unable to read DA lookup cache entry {}", entryFile, e);
+            return null;
+        }
+    }
+
+    private void write(String key, Object result) {
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(cacheDir);
+            tmpFile = Files.createTempFile(cacheDir, "entry-", ".tmp");
+            Entry entry = new Entry(key, System.currentTimeMillis(), mapper.valueToTree(result));
+            mapper.writeValue(tmpFile.toFile(), entry);
+            Files.move(tmpFile, entryPath(key), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write DA lookup result to cache in {}: {}", cacheDir, e.getMessage());
+            if (tmpFile != null) {
+                tmpFile.toFile().delete();
+            }
+        }
+    }
+
+    private Path entryPath(String key) {
+        return cacheDir.resolve(DigestUtils.sha256Hex(key) + ".json");
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Entry {
+        private String key;
+        private long storedAt;
+        private JsonNode value;
+    }
+}
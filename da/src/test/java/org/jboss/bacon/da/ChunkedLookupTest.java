@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.bacon.da;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class ChunkedLookupTest {
+
+    @Test
+    void shouldLookUpAllArtifactsInChunks() {
+        List<Set<Integer>> chunks = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> results = new ArrayList<>();
+        ChunkedLookup<Integer, Integer> lookup = new ChunkedLookup<>(10, 3, 1, 0, chunk -> {
+            chunks.add(chunk);
+            return chunk;
+        }, results::addAll);
+
+        int failed = lookup.run(IntStream.range(0, 95).boxed().iterator());
+
+        assertEquals(0, failed);
+        assertEquals(10, chunks.size());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.size() <= 10));
+        assertEquals(
+                IntStream.range(0, 95).boxed().collect(Collectors.toSet()),
+                results.stream().collect(Collectors.toSet()));
+    }
+
+    @Test
+    void shouldRetryOnlyTheFailedChunk() {
+        Map<Integer, AtomicInteger> attemptsByChunk = new ConcurrentHashMap<>();
+        List<Integer> results = new ArrayList<>();
+        ChunkedLookup<Integer, Integer> lookup = new ChunkedLookup<>(5, 2, 3, 1, chunk -> {
+            int first = chunk.iterator().next();
+            int attempt = attemptsByChunk.computeIfAbsent(first, k -> new AtomicInteger()).incrementAndGet();
+            if (first == 5 && attempt == 1) {
+                throw new RuntimeException("temporary failure");
+            }
+            return chunk;
+        }, results::addAll);
+
+        int failed = lookup.run(IntStream.range(0, 15).boxed().iterator());
+
+        assertEquals(0, failed);
+        assertEquals(2, attemptsByChunk.get(5).get());
+        assertEquals(1, attemptsByChunk.get(0).get());
+        assertEquals(1, attemptsByChunk.get(10).get());
+        assertEquals(15, results.size());
+    }
+
+    @Test
+    void shouldReportChunksFailingOnEveryAttempt() {
+        List<Integer> results = new ArrayList<>();
+        ChunkedLookup<Integer, Integer> lookup = new ChunkedLookup<>(5, 2, 2, 1, chunk -> {
+            if (chunk.contains(7)) {
+                throw new RuntimeException("permanent failure");
+            }
+            return chunk;
+        }, results::addAll);
+
+        int failed = lookup.run(IntStream.range(0, 15).boxed().iterator());
+
+        assertEquals(1, failed);
+        assertEquals(10, results.size());
+        assertFalse(results.contains(7));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.bacon.da;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.jboss.da.lookup.model.MavenLookupResult;
+import org.jboss.da.model.rest.GAV;
+import org.jboss.pnc.bacon.config.DaConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DaLookupCacheTest {
+
+    private static final GAV FIRST = new GAV("org.jboss", "first", "1.0.0");
+    private static final GAV SECOND = new GAV("org.jboss", "second", "2.0.0");
+
+    @TempDir
+    Path cacheDir;
+
+    private DaConfig daConfig;
+
+    private final List<Set<GAV>> remoteLookups = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        daConfig = new DaConfig();
+        daConfig.setUrl("http://da.example.com");
+        remoteLookups.clear();
+    }
+
+    @Test
+    void shouldOnlyLookUpMissesRemotely() {
+        DaLookupCache cache = new DaLookupCache(cacheDir, daConfig, false);
+        lookup(cache, "PERSISTENT", Set.of(FIRST));
+
+        DaLookupCache secondRun = new DaLookupCache(cacheDir, daConfig, false);
+        Set<MavenLookupResult> results = lookup(secondRun, "PERSISTENT", Set.of(FIRST, SECOND));
+
+        assertEquals(Set.of(FIRST, SECOND), results.stream().map(MavenLookupResult::getGav).collect(Collectors.toSet()));
+        assertEquals(Set.of(SECOND), remoteLookups.get(1));
+        assertEquals(1, secondRun.getHits());
+        assertEquals(1, secondRun.getMisses());
+        assertEquals(
+                "1.0.0.redhat-00001",
+                results.stream()
+                        .filter(r -> r.getGav().equals(FIRST))
+                        .findFirst()
+                        .orElseThrow()
+                        .getBestMatchVersion());
+    }
+
+    @Test
+    void shouldNotShareResultsBetweenModes() {
+        DaLookupCache cache = new DaLookupCache(cacheDir, daConfig, false);
+        lookup(cache, "PERSISTENT", Set.of(FIRST));
+        lookup(cache, "TEMPORARY", Set.of(FIRST));
+
+        assertEquals(2, remoteLookups.size());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void shouldLookUpEverythingWhenBypassed() {
+        lookup(new DaLookupCache(cacheDir, daConfig, false), "PERSISTENT", Set.of(FIRST));
+
+        DaLookupCache bypassed = new DaLookupCache(cacheDir, daConfig, true);
+        lookup(bypassed, "PERSISTENT", Set.of(FIRST));
+
+        assertEquals(Set.of(FIRST), remoteLookups.get(1));
+        assertEquals(0, bypassed.getHits());
+        assertEquals(1, bypassed.getMisses());
+    }
+
+    @Test
+    void shouldNotCacheModesWithZeroTtl() {
+        daConfig.setLookupCacheTtl(Map.of("TEMPORARY", 0L));
+        DaLookupCache cache = new DaLookupCache(cacheDir, daConfig, false);
+        lookup(cache, "TEMPORARY", Set.of(FIRST));
+        lookup(cache, "TEMPORARY", Set.of(FIRST));
+
+        assertEquals(2, remoteLookups.size());
+        assertEquals(0, cache.getHits());
+    }
+
+    private Set<MavenLookupResult> lookup(DaLookupCache cache, String mode, Set<GAV> gavs) {
+        return cache.lookup(
+                "maven",
+                mode,
+                false,
+                gavs,
+                MavenLookupResult.class,
+                MavenLookupResult::getGav,
+                missing -> {
+                    remoteLookups.add(missing);
+                    return missing.stream()
+                            .map(gav -> new MavenLookupResult(gav, gav.getVersion() + ".redhat-00001"))
+                            .collect(Collectors.toSet());
+                });
+    }
+}
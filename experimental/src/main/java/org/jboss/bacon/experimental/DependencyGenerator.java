@@ -104,7 +104,6 @@ public class DependencyGenerator {
             // Initialize working classes
             DependencyResolver dependencyResolver = new DependencyResolver(config.getDependencyResolutionConfig());
             ProjectNameGenerator projectNameGenerator = new ProjectNameGenerator();
-            ProjectFinder projectFinder = new ProjectFinder(config.getBuildConfigGeneratorConfig());
             BuildConfigGenerator buildConfigGenerator = new BuildConfigGenerator(
                     config.getBuildConfigGeneratorConfig());
             // Analyze dependencies
@@ -114,7 +113,10 @@ public class DependencyGenerator {
             // Generate project's names
             projectNameGenerator.nameProjects(dependencies.getTopLevelProjects());
             // Find pre-existing BC in PNC
-            FoundProjects foundProjects = projectFinder.findProjects(dependencies);
+            FoundProjects foundProjects;
+            try (ProjectFinder projectFinder = new ProjectFinder(config.getBuildConfigGeneratorConfig())) {
+                foundProjects = projectFinder.findProjects(dependencies);
+            }
             // Use correct strategy to generate BC
             List<BuildConfig> buildConfigs = buildConfigGenerator.generateConfigs(dependencies, foundProjects);
             // Generate build-config.yaml
@@ -62,4 +62,9 @@ public class BuildConfigGeneratorConfig {
      * defined by environmentName would not be found because it was deprecated.
      */
     private boolean allowDeprecatedEnvironments = false;
+
+    /**
+     * Number of projects looked up in PNC concurrently, when searching for existing build configs and builds.
+     */
+    private int pncConcurrency = 8;
 }
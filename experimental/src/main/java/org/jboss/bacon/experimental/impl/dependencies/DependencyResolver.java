@@ -18,16 +18,11 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.jboss.bacon.da.DaHelper;
-import org.jboss.bacon.da.rest.endpoint.LookupApi;
 import org.jboss.bacon.experimental.impl.config.DependencyResolutionConfig;
-import org.jboss.da.lookup.model.MavenLookupRequest;
-import org.jboss.da.lookup.model.MavenLookupResult;
 import org.jboss.da.model.rest.GAV;
 import org.jboss.pnc.bacon.common.exception.FatalException;
 import org.jboss.pnc.bacon.config.AutobuildConfig;
 import org.jboss.pnc.bacon.config.Config;
-import org.jboss.pnc.common.version.SuffixedVersion;
-import org.jboss.pnc.common.version.VersionParser;
 
 import io.quarkus.bootstrap.resolver.maven.BootstrapMavenException;
 import io.quarkus.bootstrap.resolver.maven.MavenArtifactResolver;
@@ -47,15 +42,14 @@ import lombok.extern.slf4j.Slf4j;
 public class DependencyResolver {
 
     private final DependencyResolutionConfig config;
-    private final VersionParser versionParser = new VersionParser("redhat");
-    private final LookupApi lookupApi;
+    private final ProductizationFilter productizationFilter;
 
     public DependencyResolver(DependencyResolutionConfig dependencyResolutionConfig) {
         this.config = dependencyResolutionConfig;
         // Remove System.out print that is caused because of listeners defined in BootstramMavenContext
         System.setProperty("quarkus-internal.maven-cmd-line-args", "-ntp");
 
-        lookupApi = DaHelper.createLookupApi();
+        productizationFilter = new ProductizationFilter(config, DaHelper.createLookupApi());
     }
 
     private void setupConfig(ProjectDependencyConfig.Mutable dominoConfig) {
@@ -156,23 +150,28 @@ public class DependencyResolver {
         var depsToCut = processCircularDependencies(releaseCollection.getCircularDependencies());
 
         Map<ReleaseRepo, Project> mapping = new HashMap<>();
-        Set<Project> rootProjects = new HashSet<>();
         for (ReleaseRepo repo : releaseCollection) {
-            Project project = mapToProject(repo, depsToCut);
-            mapping.put(repo, project);
-            if (repo.isRoot() && filterProductized(project)) {
-                rootProjects.add(project);
+            mapping.put(repo, mapToProject(repo, depsToCut));
+        }
+        Set<Project> excluded = productizationFilter.findExcluded(mapping.values());
+        Set<Project> rootProjects = new HashSet<>();
+        for (var entry : mapping.entrySet()) {
+            if (entry.getKey().isRoot() && !excluded.contains(entry.getValue())) {
+                rootProjects.add(entry.getValue());
             }
         }
-        setupDependencies(mapping, depsToCut);
-        setDepth(rootProjects);
+        setupDependencies(mapping, depsToCut, excluded);
+        ProjectGraph.cutLoops(rootProjects).assignDepths();
 
         DependencyResult result = new DependencyResult();
         result.setTopLevelProjects(rootProjects);
         return result;
     }
 
-    private void setupDependencies(Map<ReleaseRepo, Project> mapping, Map<ScmRevision, Set<ScmRevision>> depsToCut) {
+    private void setupDependencies(
+            Map<ReleaseRepo, Project> mapping,
+            Map<ScmRevision, Set<ScmRevision>> depsToCut,
+            Set<Project> excluded) {
         for (var entry : mapping.entrySet()) {
             ReleaseRepo repo = entry.getKey();
             Project project = entry.getValue();
@@ -182,69 +181,11 @@ public class DependencyResolver {
                             .stream()
                             .filter(d -> !toCut.contains(d.getRevision()))
                             .map(mapping::get)
-                            .filter(this::filterProductized)
+                            .filter(d -> !excluded.contains(d))
                             .collect(Collectors.toSet()));
         }
     }
 
-    /**
-     * Returns false if the project should be excluded.
-     */
-    private boolean filterProductized(Project releaseRepo) {
-        boolean excludeAlreadyBuilt = !config.isRebuildNonAutoBuilds();
-        boolean excludeRedhatSuffix = config.isExcludeProductizedArtifacts() || excludeAlreadyBuilt;
-        if (excludeRedhatSuffix) {
-            SuffixedVersion version = versionParser.parse(releaseRepo.getFirstGAV().getVersion());
-            if (version.isSuffixed()) {
-                return false;
-            }
-        }
-        if (excludeAlreadyBuilt) {
-            MavenLookupRequest request = MavenLookupRequest.builder()
-                    .mode(DaHelper.getMode(false, false, null))
-                    .brewPullActive(false)
-                    .artifacts(releaseRepo.getGavs())
-                    .build();
-            Set<MavenLookupResult> mavenLookupResults = lookupApi.lookupMaven(request);
-            Set<String> versionsFound = mavenLookupResults.stream()
-                    .map(MavenLookupResult::getBestMatchVersion)
-                    .collect(Collectors.toSet());
-            boolean everythingBuilt = !versionsFound.contains(null);
-            int minVersionCount = everythingBuilt ? 1 : 2; // if null is present, null + single version = 2 items in set
-            boolean everythingInTheSameVersion = versionsFound.size() == minVersionCount;
-            boolean anythingBuilt = everythingBuilt || versionsFound.size() > 1;
-            if (everythingBuilt && everythingInTheSameVersion) {
-                return false;
-            }
-            if (anythingBuilt) {
-                String message = "";
-                if (!everythingBuilt) {
-                    message = " not all artifacts are built";
-                }
-                if (!everythingInTheSameVersion) {
-                    if (!message.isEmpty()) {
-                        message += " and";
-                    }
-                    message += " not all artifacts are built in the same version";
-                }
-                String debugOff = "";
-                if (log.isDebugEnabled()) {
-                    String artifacts = mavenLookupResults.stream()
-                            .map(r -> r.getGav() + " -> " + r.getBestMatchVersion())
-                            .collect(Collectors.joining("\n"));
-                    log.debug("Artifacts and their found versions:\n" + artifacts);
-                } else {
-                    debugOff = " (Enable debug output with -v to see what built artifact versions were found.)";
-                }
-                log.warn(
-                        "Excluding project " + releaseRepo.getFirstGAV() + " because some artifacts are build, however"
-                                + message + "." + debugOff);
-                return false;
-            }
-        }
-        return true;
-    }
-
     private Map<ScmRevision, Set<ScmRevision>> processCircularDependencies(
             Collection<CircularReleaseDependency> circularDependencies) {
         Map<ScmRevision, Set<ScmRevision>> depsToCut = new HashMap<>();
@@ -283,21 +224,6 @@ public class DependencyResolver {
         return project;
     }
 
-    private void setDepth(Set<Project> rootProjects) {
-        for (Project project : rootProjects) {
-            setDepth(project, 0);
-        }
-    }
-
-    private void setDepth(Project project, int depth) {
-        if (depth > project.getDepth()) {
-            project.setDepth(depth);
-        }
-        for (Project dependency : project.getDependencies()) {
-            setDepth(dependency, depth + 1);
-        }
-    }
-
     private String getSourceCodeURL(ScmRevision releaseId) {
         ScmRepository origin = releaseId.getRepository();
         if (origin.isUrl()) {
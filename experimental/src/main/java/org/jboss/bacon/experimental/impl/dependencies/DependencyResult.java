@@ -10,15 +10,13 @@ public class DependencyResult {
     private Set<Project> topLevelProjects;
 
     public int getCount() {
-        HashSet<Project> allProjects = new HashSet<>();
-        topLevelProjects.forEach(p -> fillAllProject(allProjects, p));
-        return allProjects.size();
+        return new HashSet<>(toGraph().getTopologicalOrder()).size();
     }
 
-    private void fillAllProject(Set<Project> allProjects, Project project) {
-        if (!allProjects.contains(project)) {
-            allProjects.add(project);
-            project.getDependencies().forEach(p -> fillAllProject(allProjects, p));
-        }
+    /**
+     * @return the graph of the projects, the projects are not modified
+     */
+    public ProjectGraph toGraph() {
+        return new ProjectGraph(topLevelProjects);
     }
 }
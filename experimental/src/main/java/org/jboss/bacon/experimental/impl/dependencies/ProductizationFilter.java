@@ -0,0 +1,150 @@
+package org.jboss.bacon.experimental.impl.dependencies;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.jboss.bacon.da.ChunkedLookup;
+import org.jboss.bacon.da.DaHelper;
+import org.jboss.bacon.da.rest.endpoint.LookupApi;
+import org.jboss.bacon.experimental.impl.config.DependencyResolutionConfig;
+import org.jboss.da.lookup.model.MavenLookupRequest;
+import org.jboss.da.lookup.model.MavenLookupResult;
+import org.jboss.da.model.rest.GAV;
+import org.jboss.pnc.bacon.common.exception.FatalException;
+import org.jboss.pnc.common.version.SuffixedVersion;
+import org.jboss.pnc.common.version.VersionParser;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides which projects are excluded from the build because they are already productized.
+ * <p>
+ * The decisions for all the projects are made at once: the artifacts of every project are looked up in DA in a few large
+ * chunks, instead of one request per project, and the decision of each project is remembered, so that wiring the
+ * dependency graph only reads from memory.
+ */
+@Slf4j
+class ProductizationFilter {
+
+    static final int CHUNK_SIZE = 500;
+    private static final int CHUNK_CONCURRENCY = 4;
+    private static final int CHUNK_ATTEMPTS = 3;
+    private static final long CHUNK_RETRY_DELAY_MILLIS = 1000;
+
+    private final DependencyResolutionConfig config;
+    private final LookupApi lookupApi;
+    private final VersionParser versionParser = new VersionParser("redhat");
+
+    ProductizationFilter(DependencyResolutionConfig config, LookupApi lookupApi) {
+        this.config = config;
+        this.lookupApi = lookupApi;
+    }
+
+    /**
+     * @param projects all the projects of the dependency graph
+     * @return the projects that should be excluded, compared by identity
+     */
+    Set<Project> findExcluded(Collection<Project> projects) {
+        boolean excludeAlreadyBuilt = !config.isRebuildNonAutoBuilds();
+        boolean excludeRedhatSuffix = config.isExcludeProductizedArtifacts() || excludeAlreadyBuilt;
+
+        Set<Project> excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Project> toLookUp = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Project project : projects) {
+            if (excludeRedhatSuffix && isSuffixed(project)) {
+                excluded.add(project);
+            } else if (excludeAlreadyBuilt) {
+                toLookUp.add(project);
+            }
+        }
+        if (toLookUp.isEmpty()) {
+            return excluded;
+        }
+
+        Map<GAV, String> bestMatchVersions = lookupBestMatchVersions(toLookUp);
+        for (Project project : toLookUp) {
+            if (isAlreadyBuilt(project, bestMatchVersions)) {
+                excluded.add(project);
+            }
+        }
+        return excluded;
+    }
+
+    private boolean isSuffixed(Project project) {
+        SuffixedVersion version = versionParser.parse(project.getFirstGAV().getVersion());
+        return version.isSuffixed();
+    }
+
+    private Map<GAV, String> lookupBestMatchVersions(Collection<Project> projects) {
+        Set<GAV> gavs = new LinkedHashSet<>();
+        for (Project project : projects) {
+            gavs.addAll(project.getGavs());
+        }
+        log.info("Looking up {} artifacts of {} projects in DA", gavs.size(), projects.size());
+
+        String mode = DaHelper.getMode(false, false, null);
+        Map<GAV, String> bestMatchVersions = new HashMap<>();
+        ChunkedLookup<GAV, MavenLookupResult> chunkedLookup = new ChunkedLookup<>(
+                CHUNK_SIZE,
+                CHUNK_CONCURRENCY,
+                CHUNK_ATTEMPTS,
+                CHUNK_RETRY_DELAY_MILLIS,
+                chunk -> lookupApi.lookupMaven(
+                        MavenLookupRequest.builder().mode(mode).brewPullActive(false).artifacts(chunk).build()),
+                results -> results.forEach(r -> bestMatchVersions.put(r.getGav(), r.getBestMatchVersion())));
+        int failedChunks = chunkedLookup.run(gavs.iterator());
+        if (failedChunks > 0) {
+            throw new FatalException("Failed to look up {} chunks of artifacts in DA", failedChunks);
+        }
+        return bestMatchVersions;
+    }
+
+    private boolean isAlreadyBuilt(Project project, Map<GAV, String> bestMatchVersions) {
+        // artifacts missing in the results weren't found, the same as a null best match version
+        Set<String> versionsFound = project.getGavs()
+                .stream()
+                .map(bestMatchVersions::get)
+                .collect(Collectors.toCollection(HashSet::new));
+        boolean everythingBuilt = !versionsFound.contains(null);
+        int minVersionCount = everythingBuilt ? 1 : 2; // if null is present, null + single version = 2 items in set
+        boolean everythingInTheSameVersion = versionsFound.size() == minVersionCount;
+        boolean anythingBuilt = everythingBuilt || versionsFound.size() > 1;
+        if (everythingBuilt && everythingInTheSameVersion) {
+            return true;
+        }
+        if (anythingBuilt) {
+            String message = "";
+            if (!everythingBuilt) {
+                message = " not all artifacts are built";
+            }
+            if (!everythingInTheSameVersion) {
+                if (!message.isEmpty()) {
+                    message += " and";
+                }
+                message += " not all artifacts are built in the same version";
+            }
+            String debugOff = "";
+            if (log.isDebugEnabled()) {
+                String artifacts = project.getGavs()
+                        .stream()
+                        .map(gav -> gav + " -> " + bestMatchVersions.get(gav))
+                        .collect(Collectors.joining("\n"));
+                log.debug("Artifacts and their found versions:\n" + artifacts);
+            } else {
+                debugOff = " (Enable debug output with -v to see what built artifact versions were found.)";
+            }
+            log.warn(
+                    "Excluding project " + project.getFirstGAV() + " because some artifacts are build, however"
+                            + message + "." + debugOff);
+            return true;
+        }
+        return false;
+    }
+}
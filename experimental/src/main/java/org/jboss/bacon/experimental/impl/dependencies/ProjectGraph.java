@@ -0,0 +1,165 @@
+package org.jboss.bacon.experimental.impl.dependencies;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dependency graph of the projects reachable from the top level projects. Projects are compared by identity.
+ * <p>
+ * The graph is traversed iteratively, so deep dependency chains don't overflow the stack, and every project and
+ * dependency is visited once. The traversal doesn't modify the projects: a dependency that closes a loop is only
+ * left out of the topological order. Loops are removed once with {@link #cutLoops(Collection)}.
+ */
+@Slf4j
+public class ProjectGraph {
+
+    private final Set<Project> topLevelProjects = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Every dependency of a project is before the project.
+     */
+    private final List<Project> topologicalOrder = new ArrayList<>();
+
+    /**
+     * Dependencies that close a loop, in the order they were found.
+     */
+    private final List<Loop> loops = new ArrayList<>();
+
+    public ProjectGraph(Collection<Project> topLevelProjects) {
+        this.topLevelProjects.addAll(topLevelProjects);
+        traverse();
+    }
+
+    /**
+     * Cuts the dependencies that close a loop, the same way as the circular dependencies reported by domino: the last
+     * dependency of the loop is removed and the dependent project is marked with
+     * {@link Project#setCutDependency(boolean)}.
+     *
+     * @return the graph of the projects, without loops
+     */
+    public static ProjectGraph cutLoops(Collection<Project> topLevelProjects) {
+        ProjectGraph graph = new ProjectGraph(topLevelProjects);
+        Map<Project, Set<Project>> depsToCut = new IdentityHashMap<>();
+        for (Loop loop : graph.loops) {
+            log.error(
+                    "Detected loop: " + loop.description + ". Cutting the dependency of "
+                            + loop.project.getFirstGAV() + " on " + loop.dependency.getFirstGAV()
+                            + ", this will lead to broken build config.");
+            depsToCut.computeIfAbsent(loop.project, k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                    .add(loop.dependency);
+        }
+        depsToCut.forEach(ProjectGraph::cutDependencies);
+        // the cut dependencies were left out of the topological order, it is still valid
+        return graph;
+    }
+
+    /**
+     * @return all the projects of the graph, ordered so that every project is after all its dependencies
+     */
+    public List<Project> getTopologicalOrder() {
+        return Collections.unmodifiableList(topologicalOrder);
+    }
+
+    /**
+     * Sets the depth of every project to the length of the longest path from a top level project to it.
+     */
+    public void assignDepths() {
+        for (Project project : topologicalOrder) {
+            project.setDepth(topLevelProjects.contains(project) ? 0 : -1);
+        }
+        // dependents first, so the depth of a project is final before it's propagated to its dependencies
+        for (int i = topologicalOrder.size() - 1; i >= 0; i--) {
+            Project project = topologicalOrder.get(i);
+            for (Project dependency : project.getDependencies()) {
+                if (project.getDepth() + 1 > dependency.getDepth()) {
+                    dependency.setDepth(project.getDepth() + 1);
+                }
+            }
+        }
+    }
+
+    private void traverse() {
+        Map<Project, Boolean> finished = new IdentityHashMap<>();
+        Deque<Frame> stack = new ArrayDeque<>();
+        for (Project topLevelProject : topLevelProjects) {
+            if (finished.containsKey(topLevelProject)) {
+                continue;
+            }
+            finished.put(topLevelProject, false);
+            stack.push(new Frame(topLevelProject));
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (!frame.dependencies.hasNext()) {
+                    stack.pop();
+                    finished.put(frame.project, true);
+                    topologicalOrder.add(frame.project);
+                    continue;
+                }
+                Project dependency = frame.dependencies.next();
+                Boolean dependencyFinished = finished.get(dependency);
+                if (dependencyFinished == null) {
+                    finished.put(dependency, false);
+                    stack.push(new Frame(dependency));
+                } else if (!dependencyFinished) {
+                    loops.add(new Loop(frame.project, dependency, loop(stack, dependency)));
+                }
+            }
+        }
+    }
+
+    private static String loop(Deque<Frame> stack, Project dependency) {
+        List<Object> loop = new ArrayList<>();
+        // the stack iterates from the top, the loop is listed from its start
+        for (Frame frame : stack) {
+            loop.add(0, frame.project.getFirstGAV());
+            if (frame.project == dependency) {
+                break;
+            }
+        }
+        loop.add(dependency.getFirstGAV());
+        return loop.toString();
+    }
+
+    private static void cutDependencies(Project project, Set<Project> toCut) {
+        // the dependencies may be immutable, they are replaced rather than modified
+        project.setDependencies(
+                project.getDependencies()
+                        .stream()
+                        .filter(d -> !toCut.contains(d))
+                        .collect(Collectors.toSet()));
+        project.setCutDependency(true);
+    }
+
+    private static class Loop {
+        private final Project project;
+        private final Project dependency;
+        private final String description;
+
+        private Loop(Project project, Project dependency, String description) {
+            this.project = project;
+            this.dependency = dependency;
+            this.description = description;
+        }
+    }
+
+    private static class Frame {
+        private final Project project;
+        private final Iterator<Project> dependencies;
+
+        private Frame(Project project) {
+            this.project = project;
+            this.dependencies = project.getDependencies().iterator();
+        }
+    }
+}
@@ -41,8 +41,11 @@ public class BuildConfigGenerator {
 
     public List<BuildConfig> generateConfigs(DependencyResult dependencies, FoundProjects foundProjects) {
         Map<Project, BuildConfig> buildConfigMap = new TreeMap<>(new ProjectDepthComparator());
-        for (Project project : dependencies.getTopLevelProjects()) {
-            generateConfig(buildConfigMap, project, foundProjects);
+        // dependencies first, so their build configs are generated before the build configs depending on them
+        for (Project project : dependencies.toGraph().getTopologicalOrder()) {
+            if (!buildConfigMap.containsKey(project)) {
+                buildConfigMap.put(project, generateConfig(buildConfigMap, project, foundProjects));
+            }
         }
         if (config.isFailGeneratedBuildScript()) {
             log.info(
@@ -63,14 +66,9 @@ public class BuildConfigGenerator {
             Map<Project, BuildConfig> buildConfigMap,
             Project project,
             FoundProjects foundProjects) {
-        if (buildConfigMap.containsKey(project)) {
-            return buildConfigMap.get(project);
-        }
         BuildConfig buildConfig = processProject(project, getFoundForProject(project, foundProjects));
-        buildConfigMap.put(project, buildConfig);
         for (Project dep : project.getDependencies()) {
-            BuildConfig depBuildConfig = generateConfig(buildConfigMap, dep, foundProjects);
-            String name = depBuildConfig.getName();
+            String name = buildConfigMap.get(dep).getName();
             buildConfig.getDependencies().add(name);
         }
         Collections.sort(buildConfig.getDependencies());
@@ -1,13 +1,28 @@
 package org.jboss.bacon.experimental.impl.projectfinder;
 
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.batches;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.getOrCompute;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.quote;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.unwrap;
+
+import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
@@ -22,6 +37,7 @@ import org.jboss.da.lookup.model.VersionDistanceRule;
 import org.jboss.da.lookup.model.VersionFilter;
 import org.jboss.da.model.rest.GA;
 import org.jboss.da.model.rest.GAV;
+import org.jboss.pnc.bacon.common.ClientPool;
 import org.jboss.pnc.bacon.common.exception.FatalException;
 import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.client.ArtifactClient;
@@ -38,61 +54,85 @@ import org.jboss.pnc.dto.BuildConfigurationRevisionRef;
 import org.jboss.pnc.restclient.util.ArtifactUtil;
 
 import lombok.AllArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Finds the build configs and builds in PNC that can be reused for the projects.
+ * <p>
+ * The projects are looked up concurrently, with a bounded number of projects in flight. Every project in flight uses
+ * its own PNC clients, because the clients are not thread safe. The managed build configs of all the projects are
+ * searched by name in a few batched queries and all the candidate versions of a project are searched in a single
+ * artifact query. Build configs and their revisions are cached for the run, so a build config shared by several
+ * projects is fetched only once, even when the projects are looked up at the same time.
+ */
 @Slf4j
-public class ProjectFinder {
+public class ProjectFinder implements Closeable {
 
     private final LookupApi lookupApi;
-    private final ArtifactClient artifactClient;
-    private final BuildClient buildClient;
-    private final BuildConfigurationClient buildConfigClient;
     private final VersionParser versionParser = new VersionParser("redhat", "temporary-redhat");
     private final BuildConfigGeneratorConfig config;
 
+    private final ClientPool<PncClients> pncClients;
+
+    /**
+     * Build configs and revisions, by id, fetched during this run
+     */
+    private final Map<String, CompletableFuture<BuildConfiguration>> buildConfigs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<BuildConfigurationRevision>> revisions = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Integer>> latestRevisions = new ConcurrentHashMap<>();
+
     public ProjectFinder(BuildConfigGeneratorConfig config) {
-        this.config = config;
-        lookupApi = DaHelper.createLookupApi();
-        artifactClient = new ClientCreator<>(ArtifactClient::new).newClient();
-        buildClient = new ClientCreator<>(BuildClient::new).newClient();
-        buildConfigClient = new ClientCreator<>(BuildConfigurationClient::new).newClient();
+        this(
+                config,
+                DaHelper.createLookupApi(),
+                () -> new PncClients(
+                        new ClientCreator<>(ArtifactClient::new).newClient(),
+                        new ClientCreator<>(BuildClient::new).newClient(),
+                        new ClientCreator<>(BuildConfigurationClient::new).newClient()));
     }
 
-    ProjectFinder(
-            BuildConfigGeneratorConfig config,
-            LookupApi lookupApi,
-            ArtifactClient artifactClient,
-            BuildClient buildClient,
-            BuildConfigurationClient buildConfigClient) {
+    ProjectFinder(BuildConfigGeneratorConfig config, LookupApi lookupApi, Supplier<PncClients> clientsFactory) {
         this.config = config;
         this.lookupApi = lookupApi;
-        this.artifactClient = artifactClient;
-        this.buildClient = buildClient;
-        this.buildConfigClient = buildConfigClient;
+        this.pncClients = new ClientPool<>(clientsFactory, PncClients::close);
     }
 
     public FoundProjects findProjects(DependencyResult dependencies) {
-        Set<Project> projects = new HashSet<>();
-        traverseTree(projects, dependencies.getTopLevelProjects());
+        Set<Project> projects = new HashSet<>(dependencies.toGraph().getTopologicalOrder());
 
         Set<GAV> allGAVs = projects.stream().flatMap(p -> p.getGavs().stream()).collect(Collectors.toSet());
 
         Map<GAV, List<String>> availableVersions = findAvailableVersions(allGAVs);
+        Map<String, BuildConfiguration> managedBuildConfigs = pncClients.withClient(
+                clients -> findBuildConfigs(clients, projects.stream().map(Project::getName)));
 
         FoundProjects foundProjects = new FoundProjects();
-        for (Project project : projects) {
-            FoundProject foundProject = findManagedProject(project);
-            if (foundProject == null) {
-                foundProject = findPreviouslyBuiltProject(project, availableVersions);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getPncConcurrency()));
+        try {
+            List<CompletableFuture<FoundProject>> futures = new ArrayList<>();
+            for (Project project : projects) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    FoundProject foundProject = findManagedProject(project, managedBuildConfigs);
+                    if (foundProject == null) {
+                        foundProject = pncClients.withClient(
+                                clients -> findPreviouslyBuiltProject(clients, project, availableVersions));
+                    }
+                    return foundProject;
+                }, executor));
             }
-            foundProjects.getFoundProjects().add(foundProject);
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            futures.forEach(future -> foundProjects.getFoundProjects().add(future.join()));
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        } finally {
+            executor.shutdownNow();
         }
-
         return foundProjects;
     }
 
-    private FoundProject findManagedProject(Project project) {
-        BuildConfiguration buildConfig = findBuildConfig(project.getName());
+    private FoundProject findManagedProject(Project project, Map<String, BuildConfiguration> managedBuildConfigs) {
+        BuildConfiguration buildConfig = managedBuildConfigs.get(project.getName());
         if (buildConfig == null) {
             return null;
         }
@@ -107,12 +147,15 @@ public class ProjectFinder {
         return found;
     }
 
-    private FoundProject findPreviouslyBuiltProject(Project project, Map<GAV, List<String>> availableVersions) {
+    private FoundProject findPreviouslyBuiltProject(
+            PncClients clients,
+            Project project,
+            Map<GAV, List<String>> availableVersions) {
         FoundProject found = new FoundProject();
         found.setGavs(project.getGavs());
         Set<GAV> gavs = project.getGavs();
         GAV gav = project.getFirstGAV();
-        BuildVersion buildVersion = findBuild(gav, availableVersions.get(gav));
+        BuildVersion buildVersion = findBuild(clients, gav, availableVersions.getOrDefault(gav, List.of()));
 
         if (buildVersion == null) {
             log.debug("Project " + gav + " was not built in PNC before.");
@@ -121,12 +164,14 @@ public class ProjectFinder {
         }
 
         found.setFound(true);
-        found.setComplete(validateBuild(gavs, buildVersion.build));
+        found.setComplete(validateBuild(clients, gavs, buildVersion.build));
         found.setExactMatch(isExactVersion(gav.getVersion(), buildVersion.version));
-        BuildConfigurationRevision buildConfigurationRevision = getBuildConfigurationRevision(buildVersion.build);
+        BuildConfigurationRevision buildConfigurationRevision = getBuildConfigurationRevision(
+                clients,
+                buildVersion.build);
         found.setBuildConfigRevision(buildConfigurationRevision);
-        found.setBuildConfig(getBuildConfiguration(buildVersion.build));
-        int latestRev = getLatestBuildConfigurationRevision(buildConfigurationRevision.getId()).getRev();
+        found.setBuildConfig(getBuildConfiguration(clients, buildVersion.build));
+        int latestRev = getLatestBuildConfigurationRevision(clients, buildConfigurationRevision.getId());
         found.setLatestRevision(buildConfigurationRevision.getRev() == latestRev);
 
         if (log.isDebugEnabled()) {
@@ -136,18 +181,25 @@ public class ProjectFinder {
         return found;
     }
 
-    private BuildConfiguration findBuildConfig(String name) {
-        try {
-            RemoteCollection<BuildConfiguration> all = buildConfigClient
-                    .getAll(Optional.empty(), Optional.of("name==" + name));
-
-            return StreamSupport.stream(all.spliterator(), false)
-                    .filter(bc -> bc.getName().equals(name))
-                    .findAny()
-                    .orElse(null);
-        } catch (RemoteResourceException ex) {
-            throw new FatalException("Failure when getting build configuration", ex);
+    /**
+     * @return the build configs with the names, by name
+     */
+    private Map<String, BuildConfiguration> findBuildConfigs(PncClients clients, Stream<String> names) {
+        Map<String, BuildConfiguration> result = new HashMap<>();
+        for (List<String> batch : batches(names)) {
+            try {
+                RemoteCollection<BuildConfiguration> all = clients.getBuildConfigClient()
+                        .getAll(Optional.empty(), Optional.of("name=in=(" + quote(batch) + ")"));
+
+                Set<String> batchNames = new HashSet<>(batch);
+                StreamSupport.stream(all.spliterator(), false)
+                        .filter(bc -> batchNames.contains(bc.getName()))
+                        .forEach(bc -> result.put(bc.getName(), bc));
+            } catch (RemoteResourceException ex) {
+                throw new FatalException("Failure when getting build configuration", ex);
+            }
         }
+        return result;
     }
 
     private boolean isExactVersion(String query, String found) {
@@ -156,10 +208,10 @@ public class ProjectFinder {
         return suffixlessQuery.equals(suffixlessFound);
     }
 
-    private boolean validateBuild(Set<GAV> gavs, Build build) {
+    private boolean validateBuild(PncClients clients, Set<GAV> gavs, Build build) {
         try {
             Set<GA> missing = gavs.stream().map(GAV::getGA).collect(Collectors.toCollection(HashSet::new));
-            RemoteCollection<Artifact> builtArtifacts = buildClient.getBuiltArtifacts(build.getId());
+            RemoteCollection<Artifact> builtArtifacts = clients.getBuildClient().getBuiltArtifacts(build.getId());
             for (Artifact builtArtifact : builtArtifacts) {
                 SimpleArtifactRef coords = ArtifactUtil.parseMavenCoordinates(builtArtifact);
                 if (coords != null) {
@@ -201,14 +253,25 @@ public class ProjectFinder {
         return availableVersions;
     }
 
-    private BuildVersion findBuild(GAV gav, List<String> versions) {
+    /**
+     * Finds the build of the first of the versions that was built. The versions are searched in batches, in order.
+     */
+    private BuildVersion findBuild(PncClients clients, GAV gav, List<String> versions) {
         try {
-            for (String version : versions) {
-                GAV toSearch = new GAV(gav.getGA(), version);
-                Build build = searchBuild(toSearch);
-                if (build != null) {
-                    log.debug("Found build " + build.getId() + " for GAV " + toSearch);
-                    return new BuildVersion(build, toSearch.getVersion());
+            for (List<String> batch : batches(versions.stream())) {
+                Map<String, List<Build>> builds = searchBuilds(clients, gav.getGA(), batch);
+                for (String version : batch) {
+                    String identifier = pomIdentifier(gav.getGA(), version);
+                    List<Build> versionBuilds = builds.getOrDefault(identifier, List.of());
+                    if (versionBuilds.size() > 1) {
+                        throw new IllegalStateException(
+                                "There should exist only one artifact with identifier " + identifier);
+                    }
+                    if (!versionBuilds.isEmpty()) {
+                        Build build = versionBuilds.get(0);
+                        log.debug("Found build " + build.getId() + " for GAV " + new GAV(gav.getGA(), version));
+                        return new BuildVersion(build, version);
+                    }
                 }
             }
             return null;
@@ -217,57 +280,82 @@ public class ProjectFinder {
         }
     }
 
-    private BuildConfiguration getBuildConfiguration(Build build) {
-        try {
-            BuildConfigurationRevisionRef buildConfigRevision = build.getBuildConfigRevision();
-            return buildConfigClient.getSpecific(buildConfigRevision.getId());
-        } catch (RemoteResourceException e) {
-            throw new RuntimeException(e);
-        }
+    private BuildConfiguration getBuildConfiguration(PncClients clients, Build build) {
+        String id = build.getBuildConfigRevision().getId();
+        return getOrCompute(buildConfigs, id, () -> {
+            try {
+                return clients.getBuildConfigClient().getSpecific(id);
+            } catch (RemoteResourceException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
-    private BuildConfigurationRevision getLatestBuildConfigurationRevision(String buildConfigId) {
-        try {
-            return buildConfigClient.getRevisions(buildConfigId)
-                    .getAll()
-                    .stream()
-                    .max((new BuildConfigRevisionAgeComparator()))
-                    .get();
-        } catch (RemoteResourceException e) {
-            throw new RuntimeException(e);
-        }
+    private int getLatestBuildConfigurationRevision(PncClients clients, String buildConfigId) {
+        return getOrCompute(latestRevisions, buildConfigId, () -> {
+            try {
+                return clients.getBuildConfigClient()
+                        .getRevisions(buildConfigId)
+                        .getAll()
+                        .stream()
+                        .max((new BuildConfigRevisionAgeComparator()))
+                        .get()
+                        .getRev();
+            } catch (RemoteResourceException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
-    private BuildConfigurationRevision getBuildConfigurationRevision(Build build) {
-        try {
-            BuildConfigurationRevisionRef buildConfigRevision = build.getBuildConfigRevision();
-            return buildConfigClient.getRevision(buildConfigRevision.getId(), buildConfigRevision.getRev());
-        } catch (RemoteResourceException e) {
-            throw new RuntimeException(e);
-        }
+    private BuildConfigurationRevision getBuildConfigurationRevision(PncClients clients, Build build) {
+        BuildConfigurationRevisionRef buildConfigRevision = build.getBuildConfigRevision();
+        String key = buildConfigRevision.getId() + ":" + buildConfigRevision.getRev();
+        return getOrCompute(revisions, key, () -> {
+            try {
+                return clients.getBuildConfigClient()
+                        .getRevision(buildConfigRevision.getId(), buildConfigRevision.getRev());
+            } catch (RemoteResourceException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
-    private Build searchBuild(GAV gav) throws RemoteResourceException {
-        String identifier = gav.getGroupId() + ":" + gav.getArtifactId() + ":pom:" + gav.getVersion();
-        String identifierQuery = "identifier==" + identifier;
-        String artifactQuery = identifierQuery + ";build=isnull=false";
-        RemoteCollection<Artifact> artifacts = artifactClient
+    /**
+     * @return the builds of the pom artifacts of the versions, by artifact identifier. Several artifacts with the same
+     *         identifier are only an error for the version that is used, so they are checked by the caller.
+     */
+    private Map<String, List<Build>> searchBuilds(PncClients clients, GA ga, List<String> versions)
+            throws RemoteResourceException {
+        List<String> identifiers = versions.stream().map(v -> pomIdentifier(ga, v)).collect(Collectors.toList());
+        String artifactQuery = "identifier=in=(" + quote(identifiers) + ");build=isnull=false";
+        RemoteCollection<Artifact> artifacts = clients.getArtifactClient()
                 .getAll(null, null, null, Optional.empty(), Optional.of(artifactQuery));
-        if (artifacts.size() == 0) {
-            return null;
-        } else if (artifacts.size() > 1) {
-            throw new IllegalStateException("There should exist only one artifact with identifier " + identifier);
+        Map<String, List<Build>> builds = new HashMap<>();
+        for (Artifact artifact : artifacts) {
+            builds.computeIfAbsent(artifact.getIdentifier(), k -> new ArrayList<>()).add(artifact.getBuild());
         }
-        Artifact singleArtifact = artifacts.iterator().next();
-        return singleArtifact.getBuild();
+        return builds;
     }
 
-    private void traverseTree(Set<Project> projects, Set<Project> topLevelProjects) {
-        for (Project p : topLevelProjects) {
-            if (!projects.contains(p)) {
-                projects.add(p);
-                traverseTree(projects, p.getDependencies());
-            }
+    private static String pomIdentifier(GA ga, String version) {
+        return ga.getGroupId() + ":" + ga.getArtifactId() + ":pom:" + version;
+    }
+
+    @Override
+    public void close() {
+        pncClients.close();
+    }
+
+    @Value
+    static class PncClients {
+        ArtifactClient artifactClient;
+        BuildClient buildClient;
+        BuildConfigurationClient buildConfigClient;
+
+        private void close() {
+            artifactClient.close();
+            buildClient.close();
+            buildConfigClient.close();
         }
     }
 
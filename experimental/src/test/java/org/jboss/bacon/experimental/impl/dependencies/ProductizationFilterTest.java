@@ -0,0 +1,119 @@
+package org.jboss.bacon.experimental.impl.dependencies;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.jboss.bacon.da.DaHelper;
+import org.jboss.bacon.da.rest.endpoint.LookupApi;
+import org.jboss.bacon.experimental.impl.config.DependencyResolutionConfig;
+import org.jboss.da.lookup.model.MavenLatestRequest;
+import org.jboss.da.lookup.model.MavenLatestResult;
+import org.jboss.da.lookup.model.MavenLookupRequest;
+import org.jboss.da.lookup.model.MavenLookupResult;
+import org.jboss.da.lookup.model.MavenVersionsRequest;
+import org.jboss.da.lookup.model.MavenVersionsResult;
+import org.jboss.da.lookup.model.NPMLookupRequest;
+import org.jboss.da.lookup.model.NPMLookupResult;
+import org.jboss.da.lookup.model.NPMVersionsRequest;
+import org.jboss.da.lookup.model.NPMVersionsResult;
+import org.jboss.da.model.rest.GAV;
+import org.junit.jupiter.api.Test;
+
+class ProductizationFilterTest {
+
+    private final StubLookupApi lookupApi = new StubLookupApi();
+
+    private final DependencyResolutionConfig config = new DependencyResolutionConfig();
+
+    @Test
+    void shouldLookUpAllProjectsInOneRequest() {
+        lookupApi.built.put(new GAV("org.foo", "built", "1.0"), "1.0.0.redhat-00001");
+        lookupApi.built.put(new GAV("org.foo", "built-api", "1.0"), "1.0.0.redhat-00001");
+        lookupApi.built.put(new GAV("org.foo", "partial", "1.0"), "1.0.0.redhat-00001");
+        Project built = project("org.foo:built:1.0", "org.foo:built-api:1.0");
+        Project partial = project("org.foo:partial:1.0", "org.foo:partial-api:1.0");
+        Project notBuilt = project("org.foo:new:1.0");
+        Project suffixed = project("org.foo:suffixed:1.0.0.redhat-00002");
+
+        Set<Project> excluded = new ProductizationFilter(config, lookupApi)
+                .findExcluded(List.of(built, partial, notBuilt, suffixed));
+
+        assertThat(excluded).containsExactlyInAnyOrder(built, partial, suffixed);
+        assertThat(lookupApi.requests).hasSize(1);
+        assertThat(lookupApi.requests.get(0)).hasSize(5);
+    }
+
+    @Test
+    void shouldLookUpInChunks() {
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < ProductizationFilter.CHUNK_SIZE + 1; i++) {
+            projects.add(project("org.foo:bar-" + i + ":1.0"));
+        }
+
+        Set<Project> excluded = new ProductizationFilter(config, lookupApi).findExcluded(projects);
+
+        assertThat(excluded).isEmpty();
+        assertThat(lookupApi.requests).hasSize(2);
+    }
+
+    @Test
+    void shouldNotLookUpWhenRebuildingNonAutoBuilds() {
+        config.setRebuildNonAutoBuilds(true);
+        Project project = project("org.foo:bar:1.0");
+        Project suffixed = project("org.foo:suffixed:1.0.0.redhat-00002");
+
+        Set<Project> excluded = new ProductizationFilter(config, lookupApi).findExcluded(List.of(project, suffixed));
+
+        assertThat(excluded).isEmpty();
+        assertThat(lookupApi.requests).isEmpty();
+    }
+
+    private static Project project(String... gavs) {
+        Project project = new Project();
+        project.setGavs(Set.of(gavs).stream().map(DaHelper::toGAV).collect(Collectors.toSet()));
+        return project;
+    }
+
+    private static class StubLookupApi implements LookupApi {
+        private final Map<GAV, String> built = new HashMap<>();
+        private final List<Set<GAV>> requests = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Set<MavenLookupResult> lookupMaven(MavenLookupRequest request) {
+            requests.add(request.getArtifacts());
+            Set<MavenLookupResult> results = new HashSet<>();
+            for (GAV gav : request.getArtifacts()) {
+                results.add(new MavenLookupResult(gav, built.get(gav)));
+            }
+            return results;
+        }
+
+        @Override
+        public Set<MavenVersionsResult> versionsMaven(MavenVersionsRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<MavenLatestResult> lookupMaven(MavenLatestRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<NPMLookupResult> lookupNPM(NPMLookupRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<NPMVersionsResult> versionsNPM(NPMVersionsRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
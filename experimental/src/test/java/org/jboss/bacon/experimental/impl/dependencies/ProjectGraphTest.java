@@ -0,0 +1,107 @@
+package org.jboss.bacon.experimental.impl.dependencies;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.da.model.rest.GAV;
+import org.junit.jupiter.api.Test;
+
+class ProjectGraphTest {
+
+    @Test
+    void shouldAssignLongestPathDepth() {
+        Project common = project("common");
+        Project api = project("api", common);
+        Project impl = project("impl", api, common);
+        Project app = project("app", impl, api);
+        Project tool = project("tool", common);
+
+        new ProjectGraph(Set.of(app, tool)).assignDepths();
+
+        assertThat(app.getDepth()).isEqualTo(0);
+        assertThat(tool.getDepth()).isEqualTo(0);
+        assertThat(impl.getDepth()).isEqualTo(1);
+        assertThat(api.getDepth()).isEqualTo(2);
+        assertThat(common.getDepth()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldOrderDependenciesFirst() {
+        Project common = project("common");
+        Project api = project("api", common);
+        Project impl = project("impl", api, common);
+        Project app = project("app", impl, api);
+
+        List<Project> order = new ProjectGraph(Set.of(app, api)).getTopologicalOrder();
+
+        assertThat(order).containsExactly(common, api, impl, app);
+    }
+
+    @Test
+    void shouldHandleHeavilySharedAndDeepGraphs() {
+        // every project of a layer depends on both projects of the next layer, 2^200 paths to the bottom
+        Project bottom = project("left-bottom");
+        Project left = bottom;
+        Project right = project("right-bottom");
+        for (int i = 0; i < 200; i++) {
+            Project newLeft = project("left-" + i, left, right);
+            right = project("right-" + i, left, right);
+            left = newLeft;
+        }
+        Project chain = left;
+        for (int i = 0; i < 100_000; i++) {
+            chain = project("chain-" + i, chain);
+        }
+
+        ProjectGraph graph = new ProjectGraph(Set.of(chain, right));
+        graph.assignDepths();
+
+        assertThat(graph.getTopologicalOrder()).hasSize(100_000 + 402);
+        assertThat(right.getDepth()).isEqualTo(0);
+        assertThat(left.getDepth()).isEqualTo(100_000);
+        assertThat(bottom.getDepth()).isEqualTo(100_200);
+    }
+
+    @Test
+    void shouldCutLoops() {
+        Project a = project("a");
+        Project b = project("b", a);
+        Project c = project("c", b);
+        a.setDependencies(Set.of(c));
+        Project top = project("top", a);
+
+        ProjectGraph graph = ProjectGraph.cutLoops(Set.of(top));
+        graph.assignDepths();
+
+        // top -> a -> c -> b -> a, the last dependency closes the loop
+        assertThat(b.getDependencies()).isEmpty();
+        assertThat(b.isCutDependency()).isTrue();
+        assertThat(a.isCutDependency()).isFalse();
+        assertThat(graph.getTopologicalOrder()).containsExactly(b, c, a, top);
+        assertThat(b.getDepth()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotModifyProjectsWhenTraversing() {
+        Project a = project("a");
+        Project b = project("b", a);
+        a.setDependencies(Set.of(b));
+        Project top = project("top", a);
+
+        List<Project> order = new ProjectGraph(Set.of(top)).getTopologicalOrder();
+
+        assertThat(order).containsExactly(b, a, top);
+        assertThat(b.getDependencies()).containsExactly(a);
+        assertThat(b.isCutDependency()).isFalse();
+    }
+
+    private static Project project(String artifactId, Project... dependencies) {
+        Project project = new Project();
+        project.setGavs(Set.of(new GAV("org.foo", artifactId, "1.0")));
+        project.setDependencies(new HashSet<>(List.of(dependencies)));
+        return project;
+    }
+}
@@ -1,5 +1,7 @@
 package org.jboss.bacon.experimental.impl.projectfinder;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -77,6 +79,18 @@ public class ProjectFinderTest {
         assertThat(revision.getId()).isEqualTo("300");
     }
 
+    @Test
+    public void shouldBatchQueries() throws RemoteResourceException {
+        DependencyResult dependencyResult = generateDependencyResult();
+
+        FoundProjects projects = finder.findProjects(dependencyResult);
+
+        assertThat(projects.getFoundProjects()).hasSize(5).allMatch(FoundProject::isFound);
+        // one query for the names of all the projects, one query for all the candidate versions of each project
+        wireMock.verify(1, getRequestedFor(urlPathEqualTo("/pnc-rest/v2/build-configs")));
+        wireMock.verify(5, getRequestedFor(urlPathEqualTo("/pnc-rest/v2/artifacts")));
+    }
+
     @Test
     public void testExactMatch() throws RemoteResourceException {
         GAV gav = new GAV("com.sun.xml.bind", "jaxb-bom-ext", "2.3.3-b02");
@@ -146,6 +160,27 @@ public class ProjectFinderTest {
         assertThat(found.isExactMatch()).isTrue();
     }
 
+    @Test
+    public void shouldIgnoreDuplicatesOfUnusedVersions() throws RemoteResourceException {
+        GAV gav = new GAV("foo.bar", "duplicate", "1.2.3");
+        Project project = new Project();
+        project.setGavs(Set.of(gav));
+        project.setName("foo.bar-duplicate-1.2.3-AUTOBUILDER");
+        project.setDependencies(Set.of());
+        project.setSourceCodeURL("https://github.com/eclipse-ee4j/jaxb-ri.git");
+        project.setSourceCodeRevision("2.3.3-b02-RI");
+
+        DependencyResult dependencyResult = new DependencyResult();
+        dependencyResult.setTopLevelProjects(Set.of(project));
+
+        FoundProjects projects = finder.findProjects(dependencyResult);
+
+        assertThat(projects.getFoundProjects()).hasSize(1);
+        FoundProject found = projects.getFoundProjects().iterator().next();
+        assertThat(found.isFound()).isTrue();
+        assertThat(found.isExactMatch()).isTrue();
+    }
+
     @Test
     public void shouldFindTempBuildWhenPersistentDoesntExist() throws RemoteResourceException {
         GAV gav = new GAV("foo.bar", "temporary", "1.2.3");
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.licenses;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the requests sent to every host: at most a given number of requests are in flight at the same time, and two
+ * requests are started at least a given interval apart. A host that asked to slow down, e.g. with a 429 response, gets
+ * no new request until its back-off delay has passed.
+ */
+class HostRateLimiter {
+
+    private final int permitsPerHost;
+
+    private final long intervalNanos;
+
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param permitsPerHost maximum number of concurrent requests to a host
+     * @param intervalMillis minimum time between the start of two requests to a host
+     */
+    HostRateLimiter(int permitsPerHost, long intervalMillis) {
+        this.permitsPerHost = Math.max(1, permitsPerHost);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, intervalMillis));
+    }
+
+    /**
+     * Wait until a request can be sent to the host
+     *
+     * @param host host the request is sent to
+     * @return permit to close once the request is completed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Permit acquire(String host) throws InterruptedException {
+        Host state = hosts.computeIfAbsent(host, h -> new Host(permitsPerHost));
+        state.permits.acquire();
+        try {
+            state.awaitTurn(intervalNanos);
+        } catch (InterruptedException e) {
+            state.permits.release();
+            throw e;
+        }
+        return state.permits::release;
+    }
+
+    /**
+     * Delay the next requests to the host
+     *
+     * @param host host that asked to slow down
+     * @param delayMillis time to wait before sending the next request
+     */
+    void backOff(String host, long delayMillis) {
+        hosts.computeIfAbsent(host, h -> new Host(permitsPerHost)).delay(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    }
+
+    interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static class Host {
+        private final Semaphore permits;
+
+        private long nextRequestAt = System.nanoTime();
+
+        private Host(int permits) {
+            this.permits = new Semaphore(permits, true);
+        }
+
+        private void awaitTurn(long intervalNanos) throws InterruptedException {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = now - nextRequestAt >= 0 ? now : nextRequestAt;
+                nextRequestAt = start + intervalNanos;
+                wait = start - now;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+
+        private synchronized void delay(long delayNanos) {
+            long until = System.nanoTime() + delayNanos;
+            if (until - nextRequestAt > 0) {
+                nextRequestAt = until;
+            }
+        }
+    }
+}
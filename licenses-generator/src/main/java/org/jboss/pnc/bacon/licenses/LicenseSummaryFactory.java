@@ -16,9 +16,14 @@
 
 package org.jboss.pnc.bacon.licenses;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import org.apache.maven.artifact.Artifact;
@@ -30,6 +35,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Class responsible for retrieving licenses information based on a provided GAV.
+ * <p>
+ * The licenses of the artifacts are resolved concurrently, on a dedicated pool with a bounded number of threads, so that
+ * the network and disk bound sanitisers neither starve nor are starved by the common pool.
  *
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
@@ -37,17 +45,28 @@ public class LicenseSummaryFactory {
 
     private final Logger logger = LoggerFactory.getLogger(LicenseSummaryFactory.class);
 
+    private static final int DEFAULT_THREADS = 8;
+
     private final LicenseSanitiser licenseSanitiser;
 
+    private final int threads;
+
     public LicenseSummaryFactory(LicenseSanitiser licenseSanitiser) {
+        this(licenseSanitiser, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param licenseSanitiser sanitiser resolving the licenses of a dependency
+     * @param threads number of artifacts whose licenses are resolved concurrently
+     */
+    public LicenseSummaryFactory(LicenseSanitiser licenseSanitiser, int threads) {
         this.licenseSanitiser = licenseSanitiser;
+        this.threads = Math.max(1, threads);
     }
 
     public LicenseSummary getLicenseSummary(Collection<Artifact> artifacts) {
         logger.debug("Getting license summary for a collection of " + artifacts.size() + " artifacts");
-        List<DependencyElement> dependencyElements = artifacts.parallelStream()
-                .map(DependencyElement::new)
-                .map(licenseSanitiser::fix)
+        List<DependencyElement> dependencyElements = resolve(artifacts).stream()
                 .sorted(
                         Comparator.comparing(DependencyElement::getGroupId)
                                 .thenComparing(DependencyElement::getArtifactId)
@@ -57,4 +76,25 @@ public class LicenseSummaryFactory {
         return new LicenseSummary(dependencyElements);
     }
 
+    private List<DependencyElement> resolve(Collection<Artifact> artifacts) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, artifacts.size())));
+        try {
+            List<CompletableFuture<DependencyElement>> futures = new ArrayList<>(artifacts.size());
+            for (Artifact artifact : artifacts) {
+                futures.add(
+                        CompletableFuture
+                                .supplyAsync(() -> licenseSanitiser.fix(new DependencyElement(artifact)), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
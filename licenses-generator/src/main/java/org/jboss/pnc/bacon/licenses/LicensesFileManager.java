@@ -23,25 +23,40 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBException;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.jboss.pnc.bacon.licenses.properties.GeneratorProperties;
 import org.jboss.pnc.bacon.licenses.xml.DependencyElement;
 import org.jboss.pnc.bacon.licenses.xml.LicenseElement;
 import org.jboss.pnc.bacon.licenses.xml.LicenseSummary;
@@ -53,6 +68,8 @@ import io.quarkus.qute.Qute;
 
 /**
  * Class responsible for persisting licenses information to XML and HTML files.
+ * <p>
+ * License files are downloaded concurrently, each one once, with a limit on the requests sent to every host.
  *
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
@@ -60,19 +77,41 @@ public class LicensesFileManager {
 
     private static final int DOWNLOAD_RETRY_LIMIT = 5;
     private static final int DOWNLOAD_TIMEOUT = 60_000;
+    private static final int MAX_DOWNLOAD_THREADS = 16;
+    private static final long INITIAL_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
 
     private static final String CONTENTS_DIR = "contents";
     private static final String LICENSES_QUTE = "licenses.qute";
 
     private final Logger logger = LoggerFactory.getLogger(LicensesFileManager.class);
 
-    private final CloseableHttpClient httpClient = HttpClientBuilder.create()
-            .setDefaultRequestConfig(
-                    RequestConfig.custom()
-                            .setConnectTimeout(DOWNLOAD_TIMEOUT)
-                            .setSocketTimeout(DOWNLOAD_TIMEOUT)
-                            .build())
-            .build();
+    private final HostRateLimiter rateLimiter;
+
+    private final CloseableHttpClient httpClient;
+
+    public LicensesFileManager() {
+        this(
+                GeneratorProperties.DEFAULT_DOWNLOAD_THREADS_PER_HOST,
+                GeneratorProperties.DEFAULT_DOWNLOAD_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param downloadThreadsPerHost maximum number of license files downloaded concurrently from a single host
+     * @param downloadIntervalMillis minimum time between two downloads from a single host
+     */
+    public LicensesFileManager(int downloadThreadsPerHost, long downloadIntervalMillis) {
+        this.rateLimiter = new HostRateLimiter(downloadThreadsPerHost, downloadIntervalMillis);
+        this.httpClient = HttpClientBuilder.create()
+                .setDefaultRequestConfig(
+                        RequestConfig.custom()
+                                .setConnectTimeout(DOWNLOAD_TIMEOUT)
+                                .setSocketTimeout(DOWNLOAD_TIMEOUT)
+                                .build())
+                .setMaxConnPerRoute(Math.max(1, downloadThreadsPerHost))
+                .setMaxConnTotal(MAX_DOWNLOAD_THREADS)
+                .build();
+    }
 
     /**
      * Create a licenses.xml file.
@@ -135,42 +174,68 @@ public class LicensesFileManager {
         }
     }
 
-    private Map<String, String> downloadLicenseFiles(List<DependencyElement> dependencies, String directoryPath) {
+    /**
+     * @return path of the license file, relative to the directory, by license name
+     */
+    Map<String, String> downloadLicenseFiles(List<DependencyElement> dependencies, String directoryPath) {
         final File licenseContentsDirectory = new File(directoryPath, CONTENTS_DIR);
         licenseContentsDirectory.mkdirs();
-        return dependencies.stream()
-                .flatMap(
-                        dependency -> dependency.getLicenses()
-                                .stream()
-                                .map(license -> downloadLicenseFile(dependency, license, licenseContentsDirectory)))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .distinct()
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    }
 
-    private Optional<Map.Entry<String, String>> downloadLicenseFile(
-            DependencyElement dependency,
-            LicenseElement license,
-            File licenseContentsDirectory) {
-        String textUrl = license.getTextUrl();
-        if (StringUtils.isBlank(textUrl)) {
-            return Optional.empty();
+        // every license file is downloaded once, for the first dependency that uses it, but several license names can
+        // share a file, e.g. "GPL-2.0" and "GPL2.0"
+        Map<String, Map.Entry<DependencyElement, LicenseElement>> downloads = new LinkedHashMap<>();
+        Map<String, Set<String>> licenseNamesByFile = new HashMap<>();
+        for (DependencyElement dependency : dependencies) {
+            for (LicenseElement license : dependency.getLicenses()) {
+                if (StringUtils.isNotBlank(license.getTextUrl())) {
+                    String fileName = getLocalLicenseFileName(license);
+                    downloads.putIfAbsent(fileName, new AbstractMap.SimpleEntry<>(dependency, license));
+                    licenseNamesByFile.computeIfAbsent(fileName, f -> new LinkedHashSet<>()).add(license.getName());
+                }
+            }
         }
-        logger.debug("Downloading license file for {} from {}", dependency.toGavString(), textUrl);
+        if (downloads.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_DOWNLOAD_THREADS, downloads.size()));
         try {
-            String fileName = getLocalLicenseFileName(license);
-            File file = new File(licenseContentsDirectory, fileName);
-            boolean download = false;
-            if (!file.exists()) {
-                synchronized (this) {
-                    if (!file.exists()) {
-                        file.createNewFile();
-                        download = true;
+            Map<String, CompletableFuture<Optional<String>>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Map.Entry<DependencyElement, LicenseElement>> download : downloads.entrySet()) {
+                DependencyElement dependency = download.getValue().getKey();
+                LicenseElement license = download.getValue().getValue();
+                futures.put(
+                        download.getKey(),
+                        CompletableFuture.supplyAsync(
+                                () -> downloadLicenseFile(
+                                        dependency,
+                                        license,
+                                        new File(licenseContentsDirectory, download.getKey())),
+                                executor));
+            }
+            Map<String, String> licenseFiles = new HashMap<>();
+            for (Map.Entry<String, CompletableFuture<Optional<String>>> future : futures.entrySet()) {
+                Optional<String> path = future.getValue().join();
+                if (path.isPresent()) {
+                    for (String licenseName : licenseNamesByFile.get(future.getKey())) {
+                        licenseFiles.put(licenseName, path.get());
                     }
                 }
             }
-            if (download) {
+            return licenseFiles;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return path of the downloaded file, relative to the directory of licenses.html, or empty if the download failed
+     */
+    private Optional<String> downloadLicenseFile(DependencyElement dependency, LicenseElement license, File file) {
+        String textUrl = license.getTextUrl();
+        logger.debug("Downloading license file for {} from {}", dependency.toGavString(), textUrl);
+        try {
+            if (!file.exists() || file.length() == 0) {
                 Optional<InputStream> offlineLicense = OfflineLicenseMirror.find(textUrl);
 
                 if (offlineLicense.isPresent()) {
@@ -188,9 +253,10 @@ public class LicensesFileManager {
                     }
                 }
             }
-            return Optional.of(
-                    new AbstractMap.SimpleEntry<>(license.getName(), String.format("%s/%s", CONTENTS_DIR, fileName)));
+            return Optional.of(String.format("%s/%s", CONTENTS_DIR, file.getName()));
         } catch (Exception e) {
+            // don't leave an empty or partial file behind, it would be taken for a downloaded one
+            FileUtils.deleteQuietly(file);
             logger.warn(
                     "Failed to download license '{}' for '{}' from '{}'",
                     license.getName(),
@@ -201,48 +267,60 @@ public class LicensesFileManager {
         }
     }
 
-    // TODO: optimize!
     private void downloadTo(String url, File file) throws IOException {
-        downloadTo(url, file, DOWNLOAD_RETRY_LIMIT);
-    }
-
-    private void downloadTo(String url, File file, int remainingRetries) throws IOException {
-
-        // make sure we don't retry above the maximum limit
-        if (remainingRetries > DOWNLOAD_RETRY_LIMIT) {
-            remainingRetries = DOWNLOAD_RETRY_LIMIT;
-        }
-
-        if (remainingRetries < 0) {
-            throw new IOException("Remaining retries to download " + url + " exceeded!");
-        }
-
-        HttpGet request = new HttpGet(url);
-        HttpResponse response = httpClient.execute(request);
-        if (response.getStatusLine().getStatusCode() == 429) {
-            // Too many retries: sleep a bit then retry
-            try {
-                int sleepMinutes = DOWNLOAD_RETRY_LIMIT - remainingRetries + 1;
-                logger.info(
-                        "Hit too many requests exception for url: {}, remaining retries: {}, sleeping for {} minutes",
-                        url,
-                        remainingRetries,
-                        sleepMinutes);
-                Thread.sleep(sleepMinutes * 1000 * 60);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-            downloadTo(url, file, remainingRetries - 1);
-        } else {
-            HttpEntity entity = response.getEntity();
-            if (entity != null) {
+        String host = URI.create(url).getHost();
+        for (int attempt = 0;; attempt++) {
+            HttpGet request = new HttpGet(url);
+            try (HostRateLimiter.Permit permit = rateLimiter.acquire(host);
+                    CloseableHttpResponse response = httpClient.execute(request)) {
+                int status = response.getStatusLine().getStatusCode();
+                if (status == HttpStatus.SC_TOO_MANY_REQUESTS) {
+                    EntityUtils.consume(response.getEntity());
+                    if (attempt >= DOWNLOAD_RETRY_LIMIT) {
+                        throw new IOException("Remaining retries to download " + url + " exceeded!");
+                    }
+                    long delay = getRetryAfterMillis(response)
+                            .orElse(Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << attempt));
+                    logger.info(
+                            "Hit too many requests exception for url: {}, attempt: {}, backing off for {} ms",
+                            url,
+                            attempt + 1,
+                            delay);
+                    rateLimiter.backOff(host, delay);
+                    continue;
+                }
+                if (status >= HttpStatus.SC_BAD_REQUEST) {
+                    EntityUtils.consume(response.getEntity());
+                    throw new IOException("Failed to download " + url + ", HTTP status " + status);
+                }
+                HttpEntity entity = response.getEntity();
                 try (OutputStream stream = new FileOutputStream(file)) {
-                    entity.writeTo(stream);
+                    if (entity != null) {
+                        entity.writeTo(stream);
+                    }
                 }
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to download " + url);
             }
         }
     }
 
+    private static Optional<Long> getRetryAfterMillis(HttpResponse response) {
+        Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return Optional.empty();
+        }
+        try {
+            long seconds = Long.parseLong(retryAfter.getValue().trim());
+            return Optional.of(Math.min(MAX_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(Math.max(0, seconds))));
+        } catch (NumberFormatException e) {
+            // an HTTP date, fall back to the exponential back-off
+            return Optional.empty();
+        }
+    }
+
     private String getLocalLicenseFileName(LicenseElement licenseElement) {
         String fileName = licenseElement.getName().replaceAll("[^A-Za-z0-9 ]", "");
         return fileName.replace(" ", "+");
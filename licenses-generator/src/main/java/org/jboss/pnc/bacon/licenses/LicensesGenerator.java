@@ -27,8 +27,10 @@ import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.project.ProjectBuilder;
 import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.eclipse.aether.RepositorySystem;
 import org.jboss.pnc.bacon.licenses.maven.MavenEmbedderFactory;
 import org.jboss.pnc.bacon.licenses.maven.MavenProjectFactory;
+import org.jboss.pnc.bacon.licenses.maven.PomLicenseReader;
 import org.jboss.pnc.bacon.licenses.maven.ProjectBuildingRequestFactory;
 import org.jboss.pnc.bacon.licenses.maven.SnowdropMavenEmbedder;
 import org.jboss.pnc.bacon.licenses.properties.GeneratorProperties;
@@ -39,6 +41,7 @@ import org.jboss.pnc.bacon.licenses.sanitiser.LicenseServiceSanitiser;
 import org.jboss.pnc.bacon.licenses.sanitiser.MavenSanitiser;
 import org.jboss.pnc.bacon.licenses.sanitiser.NoopLicenseSanitiser;
 import org.jboss.pnc.bacon.licenses.utils.Gav;
+import org.jboss.pnc.bacon.licenses.utils.LicenseCache;
 import org.jboss.pnc.bacon.licenses.xml.LicenseSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +57,8 @@ public class LicensesGenerator {
 
     private final MavenProjectFactory mavenProjectFactory;
 
+    private final PomLicenseReader pomLicenseReader;
+
     private final LicenseSummaryFactory licenseSummaryFactory;
 
     private final LicensesFileManager licensesFileManager;
@@ -64,6 +69,12 @@ public class LicensesGenerator {
 
     private final Optional<String> licenseServiceUrl;
 
+    private final LicenseCache licenseCache;
+
+    private final int resolutionThreads;
+
+    private final int licenseServiceThreads;
+
     private final GavFinder gavFinder;
 
     public LicensesGenerator() throws LicensesGeneratorException {
@@ -81,6 +92,9 @@ public class LicensesGenerator {
             ProjectBuilder projectBuilder = container.lookup(ProjectBuilder.class);
             this.mavenProjectFactory = new MavenProjectFactory(projectBuilder, projectBuildingRequestFactory);
             this.artifactFactory = container.lookup(ArtifactFactory.class);
+            this.pomLicenseReader = new PomLicenseReader(
+                    container.lookup(RepositorySystem.class),
+                    projectBuildingRequestFactory.getProjectBuildingRequest());
         } catch (ComponentLookupException e) {
             throw new LicensesGeneratorException(e.getMessage(), e);
         }
@@ -88,8 +102,13 @@ public class LicensesGenerator {
         this.licenseServiceUrl = generatorProperties.getLicenseServiceUrl();
         this.aliasesFilePath = generatorProperties.getAliasesFilePath();
         this.exceptionsFilePath = generatorProperties.getExceptionsFilePath();
+        this.licenseCache = new LicenseCache(generatorProperties.getLicenseCacheDir().map(Paths::get));
+        this.resolutionThreads = generatorProperties.getResolutionThreads();
+        this.licenseServiceThreads = generatorProperties.getLicenseServiceThreads();
         this.licenseSummaryFactory = createLicenseSummaryFactory();
-        this.licensesFileManager = new LicensesFileManager();
+        this.licensesFileManager = new LicensesFileManager(
+                generatorProperties.getDownloadThreadsPerHost(),
+                generatorProperties.getDownloadIntervalMillis());
         this.gavFinder = new GavFinder(mavenProjectFactory);
     }
 
@@ -128,16 +147,20 @@ public class LicensesGenerator {
         logger.debug("Initialising license sanitisers");
         LicenseSanitiser noopLicenseSanitiser = new NoopLicenseSanitiser();
         LicenseSanitiser aliasLicenseSanitiser = new AliasLicenseSanitiser(aliasesFilePath, noopLicenseSanitiser);
-        LicenseSanitiser mavenSanitiser = new MavenSanitiser(mavenProjectFactory, aliasLicenseSanitiser);
+        LicenseSanitiser mavenSanitiser = new MavenSanitiser(
+                mavenProjectFactory,
+                Optional.of(pomLicenseReader),
+                licenseCache,
+                aliasLicenseSanitiser);
 
-        Optional<LicenseSanitiser> maybeExternalLicenseSanitiser = licenseServiceUrl
-                .map(url -> new LicenseServiceSanitiser(url, mavenSanitiser));
+        Optional<LicenseSanitiser> maybeExternalLicenseSanitiser = licenseServiceUrl.map(
+                url -> new LicenseServiceSanitiser(url, licenseServiceThreads, licenseCache, mavenSanitiser));
 
         LicenseSanitiser secondSanitiser = maybeExternalLicenseSanitiser.orElse(mavenSanitiser);
 
         LicenseSanitiser exceptionLicenseSanitiser = new ExceptionLicenseSanitiser(exceptionsFilePath, secondSanitiser);
 
         logger.debug("Initialising license summary factory");
-        return new LicenseSummaryFactory(exceptionLicenseSanitiser);
+        return new LicenseSummaryFactory(exceptionLicenseSanitiser, resolutionThreads);
     }
 }
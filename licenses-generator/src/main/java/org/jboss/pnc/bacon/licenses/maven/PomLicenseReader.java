@@ -0,0 +1,231 @@
+/*
+ * Copyright 2016-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.licenses.maven;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.model.License;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the licenses of an artifact straight from its POM, without building the maven project.
+ * <p>
+ * The POM is parsed with a streaming XML reader, which only looks at the parent and the licenses. If the POM doesn't
+ * declare any license, they are inherited from the parent POM, the same way maven does it. The licenses of every POM
+ * are memoized, so that a parent shared by many artifacts is resolved and parsed only once.
+ * <p>
+ * Licenses that need interpolation, e.g. {@code ${project.url}}, or a parent whose version is a property can't be read
+ * this way; the maven project has to be built for them.
+ */
+public class PomLicenseReader {
+
+    private static final int MAX_PARENTS = 64;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(PomLicenseReader.class);
+
+    private final PomResolver pomResolver;
+
+    /**
+     * Licenses by GAV, empty if the maven project has to be built to get them
+     */
+    private final Map<String, Optional<List<License>>> licenses = new ConcurrentHashMap<>();
+
+    public PomLicenseReader(RepositorySystem repositorySystem, ProjectBuildingRequest request) {
+        RepositorySystemSession session = request.getRepositorySession();
+        List<RemoteRepository> repositories = repositorySystem
+                .newResolutionRepositories(session, RepositoryUtils.toRepos(request.getRemoteRepositories()));
+        this.pomResolver = (groupId, artifactId, version) -> {
+            DefaultArtifact pom = new DefaultArtifact(groupId, artifactId, "pom", version);
+            return repositorySystem.resolveArtifact(session, new ArtifactRequest(pom, repositories, null))
+                    .getArtifact()
+                    .getFile();
+        };
+    }
+
+    PomLicenseReader(PomResolver pomResolver) {
+        this.pomResolver = pomResolver;
+    }
+
+    /**
+     * @param groupId group id of the artifact
+     * @param artifactId artifact id of the artifact
+     * @param version version of the artifact
+     * @return the licenses of the artifact, empty if they can't be read without building the maven project
+     */
+    public Optional<List<License>> getLicenses(String groupId, String artifactId, String version) {
+        return getLicenses(groupId, artifactId, version, 0);
+    }
+
+    private Optional<List<License>> getLicenses(String groupId, String artifactId, String version, int depth) {
+        String gav = groupId + ':' + artifactId + ':' + version;
+        Optional<List<License>> result = licenses.get(gav);
+        if (result == null) {
+            // not computeIfAbsent, the parents are resolved recursively
+            result = readLicenses(gav, groupId, artifactId, version, depth);
+            licenses.putIfAbsent(gav, result);
+        }
+        return result;
+    }
+
+    private Optional<List<License>> readLicenses(
+            String gav,
+            String groupId,
+            String artifactId,
+            String version,
+            int depth) {
+        if (depth > MAX_PARENTS) {
+            logger.warn("Too many parents for {}, possibly a cycle", gav);
+            return Optional.empty();
+        }
+        PomModel pom;
+        try {
+            File pomFile = pomResolver.resolve(groupId, artifactId, version);
+            try (InputStream input = new FileInputStream(pomFile)) {
+                pom = parse(input);
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to read the POM of {}, falling back to building the maven project", gav, e);
+            return Optional.empty();
+        }
+
+        if (!pom.licenses.isEmpty()) {
+            for (License license : pom.licenses) {
+                if (needsInterpolation(license.getName()) || needsInterpolation(license.getUrl())) {
+                    logger.debug("Licenses of {} need interpolation", gav);
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(Collections.unmodifiableList(pom.licenses));
+        }
+        if (pom.parentArtifactId == null) {
+            return Optional.of(Collections.emptyList());
+        }
+        if (pom.parentGroupId == null || pom.parentVersion == null || needsInterpolation(pom.parentGroupId)
+                || needsInterpolation(pom.parentVersion)) {
+            logger.debug("Parent of {} needs interpolation", gav);
+            return Optional.empty();
+        }
+        return getLicenses(pom.parentGroupId, pom.parentArtifactId, pom.parentVersion, depth + 1);
+    }
+
+    private static boolean needsInterpolation(String value) {
+        return value != null && value.contains("${");
+    }
+
+    static PomModel parse(InputStream input) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
+        try {
+            PomModel pom = new PomModel();
+            List<String> path = new ArrayList<>();
+            License license = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    path.remove(path.size() - 1);
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (path.isEmpty() && !"project".equals(name)) {
+                    throw new XMLStreamException("Not a POM, the root element is " + name);
+                }
+                if (isAt(path, "project", "parent")) {
+                    // getElementText consumes the end of the element, so it's not pushed to the path
+                    switch (name) {
+                        case "groupId":
+                            pom.parentGroupId = reader.getElementText().trim();
+                            continue;
+                        case "artifactId":
+                            pom.parentArtifactId = reader.getElementText().trim();
+                            continue;
+                        case "version":
+                            pom.parentVersion = reader.getElementText().trim();
+                            continue;
+                        default:
+                            break;
+                    }
+                } else if (isAt(path, "project", "licenses") && "license".equals(name)) {
+                    license = new License();
+                    pom.licenses.add(license);
+                } else if (isAt(path, "project", "licenses", "license")) {
+                    if ("name".equals(name)) {
+                        license.setName(reader.getElementText().trim());
+                        continue;
+                    } else if ("url".equals(name)) {
+                        license.setUrl(reader.getElementText().trim());
+                        continue;
+                    }
+                }
+                path.add(name);
+            }
+            return pom;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static boolean isAt(List<String> path, String... elements) {
+        if (path.size() != elements.length) {
+            return false;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            if (!path.get(i).equals(elements[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class PomModel {
+        private String parentGroupId;
+        private String parentArtifactId;
+        private String parentVersion;
+        private final List<License> licenses = new ArrayList<>();
+    }
+
+    interface PomResolver {
+        File resolve(String groupId, String artifactId, String version) throws Exception;
+    }
+}
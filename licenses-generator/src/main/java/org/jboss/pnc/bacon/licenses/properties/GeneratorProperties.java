@@ -16,6 +16,7 @@
 
 package org.jboss.pnc.bacon.licenses.properties;
 
+import java.io.File;
 import java.util.AbstractMap;
 import java.util.Map;
 import java.util.Optional;
@@ -41,6 +42,17 @@ public class GeneratorProperties {
 
     private static final String DEFAULT_EXCEPTIONS_FILE_PATH = "rh-license-exceptions.json";
 
+    private static final String DEFAULT_LICENSE_CACHE_DIR = System.getProperty("user.home") + File.separator + ".cache"
+            + File.separator + "pnc-bacon" + File.separator + "license-cache";
+
+    private static final int DEFAULT_RESOLUTION_THREADS = 8;
+
+    private static final int DEFAULT_LICENSE_SERVICE_THREADS = 4;
+
+    public static final int DEFAULT_DOWNLOAD_THREADS_PER_HOST = 2;
+
+    public static final long DEFAULT_DOWNLOAD_INTERVAL_MILLIS = 200;
+
     private final Configuration configuration;
 
     public GeneratorProperties() {
@@ -91,4 +103,45 @@ public class GeneratorProperties {
         configuration.setProperty(PropertyKeys.EXCEPTIONS_FILE, exceptionsFilePath);
     }
 
+    /**
+     * @return directory where the licenses resolved for released artifacts are kept across runs, empty if the cache is
+     *         disabled by setting the property to an empty value
+     */
+    public Optional<String> getLicenseCacheDir() {
+        String dir = configuration.getString(PropertyKeys.LICENSE_CACHE_DIR, DEFAULT_LICENSE_CACHE_DIR);
+        return dir == null || dir.isBlank() ? Optional.empty() : Optional.of(dir);
+    }
+
+    public void setLicenseCacheDir(String licenseCacheDir) {
+        configuration.setProperty(PropertyKeys.LICENSE_CACHE_DIR, licenseCacheDir);
+    }
+
+    /**
+     * @return number of artifacts whose licenses are resolved concurrently, e.g. from their POMs
+     */
+    public int getResolutionThreads() {
+        return configuration.getInt(PropertyKeys.RESOLUTION_THREADS, DEFAULT_RESOLUTION_THREADS);
+    }
+
+    /**
+     * @return maximum number of concurrent requests to the license service
+     */
+    public int getLicenseServiceThreads() {
+        return configuration.getInt(PropertyKeys.LICENSE_SERVICE_THREADS, DEFAULT_LICENSE_SERVICE_THREADS);
+    }
+
+    /**
+     * @return maximum number of concurrent license text downloads from a single host
+     */
+    public int getDownloadThreadsPerHost() {
+        return configuration.getInt(PropertyKeys.DOWNLOAD_THREADS_PER_HOST, DEFAULT_DOWNLOAD_THREADS_PER_HOST);
+    }
+
+    /**
+     * @return minimum time between two license text downloads from a single host
+     */
+    public long getDownloadIntervalMillis() {
+        return configuration.getLong(PropertyKeys.DOWNLOAD_INTERVAL_MILLIS, DEFAULT_DOWNLOAD_INTERVAL_MILLIS);
+    }
+
 }
@@ -31,4 +31,14 @@ public interface PropertyKeys {
 
     String EXCEPTIONS_FILE = "exceptionsFile";
 
+    String LICENSE_CACHE_DIR = "licenseCacheDir";
+
+    String RESOLUTION_THREADS = "resolutionThreads";
+
+    String LICENSE_SERVICE_THREADS = "licenseServiceThreads";
+
+    String DOWNLOAD_THREADS_PER_HOST = "downloadThreadsPerHost";
+
+    String DOWNLOAD_INTERVAL_MILLIS = "downloadIntervalMillis";
+
 }
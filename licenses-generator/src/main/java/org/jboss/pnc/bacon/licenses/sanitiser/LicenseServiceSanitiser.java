@@ -18,6 +18,7 @@ package org.jboss.pnc.bacon.licenses.sanitiser;
 import java.util.Set;
 
 import org.jboss.pnc.bacon.licenses.sanitiser.provider.ExternalLicenseProvider;
+import org.jboss.pnc.bacon.licenses.utils.LicenseCache;
 import org.jboss.pnc.bacon.licenses.xml.DependencyElement;
 import org.jboss.pnc.bacon.licenses.xml.LicenseElement;
 
@@ -35,6 +36,15 @@ public class LicenseServiceSanitiser implements LicenseSanitiser {
         this.provider = new ExternalLicenseProvider(licenseServiceUrl);
     }
 
+    public LicenseServiceSanitiser(
+            String licenseServiceUrl,
+            int maxConcurrentRequests,
+            LicenseCache cache,
+            LicenseSanitiser next) {
+        this.next = next;
+        this.provider = new ExternalLicenseProvider(licenseServiceUrl, maxConcurrentRequests, cache);
+    }
+
     @Override
     public DependencyElement fix(DependencyElement dependencyElement) {
         Set<LicenseElement> licenses = provider.getLicenses(dependencyElement.toGavString());
@@ -16,12 +16,15 @@
 package org.jboss.pnc.bacon.licenses.sanitiser;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import org.apache.maven.model.License;
 import org.apache.maven.project.MavenProject;
 import org.jboss.pnc.bacon.licenses.maven.MavenProjectFactory;
+import org.jboss.pnc.bacon.licenses.maven.PomLicenseReader;
+import org.jboss.pnc.bacon.licenses.utils.LicenseCache;
 import org.jboss.pnc.bacon.licenses.xml.DependencyElement;
 import org.jboss.pnc.bacon.licenses.xml.LicenseElement;
 import org.slf4j.Logger;
@@ -29,21 +32,45 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A pass-through sanitiser. If the dependency element does not have a license, the sanitiser will try to get it from a
- * maven project. Then, the dependency element will be given to the next sanitiser.
+ * maven project. Then, the dependency element will be given to the next sanitiser. The licenses found in the maven
+ * projects are cached, so that every project is built only once.
+ * <p>
+ * If a {@link PomLicenseReader} is given, the licenses are read from the POMs first, and the maven project is only
+ * built for the POMs whose licenses can't be read without it.
  *
  * @author <a href="mailto:michal.l.szynkiewicz@gmail.com">Michal Szynkiewicz</a>
  * @author <a href="mailto:gytis@redhat.com">Gytis Trikleris</a>
  */
 public class MavenSanitiser implements LicenseSanitiser {
 
+    private static final String CACHE_SOURCE = "maven";
+
     private final Logger logger = LoggerFactory.getLogger(MavenSanitiser.class);
 
     private final MavenProjectFactory mavenProjectFactory;
 
+    private final Optional<PomLicenseReader> pomLicenseReader;
+
+    private final LicenseCache cache;
+
     private final LicenseSanitiser next;
 
     public MavenSanitiser(MavenProjectFactory mavenProjectFactory, LicenseSanitiser next) {
+        this(mavenProjectFactory, LicenseCache.inMemory(), next);
+    }
+
+    public MavenSanitiser(MavenProjectFactory mavenProjectFactory, LicenseCache cache, LicenseSanitiser next) {
+        this(mavenProjectFactory, Optional.empty(), cache, next);
+    }
+
+    public MavenSanitiser(
+            MavenProjectFactory mavenProjectFactory,
+            Optional<PomLicenseReader> pomLicenseReader,
+            LicenseCache cache,
+            LicenseSanitiser next) {
         this.mavenProjectFactory = mavenProjectFactory;
+        this.pomLicenseReader = pomLicenseReader;
+        this.cache = cache;
         this.next = next;
     }
 
@@ -56,13 +83,26 @@ public class MavenSanitiser implements LicenseSanitiser {
     }
 
     private Set<LicenseElement> getMavenProjectLicenses(DependencyElement dependencyElement) {
+        String gav = dependencyElement.toGavString();
+        Optional<Set<LicenseElement>> cached = cache.get(CACHE_SOURCE, gav);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Optional<List<License>> mavenLicenses = pomLicenseReader.flatMap(
+                reader -> reader.getLicenses(
+                        dependencyElement.getGroupId(),
+                        dependencyElement.getArtifactId(),
+                        dependencyElement.getVersion()));
+        if (mavenLicenses.isEmpty()) {
+            mavenLicenses = mavenProjectFactory.getMavenProject(dependencyElement.getArtifact(), false)
+                    .map(MavenProject::getLicenses);
+        }
         Set<LicenseElement> licenses = new HashSet<>();
-        Optional<MavenProject> mavenProject = mavenProjectFactory
-                .getMavenProject(dependencyElement.getArtifact(), false);
-        if (mavenProject.isPresent()) {
-            for (License license : mavenProject.get().getLicenses()) {
+        if (mavenLicenses.isPresent()) {
+            for (License license : mavenLicenses.get()) {
                 licenses.add(new LicenseElement(license));
             }
+            cache.put(CACHE_SOURCE, gav, licenses);
         } else {
             logger.warn("Could not get maven project for {}", dependencyElement);
         }
@@ -19,15 +19,17 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.core.Response;
 
 import org.jboss.pnc.bacon.licenses.LicensesGeneratorException;
+import org.jboss.pnc.bacon.licenses.utils.LicenseCache;
 import org.jboss.pnc.bacon.licenses.xml.LicenseElement;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 
@@ -42,18 +44,54 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
 public class ExternalLicenseProvider {
 
     private static final Logger logger = Logger.getLogger(ExternalLicenseProvider.class.getSimpleName());
+
+    private static final String CACHE_SOURCE = "license-service";
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
     private final Client client;
     private final String licenseServiceUrl;
+    private final Semaphore requests;
+    private final LicenseCache cache;
 
     public ExternalLicenseProvider(String licenseServiceUrl) {
+        this(licenseServiceUrl, DEFAULT_MAX_CONCURRENT_REQUESTS, LicenseCache.inMemory());
+    }
+
+    /**
+     * @param licenseServiceUrl url of the license service
+     * @param maxConcurrentRequests maximum number of requests sent to the license service at the same time
+     * @param cache cache of the licenses found by the service
+     */
+    public ExternalLicenseProvider(String licenseServiceUrl, int maxConcurrentRequests, LicenseCache cache) {
         this.licenseServiceUrl = licenseServiceUrl;
+        this.cache = cache;
+        int permits = Math.max(1, maxConcurrentRequests);
+        this.requests = new Semaphore(permits);
         logger.info("Using license service " + licenseServiceUrl);
 
-        ClientBuilder clientBuilder = ResteasyClientBuilder.newBuilder();
-        client = clientBuilder.build();
+        client = new ResteasyClientBuilder().connectionPoolSize(permits).maxPooledPerRoute(permits).build();
     }
 
     public Set<LicenseElement> getLicenses(String gav) {
+        Optional<Set<LicenseElement>> cached = cache.get(CACHE_SOURCE, gav);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Set<LicenseElement> licenses = requestLicenses(gav);
+        if (!licenses.isEmpty()) {
+            // an artifact unknown to the service may be added to it later, so only hits are cached
+            cache.put(CACHE_SOURCE, gav, licenses);
+        }
+        return licenses;
+    }
+
+    private Set<LicenseElement> requestLicenses(String gav) {
+        try {
+            requests.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to get license for gav: " + gav, e);
+        }
         try (Response response = client.target(licenseServiceUrl).queryParam("gav", gav).request().get()) {
             if (response.getStatus() != 200) {
                 logger.info(
@@ -74,6 +112,8 @@ public class ExternalLicenseProvider {
             }
         } catch (LicensesGeneratorException e) {
             throw new RuntimeException("Error getting license for gav: " + gav, e);
+        } finally {
+            requests.release();
         }
         return Collections.emptySet();
     }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.licenses.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+
+import org.jboss.pnc.bacon.licenses.xml.LicenseElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of the licenses resolved for artifacts, by source (e.g. the license service or the POM) and GAV.
+ * <p>
+ * Entries are kept in memory for the run and, if a directory is given, also in one JSON file per source and GAV, so
+ * that released artifacts are resolved only once across runs. SNAPSHOT versions are never persisted. Files are written
+ * to a temporary file first and moved in place, so that concurrent runs never read a partial entry.
+ */
+public class LicenseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LicenseCache.class);
+
+    private static final String SNAPSHOT = "SNAPSHOT";
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Optional<Path> directory;
+
+    private final Map<String, Set<LicenseElement>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory directory to persist the entries to, empty to keep them in memory only
+     */
+    public LicenseCache(Optional<Path> directory) {
+        this.directory = directory;
+    }
+
+    public static LicenseCache inMemory() {
+        return new LicenseCache(Optional.empty());
+    }
+
+    /**
+     * @param source source of the licenses, e.g. {@code maven}
+     * @param gav groupId:artifactId:version of the artifact
+     * @return the cached licenses, empty if the artifact wasn't resolved from the source yet
+     */
+    public Optional<Set<LicenseElement>> get(String source, String gav) {
+        String key = key(source, gav);
+        Set<LicenseElement> licenses = entries.get(key);
+        if (licenses == null) {
+            licenses = read(source, gav);
+            if (licenses != null) {
+                entries.putIfAbsent(key, licenses);
+            }
+        }
+        return Optional.ofNullable(licenses).map(LicenseCache::copy);
+    }
+
+    /**
+     * @param source source of the licenses, e.g. {@code maven}
+     * @param gav groupId:artifactId:version of the artifact
+     * @param licenses licenses resolved from the source
+     */
+    public void put(String source, String gav, Set<LicenseElement> licenses) {
+        Set<LicenseElement> copy = Collections.unmodifiableSet(copy(licenses));
+        entries.put(key(source, gav), copy);
+        if (!gav.endsWith(SNAPSHOT)) {
+            write(source, gav, copy);
+        }
+    }
+
+    private Set<LicenseElement> read(String source, String gav) {
+        if (directory.isEmpty()) {
+            return null;
+        }
+        Path file = file(directory.get(), source, gav);
+        try (InputStream input = Files.newInputStream(file); JsonReader reader = Json.createReader(input)) {
+            Set<LicenseElement> licenses = new HashSet<>();
+            for (JsonValue value : reader.readArray()) {
+                JsonObject license = value.asJsonObject();
+                licenses.add(
+                        new LicenseElement(
+                                license.getString("name", null),
+                                license.getString("url", null),
+                                license.getString("textUrl", null)));
+            }
+            return Collections.unmodifiableSet(licenses);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | JsonException | ClassCastException e) {
+            logger.warn("Ignoring unreadable license cache entry {}", file, e);
+            return null;
+        }
+    }
+
+    private void write(String source, String gav, Set<LicenseElement> licenses) {
+        if (directory.isEmpty()) {
+            return;
+        }
+        Path file = file(directory.get(), source, gav);
+        JsonArrayBuilder array = Json.createArrayBuilder();
+        for (LicenseElement license : licenses) {
+            JsonObjectBuilder object = Json.createObjectBuilder();
+            add(object, "name", license.getName());
+            add(object, "url", license.getUrl());
+            add(object, "textUrl", license.getTextUrl());
+            array.add(object);
+        }
+        Path tempFile = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (OutputStream output = Files.newOutputStream(tempFile);
+                    JsonWriter writer = Json.createWriter(output)) {
+                writer.writeArray(array.build());
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write license cache entry {}", file, e);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // nothing more to do, the entry will just be resolved again
+                }
+            }
+        }
+    }
+
+    private static Path file(Path directory, String source, String gav) {
+        return directory.resolve(source).resolve(fileName(gav) + ".json");
+    }
+
+    /**
+     * Escapes every character but letters, digits, {@code .} and {@code -} as {@code _} followed by the hex value of
+     * each of its UTF-8 bytes. {@code _} is escaped too, so two different GAVs never share a file.
+     */
+    static String fileName(String gav) {
+        StringBuilder name = new StringBuilder(gav.length() + 16);
+        for (byte b : gav.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '-') {
+                name.append(c);
+            } else {
+                name.append('_').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+        }
+        return name.toString();
+    }
+
+    private static String key(String source, String gav) {
+        return source + '/' + gav;
+    }
+
+    private static void add(JsonObjectBuilder object, String name, String value) {
+        if (value == null) {
+            object.addNull(name);
+        } else {
+            object.add(name, value);
+        }
+    }
+
+    private static Set<LicenseElement> copy(Set<LicenseElement> licenses) {
+        Set<LicenseElement> copy = new HashSet<>(licenses.size());
+        for (LicenseElement license : licenses) {
+            copy.add(new LicenseElement(license));
+        }
+        return copy;
+    }
+}
@@ -92,7 +92,7 @@ public class DependencyElement {
         this.artifactId = artifactId;
         this.version = version;
         this.licenses = new HashSet<>(licenses.size());
-        licenses.parallelStream().map(LicenseElement::new).forEach(this.licenses::add);
+        licenses.stream().map(LicenseElement::new).forEach(this.licenses::add);
     }
 
     public DependencyElement(DependencyElement dependencyElement, Set<LicenseElement> licenses) {
@@ -0,0 +1,67 @@
+package org.jboss.pnc.bacon.licenses;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class HostRateLimiterTest {
+
+    @Test
+    void shouldSpaceRequestsToTheSameHost() throws InterruptedException {
+        HostRateLimiter limiter = new HostRateLimiter(4, 50);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("example.com").close();
+        }
+        limiter.acquire("example.org").close();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void shouldWaitForTheBackOffDelay() throws InterruptedException {
+        HostRateLimiter limiter = new HostRateLimiter(1, 0);
+        limiter.backOff("example.com", 100);
+
+        long start = System.nanoTime();
+        limiter.acquire("example.com").close();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void shouldLimitConcurrentRequestsPerHost() {
+        HostRateLimiter limiter = new HostRateLimiter(2, 0);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try (HostRateLimiter.Permit permit = limiter.acquire("example.com")) {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        Thread.sleep(10);
+                        inFlight.decrementAndGet();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,47 @@
+package org.jboss.pnc.bacon.licenses;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pnc.bacon.licenses.xml.DependencyElement;
+import org.jboss.pnc.bacon.licenses.xml.LicenseElement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LicensesFileManagerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldLinkEveryLicenseNameSharingAFile() throws IOException {
+        // already downloaded, so that nothing is fetched
+        Path licenseFile = Files.createDirectories(directory.resolve("contents")).resolve("GPL20");
+        Files.writeString(licenseFile, "GNU General Public License, version 2");
+
+        Map<String, String> licenseFiles = new LicensesFileManager().downloadLicenseFiles(
+                List.of(
+                        dependency("foo", new LicenseElement("GPL-2.0", "http://localhost:1/gpl-2.0.txt")),
+                        dependency("bar", new LicenseElement("GPL2.0", "http://localhost:1/gpl2.txt"))),
+                directory.toString());
+
+        assertThat(licenseFiles).containsOnly(
+                Map.entry("GPL-2.0", "contents/GPL20"),
+                Map.entry("GPL2.0", "contents/GPL20"));
+    }
+
+    private static DependencyElement dependency(String artifactId, LicenseElement license) {
+        DependencyElement dependency = new DependencyElement();
+        dependency.setGroupId("org.foo");
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion("1.0");
+        dependency.setLicenses(Set.of(license));
+        return dependency;
+    }
+}
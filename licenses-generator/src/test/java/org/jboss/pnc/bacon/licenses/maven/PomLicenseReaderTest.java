@@ -0,0 +1,107 @@
+package org.jboss.pnc.bacon.licenses.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.maven.model.License;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PomLicenseReaderTest {
+
+    @TempDir
+    Path tmpDir;
+
+    private final Map<String, File> poms = new HashMap<>();
+
+    private final List<String> resolved = new ArrayList<>();
+
+    private final PomLicenseReader reader = new PomLicenseReader((groupId, artifactId, version) -> {
+        String gav = groupId + ':' + artifactId + ':' + version;
+        resolved.add(gav);
+        File pom = poms.get(gav);
+        if (pom == null) {
+            throw new FileNotFoundException(gav);
+        }
+        return pom;
+    });
+
+    @Test
+    void shouldReadDeclaredLicenses() throws IOException {
+        pom(
+                "org.foo:bar:1.0",
+                "<parent><groupId>org.foo</groupId><artifactId>parent</artifactId><version>1</version></parent>"
+                        + "<licenses><license><name> Apache License 2.0 </name>"
+                        + "<url>https://www.apache.org/licenses/LICENSE-2.0</url><distribution>repo</distribution>"
+                        + "</license><license><name>MIT</name></license></licenses>"
+                        + "<build><plugins><plugin><version>${v}</version></plugin></plugins></build>");
+
+        Optional<List<License>> licenses = reader.getLicenses("org.foo", "bar", "1.0");
+
+        assertThat(licenses).isPresent();
+        assertThat(licenses.get()).extracting(License::getName).containsExactly("Apache License 2.0", "MIT");
+        assertThat(licenses.get().get(0).getUrl()).isEqualTo("https://www.apache.org/licenses/LICENSE-2.0");
+        assertThat(resolved).containsExactly("org.foo:bar:1.0");
+    }
+
+    @Test
+    void shouldInheritLicensesOfParentAndResolveItOnce() throws IOException {
+        String parent = "<parent><groupId>org.foo</groupId><artifactId>parent</artifactId><version>1</version></parent>";
+        pom("org.foo:a:1.0", parent);
+        pom("org.foo:b:1.0", parent + "<licenses/>");
+        pom(
+                "org.foo:parent:1",
+                "<parent><groupId>org.foo</groupId><artifactId>root</artifactId><version>2</version></parent>");
+        pom("org.foo:root:2", "<licenses><license><name>MIT</name><url>https://mit.edu</url></license></licenses>");
+
+        assertThat(reader.getLicenses("org.foo", "a", "1.0").get()).extracting(License::getName).containsExactly("MIT");
+        assertThat(reader.getLicenses("org.foo", "b", "1.0").get()).extracting(License::getName).containsExactly("MIT");
+        assertThat(resolved).containsExactly("org.foo:a:1.0", "org.foo:parent:1", "org.foo:root:2", "org.foo:b:1.0");
+    }
+
+    @Test
+    void shouldReturnNoLicensesWithoutParent() throws IOException {
+        pom("org.foo:bar:1.0", "");
+
+        assertThat(reader.getLicenses("org.foo", "bar", "1.0")).contains(List.of());
+    }
+
+    @Test
+    void shouldFallBackWhenInterpolationIsNeeded() throws IOException {
+        pom("org.foo:a:1.0", "<licenses><license><name>ASL</name><url>${project.url}</url></license></licenses>");
+        pom(
+                "org.foo:b:1.0",
+                "<parent><groupId>org.foo</groupId><artifactId>parent</artifactId><version>${revision}</version>"
+                        + "</parent>");
+
+        assertThat(reader.getLicenses("org.foo", "a", "1.0")).isEmpty();
+        assertThat(reader.getLicenses("org.foo", "b", "1.0")).isEmpty();
+    }
+
+    @Test
+    void shouldFallBackWhenPomCantBeRead() throws IOException {
+        pom("org.foo:bar:1.0", "<parent><groupId>org.foo</groupId><artifactId>missing</artifactId><version>1");
+
+        assertThat(reader.getLicenses("org.foo", "bar", "1.0")).isEmpty();
+        assertThat(reader.getLicenses("org.foo", "missing", "1")).isEmpty();
+    }
+
+    private void pom(String gav, String content) throws IOException {
+        Path pom = tmpDir.resolve(gav.replace(':', '_') + ".pom");
+        Files.writeString(
+                pom,
+                "<?xml version=\"1.0\"?><project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+                        + "<modelVersion>4.0.0</modelVersion>" + content + "</project>");
+        poms.put(gav, pom.toFile());
+    }
+}
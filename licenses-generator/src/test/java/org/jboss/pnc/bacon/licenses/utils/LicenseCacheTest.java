@@ -0,0 +1,76 @@
+package org.jboss.pnc.bacon.licenses.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+
+import org.jboss.pnc.bacon.licenses.xml.LicenseElement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LicenseCacheTest {
+
+    private static final LicenseElement APACHE = new LicenseElement(
+            "Apache License 2.0",
+            "https://www.apache.org/licenses/LICENSE-2.0",
+            "https://www.apache.org/licenses/LICENSE-2.0.txt");
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void shouldReadEntriesWrittenByAnotherRun() {
+        new LicenseCache(Optional.of(cacheDir)).put("maven", "org.foo:bar:1.0", Set.of(APACHE));
+
+        LicenseCache cache = new LicenseCache(Optional.of(cacheDir));
+
+        assertThat(cache.get("maven", "org.foo:bar:1.0")).contains(Set.of(APACHE));
+        assertThat(cache.get("license-service", "org.foo:bar:1.0")).isEmpty();
+        assertThat(cache.get("maven", "org.foo:bar:1.1")).isEmpty();
+    }
+
+    @Test
+    void shouldKeepSnapshotsInMemoryOnly() {
+        LicenseCache cache = new LicenseCache(Optional.of(cacheDir));
+        cache.put("maven", "org.foo:bar:1.0-SNAPSHOT", Set.of(APACHE));
+
+        assertThat(cache.get("maven", "org.foo:bar:1.0-SNAPSHOT")).contains(Set.of(APACHE));
+        assertThat(new LicenseCache(Optional.of(cacheDir)).get("maven", "org.foo:bar:1.0-SNAPSHOT")).isEmpty();
+    }
+
+    @Test
+    void shouldNotShareEntriesBetweenGavsWithSimilarNames() {
+        LicenseElement mit = new LicenseElement("MIT License", "https://opensource.org/licenses/MIT", null);
+        new LicenseCache(Optional.of(cacheDir)).put("maven", "org.foo_bar:baz:1", Set.of(APACHE));
+        new LicenseCache(Optional.of(cacheDir)).put("maven", "org.foo:bar_baz:1", Set.of(mit));
+
+        LicenseCache cache = new LicenseCache(Optional.of(cacheDir));
+
+        assertThat(cache.get("maven", "org.foo_bar:baz:1")).contains(Set.of(APACHE));
+        assertThat(cache.get("maven", "org.foo:bar_baz:1")).contains(Set.of(mit));
+        assertThat(LicenseCache.fileName("org.foo_bar:baz:1"))
+                .isNotEqualTo(LicenseCache.fileName("org.foo:bar_baz:1"));
+    }
+
+    @Test
+    void shouldIgnoreUnreadableEntries() throws IOException {
+        Files.createDirectories(cacheDir.resolve("maven"));
+        Files.writeString(cacheDir.resolve("maven").resolve(LicenseCache.fileName("org.foo:bar:1.0") + ".json"), "[{\"name\":");
+
+        assertThat(new LicenseCache(Optional.of(cacheDir)).get("maven", "org.foo:bar:1.0")).isEmpty();
+    }
+
+    @Test
+    void shouldNotShareCachedElements() {
+        LicenseCache cache = LicenseCache.inMemory();
+        cache.put("maven", "org.foo:bar:1.0", Set.of(APACHE));
+
+        cache.get("maven", "org.foo:bar:1.0").get().iterator().next().setName("changed");
+
+        assertThat(cache.get("maven", "org.foo:bar:1.0")).contains(Set.of(APACHE));
+    }
+}
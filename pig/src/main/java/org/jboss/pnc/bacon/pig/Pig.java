@@ -43,11 +43,18 @@ import org.jboss.pnc.bacon.pig.impl.PigContext;
 import org.jboss.pnc.bacon.pig.impl.addons.provenance.InvocationInfo;
 import org.jboss.pnc.bacon.pig.impl.config.GroupBuildInfo;
 import org.jboss.pnc.bacon.pig.impl.config.PigConfiguration;
+import org.jboss.pnc.bacon.pig.impl.documents.sharedcontent.MRRCSearcher;
+import org.jboss.pnc.bacon.pig.impl.documents.sharedcontent.da.DADao;
 import org.jboss.pnc.bacon.pig.impl.out.PigBuildOutput;
 import org.jboss.pnc.bacon.pig.impl.out.PigReleaseOutput;
 import org.jboss.pnc.bacon.pig.impl.out.PigRunOutput;
+import org.jboss.pnc.bacon.pig.impl.pnc.BuildInfoCollector;
 import org.jboss.pnc.bacon.pig.impl.pnc.ImportResult;
+import org.jboss.pnc.bacon.pig.impl.pnc.PncEntitiesImporter;
+import org.jboss.pnc.bacon.pig.impl.repo.ChecksumEngine;
+import org.jboss.pnc.bacon.pig.impl.repo.RepoManager;
 import org.jboss.pnc.bacon.pig.impl.repo.RepositoryData;
+import org.jboss.pnc.bacon.pig.impl.sources.ScmTarballFetcher;
 import org.jboss.pnc.bacon.pig.impl.utils.AlignmentType;
 import org.jboss.pnc.bacon.pig.impl.utils.FileDownloadUtils;
 import org.jboss.pnc.bacon.pnc.common.ParameterChecker;
@@ -135,6 +142,55 @@ public class Pig {
                 description = "How many times should attempts to download files (e.g. from Indy to repo zip) be made")
         private int downloadAttempts;
 
+        @Option(
+                names = "--downloadParallelism",
+                defaultValue = "8",
+                description = "How many files should be downloaded concurrently (e.g. from Indy to repo zip)")
+        private int downloadParallelism;
+
+        @Option(
+                names = "--mrrcConcurrency",
+                defaultValue = "8",
+                description = "How many requests should be sent to MRRC concurrently (e.g. for the shared content report)")
+        private int mrrcConcurrency;
+
+        @Option(
+                names = "--pncConcurrency",
+                defaultValue = "8",
+                description = "How many builds should be collected from PNC concurrently")
+        private int pncConcurrency;
+
+        @Option(
+                names = "--checksumParallelism",
+                defaultValue = "4",
+                description = "How many files should be checksummed in parallel (e.g. for the repo zip)")
+        private int checksumParallelism;
+
+        @Option(
+                names = "--checksumLargeFileConcurrency",
+                defaultValue = "2",
+                description = "How many large files (64 MiB or more) should be checksummed at the same time")
+        private int checksumLargeFileConcurrency;
+
+        @Option(
+                names = "--verifyChecksums",
+                defaultValue = "false",
+                description = "If enabled, the existing md5 and sha1 files of the repository are checked before it's zipped and mismatches are reported")
+        private boolean verifyChecksums;
+
+        @Option(
+                names = "--sourcesConcurrency",
+                defaultValue = "4",
+                description = "How many SCM tarballs should be downloaded concurrently for the sources zip")
+        private int sourcesConcurrency;
+
+        @Option(
+                names = "--importConcurrency",
+                defaultValue = "8",
+                description = "How many build configs should be compared, created or updated in PNC concurrently. "
+                        + "The branch modification checks of the build configs run as part of the comparison")
+        private int importConcurrency;
+
         @Option(
                 names = "--targetPath",
                 defaultValue = "target",
@@ -152,12 +208,31 @@ public class Pig {
                 description = "If set to false, all artifact downloads will be forcefully done and no cache store will be used")
         boolean artifactCacheDownload;
 
+        @Option(
+                names = "--artifactCacheMaxSize",
+                defaultValue = "5",
+                description = "Maximum size of the artifact cache in GB. The least recently used artifacts are evicted above it")
+        int artifactCacheMaxSize;
+
+        @Option(
+                names = "--artifactCacheHardLinks",
+                defaultValue = "false",
+                description = "If set to true, artifacts retrieved from the cache are hard-linked instead of copied. "
+                        + "Saves disk space and time, but the cache gets corrupted if the retrieved files are modified in place")
+        boolean artifactCacheHardLinks;
+
         @Option(
                 names = "--useLocalM2Cache",
                 defaultValue = "true",
                 description = "If set to false, RESOLVE_ONLY Maven Repository generation will only download from Indy instead of relying on local m2 cache")
         boolean useLocalM2Cache;
 
+        @Option(
+                names = "--daLookupCache",
+                defaultValue = "true",
+                description = "If set to false, the locally cached DA lookup results are ignored and all the artifacts are looked up in DA again")
+        boolean daLookupCache;
+
         /**
          * Computes a result, or throws an exception if unable to do so.
          *
@@ -177,11 +252,21 @@ public class Pig {
             pig.validate();
 
             FileDownloadUtils.setAttempts(downloadAttempts);
+            FileDownloadUtils.setParallelism(downloadParallelism);
+            MRRCSearcher.setConcurrency(mrrcConcurrency);
+            BuildInfoCollector.setConcurrency(pncConcurrency);
+            ChecksumEngine.setParallelism(checksumParallelism);
+            ChecksumEngine.setLargeFileConcurrency(checksumLargeFileConcurrency);
+            RepoManager.setVerifyChecksums(verifyChecksums);
+            ScmTarballFetcher.setConcurrency(sourcesConcurrency);
+            PncEntitiesImporter.setConcurrency(importConcurrency);
+            DADao.setLookupCacheBypass(!daLookupCache);
 
             // Setting up artifact cache: we only want to cache downloads from Indy
             FileDownloadUtils.controlCache(
                     artifactCacheDownload,
                     List.of(pig.getIndyUrl()));
+            FileDownloadUtils.configureCache(artifactCacheMaxSize * 1024L * 1024L * 1024L, artifactCacheHardLinks);
 
             // Best-effort command line capture.
             String commandLine = System.getProperty("sun.java.command", "unknown");
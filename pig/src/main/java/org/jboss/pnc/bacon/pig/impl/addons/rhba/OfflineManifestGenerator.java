@@ -89,11 +89,12 @@ public class OfflineManifestGenerator extends AddOn {
         }
 
         HashSet<String> artifacts = new HashSet<>();
-        for (PncBuild build : sourceBuilds()) {
+        Collection<PncBuild> sourceBuilds = sourceBuilds();
+        buildInfoCollector.addDependencies(sourceBuilds, "targetRepository.repositoryType==" + RepositoryType.MAVEN);
+        for (PncBuild build : sourceBuilds) {
             Collection<String> builtArtifacts = filterExcludedArtifactsAndFormat(build.getBuiltArtifacts());
             log.debug("Collected {} built artifacts for build {}", builtArtifacts.size(), build.getName());
             artifacts.addAll(builtArtifacts);
-            buildInfoCollector.addDependencies(build, "targetRepository.repositoryType==" + RepositoryType.MAVEN);
             if (build.getDependencyArtifacts() != null) {
                 Collection<String> dependencies = filterExcludedArtifactsAndFormat(build.getDependencyArtifacts());
                 log.debug("Collected {} dependencies for build {}", dependencies.size(), build.getName());
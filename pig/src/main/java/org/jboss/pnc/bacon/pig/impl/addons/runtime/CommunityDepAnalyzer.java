@@ -95,7 +95,7 @@ public class CommunityDepAnalyzer {
     }
 
     protected List<CommunityDependency> analyzeDAResults() {
-        dependencies.parallelStream().forEach(daDao::fillDaData);
+        daDao.fillDaData(dependencies);
         return dependencies;
     }
 
@@ -0,0 +1,325 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.pnc.bacon.pig.impl.documents.sharedcontent;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.jboss.pnc.bacon.pig.impl.utils.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Value;
+
+/**
+ * Checks whether artifacts are released to MRRC.
+ * <p>
+ * All the requests go through a single pooled client, with at most {@code concurrency} requests in flight. Artifacts
+ * are checked with HEAD requests. When several files of the same artifact are checked, the {@code maven-metadata.xml}
+ * of the artifact is fetched once, and the files of the versions it doesn't list are reported as not released without
+ * a HEAD request. A listed version only means that some of its files were published, so its files are still checked
+ * one by one.
+ * <p>
+ * The results are kept in an append-only file, so that they are reused across runs. Released artifacts stay released,
+ * so positive results never expire. Negative results expire after {@link #NOT_RELEASED_TTL}.
+ */
+public class MRRCReleaseChecker {
+    private static final Logger log = LoggerFactory.getLogger(MRRCReleaseChecker.class);
+
+    static final Duration NOT_RELEASED_TTL = Duration.ofDays(1);
+
+    private static final int TIMEOUT = 30_000;
+    private static final int IDLE_CONNECTION_TIMEOUT = 30;
+
+    private static final Pattern METADATA_VERSION = Pattern.compile("<version>\\s*([^<\\s]+)\\s*</version>");
+
+    private final String mrrcBaseUrl;
+    private final int concurrency;
+    private final Path cacheFile;
+    private final CloseableHttpClient client;
+
+    /**
+     * Results by artifact uri, please use it via getCache() method, not directly
+     */
+    private Map<String, CachedResult> cache;
+
+    /**
+     * @param mrrcBaseUrl url of the MRRC repository, ending with a slash
+     * @param concurrency maximum number of concurrent requests to MRRC
+     * @param cacheFile file keeping the results across runs, or null to keep them only in memory
+     */
+    public MRRCReleaseChecker(String mrrcBaseUrl, int concurrency, Path cacheFile) {
+        this.mrrcBaseUrl = mrrcBaseUrl;
+        this.concurrency = Math.max(1, concurrency);
+        this.cacheFile = cacheFile;
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT)
+                .setConnectionRequestTimeout(TIMEOUT)
+                .setSocketTimeout(TIMEOUT)
+                .build();
+        this.client = HttpClients.custom()
+                .setDefaultRequestConfig(requestConfig)
+                .setMaxConnPerRoute(this.concurrency)
+                .setMaxConnTotal(this.concurrency)
+                .evictIdleConnections(IDLE_CONNECTION_TIMEOUT, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public Boolean isReleased(GAV gav) {
+        String uri = gav.toUri();
+        Boolean released = getCached(uri);
+        if (released == null) {
+            released = head(uri);
+            if (released != null) {
+                store(uri, released);
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Check which of the artifacts are released
+     *
+     * @param gavs artifacts to check
+     * @return whether each artifact is released, by {@link GAV#toUri()}. The value is null if MRRC couldn't be queried
+     *         for the artifact.
+     */
+    public Map<String, Boolean> check(Collection<GAV> gavs) {
+        Map<String, Boolean> results = new ConcurrentHashMap<>();
+        Map<String, List<GAV>> toCheckByArtifact = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (GAV gav : gavs) {
+            String uri = gav.toUri();
+            if (!seen.add(uri)) {
+                continue;
+            }
+            Boolean cached = getCached(uri);
+            if (cached != null) {
+                results.put(uri, cached);
+            } else {
+                toCheckByArtifact.computeIfAbsent(artifactPath(gav), k -> new ArrayList<>()).add(gav);
+            }
+        }
+        log.debug(
+                "{} artifacts found in the MRRC cache, checking {} artifacts in MRRC",
+                results.size(),
+                seen.size() - results.size());
+        if (toCheckByArtifact.isEmpty()) {
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, toCheckByArtifact.size()));
+        try {
+            CompletableFuture<?>[] checks = toCheckByArtifact.entrySet()
+                    .stream()
+                    .map(
+                            artifact -> CompletableFuture.runAsync(
+                                    () -> checkArtifact(artifact.getKey(), artifact.getValue(), results),
+                                    executor))
+                    .toArray(CompletableFuture<?>[]::new);
+            CompletableFuture.allOf(checks).join();
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private void checkArtifact(String artifactPath, List<GAV> gavs, Map<String, Boolean> results) {
+        Set<String> releasedVersions = gavs.size() > 1 ? getReleasedVersions(artifactPath) : null;
+        for (GAV gav : gavs) {
+            // the metadata lists the published versions, not the classifiers or packagings published for each of them
+            Boolean released = releasedVersions != null && !releasedVersions.contains(gav.getVersion()) ? Boolean.FALSE
+                    : head(gav.toUri());
+            if (released != null) {
+                results.put(gav.toUri(), released);
+                store(gav.toUri(), released);
+            }
+        }
+    }
+
+    /**
+     * @return versions listed in the maven-metadata.xml of the artifact, or null if there's no metadata
+     */
+    private Set<String> getReleasedVersions(String artifactPath) {
+        HttpGet request = new HttpGet(mrrcBaseUrl + artifactPath + "/maven-metadata.xml");
+        try (CloseableHttpResponse response = client.execute(request)) {
+            if (response.getStatusLine().getStatusCode() != 200) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                return null;
+            }
+            String metadata = EntityUtils.toString(response.getEntity(), UTF_8);
+            Set<String> versions = new HashSet<>();
+            Matcher matcher = METADATA_VERSION.matcher(metadata);
+            while (matcher.find()) {
+                versions.add(matcher.group(1));
+            }
+            return versions;
+        } catch (IOException e) {
+            log.warn("Failed to get maven-metadata.xml of {} from MRRC: {}", artifactPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the file is in MRRC, or null if MRRC couldn't tell, e.g. on a server error, so that the answer
+     *         isn't cached
+     */
+    private Boolean head(String uri) {
+        try (CloseableHttpResponse response = client.execute(new HttpHead(mrrcBaseUrl + uri))) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == 200) {
+                return Boolean.TRUE;
+            }
+            if (statusCode == 404) {
+                return Boolean.FALSE;
+            }
+            log.warn("Unexpected status {} when checking {} in MRRC", statusCode, uri);
+            return null;
+        } catch (IOException e) {
+            log.error("Failed to get data for {} from MRRC", uri, e);
+            return null;
+        }
+    }
+
+    private Boolean getCached(String uri) {
+        CachedResult result = getCache().get(uri);
+        if (result == null) {
+            return null;
+        }
+        if (!result.isReleased() && System.currentTimeMillis() - result.getCheckedAt() > NOT_RELEASED_TTL.toMillis()) {
+            return null;
+        }
+        return result.isReleased();
+    }
+
+    private void store(String uri, boolean released) {
+        CachedResult result = new CachedResult(System.currentTimeMillis(), released);
+        getCache().put(uri, result);
+        if (cacheFile == null) {
+            return;
+        }
+        String line = result.getCheckedAt() + " " + released + " " + uri + "\n";
+        synchronized (this) {
+            try {
+                Files.writeString(cacheFile, line, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                log.debug("Unable to write to the MRRC cache {}", cacheFile, e);
+            }
+        }
+    }
+
+    private synchronized Map<String, CachedResult> getCache() {
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            if (cacheFile != null) {
+                loadCache();
+            }
+        }
+        return cache;
+    }
+
+    private void loadCache() {
+        List<String> lines;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            lines = Files.readAllLines(cacheFile, UTF_8);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("Unable to read the MRRC cache {}: {}", cacheFile, e.getMessage());
+            return;
+        }
+        for (String line : lines) {
+            String[] entry = line.split(" ", 3);
+            if (entry.length == 3) {
+                try {
+                    cache.put(entry[2], new CachedResult(Long.parseLong(entry[0]), Boolean.parseBoolean(entry[1])));
+                } catch (NumberFormatException e) {
+                    // partially written line
+                }
+            }
+        }
+        if (lines.size() > 2 * cache.size() + 1000) {
+            compactCache();
+        }
+    }
+
+    /**
+     * Rewrite the cache file with only the latest result for every artifact
+     */
+    private void compactCache() {
+        StringBuilder content = new StringBuilder();
+        cache.forEach(
+                (uri, result) -> content.append(result.getCheckedAt())
+                        .append(' ')
+                        .append(result.isReleased())
+                        .append(' ')
+                        .append(uri)
+                        .append('\n'));
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(cacheFile.getParent(), "mrrc-cache", ".tmp");
+            Files.writeString(tmpFile, content, UTF_8);
+            Files.move(tmpFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.debug("Unable to compact the MRRC cache {}", cacheFile, e);
+            if (tmpFile != null) {
+                tmpFile.toFile().delete();
+            }
+        }
+    }
+
+    private static String artifactPath(GAV gav) {
+        return String.format("%s/%s", gav.getGroupId().replace('.', '/'), gav.getArtifactId());
+    }
+
+    @Value
+    private static class CachedResult {
+        long checkedAt;
+        boolean released;
+    }
+}
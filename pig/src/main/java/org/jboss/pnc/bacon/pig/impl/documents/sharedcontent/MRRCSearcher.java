@@ -18,13 +18,12 @@
 
 package org.jboss.pnc.bacon.pig.impl.documents.sharedcontent;
 
-import java.io.IOException;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
 
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpHead;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.jboss.pnc.bacon.pig.impl.utils.GAV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,34 +37,62 @@ public class MRRCSearcher {
 
     private static final String mrrcBaseUrl = "https://maven.repository.redhat.com/ga/";
 
+    public static final String CACHE_LOCATION = System.getProperty("user.home") + File.separator + ".cache"
+            + File.separator + "pnc-bacon" + File.separator + "mrrc-release-cache.txt";
+
+    private static final int DEFAULT_CONCURRENCY = 8;
+
+    private static int concurrency = DEFAULT_CONCURRENCY;
+
     private static final MRRCSearcher instance = new MRRCSearcher();
 
+    /**
+     * Please use it via getChecker() method, not directly
+     */
+    private MRRCReleaseChecker checker;
+
     public static MRRCSearcher getInstance() {
         return instance;
     }
 
+    /**
+     * Set the maximum number of concurrent requests to MRRC. Has to be called before the first request.
+     *
+     * @param concurrency maximum number of concurrent requests
+     */
+    public static void setConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            log.warn("MRRC concurrency has to be a positive integer. Setting to {}", DEFAULT_CONCURRENCY);
+            concurrency = DEFAULT_CONCURRENCY;
+        }
+        MRRCSearcher.concurrency = concurrency;
+    }
+
     public void fillMRRCData(SharedContentReportRow row) {
         log.debug("Asking mrrc for {}\n", row.toGapv());
         row.setReleased(isReleased(row.getGav()));
     }
 
+    /**
+     * Fill in whether the rows are released, checking them in MRRC concurrently
+     *
+     * @param rows rows to fill in
+     */
+    public void fillMRRCData(Collection<SharedContentReportRow> rows) {
+        log.info("Checking {} artifacts in MRRC", rows.size());
+        Map<String, Boolean> released = getChecker()
+                .check(rows.stream().map(SharedContentReportRow::getGav).collect(Collectors.toList()));
+        rows.forEach(row -> row.setReleased(released.get(row.getGav().toUri())));
+    }
+
     public Boolean isReleased(GAV gav) {
-        HttpHead request = new HttpHead(uriForRow(gav));
-        RequestConfig.Builder requestBuilder = RequestConfig.custom();
-        requestBuilder = requestBuilder.setConnectTimeout(30_000);
-        requestBuilder = requestBuilder.setConnectionRequestTimeout(30_000);
-        try (CloseableHttpClient client = HttpClientBuilder.create().build();
-                CloseableHttpResponse response = client.execute(request)) {
-            int statusCode = response.getStatusLine().getStatusCode();
-            return statusCode == 200;
-        } catch (IOException e) {
-            log.error("Failed to get data for {} from MRRC", gav, e);
-            return null;
-        }
+        return getChecker().isReleased(gav);
     }
 
-    private String uriForRow(GAV gav) {
-        String uriSuffix = gav.toUri();
-        return mrrcBaseUrl + uriSuffix;
+    private synchronized MRRCReleaseChecker getChecker() {
+        if (checker == null) {
+            checker = new MRRCReleaseChecker(mrrcBaseUrl, concurrency, Path.of(CACHE_LOCATION));
+        }
+        return checker;
     }
 }
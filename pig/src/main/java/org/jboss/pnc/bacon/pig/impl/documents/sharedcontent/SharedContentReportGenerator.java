@@ -18,17 +18,21 @@
 
 package org.jboss.pnc.bacon.pig.impl.documents.sharedcontent;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.jboss.pnc.bacon.pig.impl.repo.RepoDescriptor;
+import org.jboss.pnc.bacon.pig.impl.utils.ExternalLineSorter;
 import org.jboss.pnc.bacon.pig.impl.utils.GAV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,11 +52,24 @@ public class SharedContentReportGenerator {
             "README",
             "maven-metadata.xml" };
 
+    private static final String HEADER = "Artifact;Product name; Product version; "
+            + "Released?; Build id; Build Author; Candidate tags; All tags\n";
+
+    /**
+     * Number of rows that go through the DA, MRRC and Brew stages together
+     */
+    private static final int BATCH_SIZE = 5_000;
+
+    /**
+     * Number of finished rows kept in memory before they are sorted and spilled to disk
+     */
+    private static final int MAX_ROWS_IN_MEMORY = 50_000;
+
     private final Collection<File> repositoryFiles;
     private final DASearcher daSearcher = new DASearcher();
     private final Set<GAV> projectsArtifacts;
-    private Integer limit;
-    private AtomicInteger analyzed = new AtomicInteger(0);
+    private final Integer limit;
+    private int analyzed = 0;
 
     public SharedContentReportGenerator(Set<GAV> projectsArtifacts, Collection<File> repositoryFiles, Integer limit) {
         this.repositoryFiles = repositoryFiles;
@@ -65,44 +82,69 @@ public class SharedContentReportGenerator {
     }
 
     public void generateReport(File reportFile) throws IOException {
-        StringBuilder output = generateReportString();
-        try (FileWriter fileWriter = new FileWriter(reportFile)) {
-            fileWriter.append(output.toString());
+        try (Writer writer = new BufferedWriter(new FileWriter(reportFile))) {
+            generateReport(writer);
         }
     }
 
-    protected StringBuilder generateReportString() {
-        StringBuilder output = new StringBuilder(
-                "Artifact;Product name; Product version; "
-                        + "Released?; Build id; Build Author; Candidate tags; All tags\n");
-        List<SharedContentReportRow> rows = repositoryFiles.stream()
-                .filter(f -> Stream.of(IGNORED).noneMatch(f.getAbsolutePath()::contains))
-                .map(f -> new SharedContentReportRow(f, RepoDescriptor.MAVEN_REPOSITORY))
-                .filter(r -> !projectsArtifacts.contains(r.getGav()))
-                .distinct()
-                .collect(Collectors.toList());
-        if (limit == null) {
-            limit = rows.size();
-        }
-        rows = rows.subList(0, limit);
+    /**
+     * Stream the repository files through the DA, MRRC and Brew stages in batches and write the finished rows, sorted by
+     * product and GAV, to the output. Only the current batch and a bounded number of finished rows are kept in memory,
+     * the rest of the finished rows is sorted on disk.
+     *
+     * @param output where to write the report to
+     * @throws IOException if the report couldn't be written
+     */
+    protected void generateReport(Writer output) throws IOException {
+        output.append(HEADER);
         log.info("Gathering data for shared content report");
-        rows.parallelStream().forEach(this::fillDaData);
-        List<SharedContentReportRow> toFillBrewData = rows.stream()
+        try (ExternalLineSorter sorter = new ExternalLineSorter(MAX_ROWS_IN_MEMORY)) {
+            Set<GAV> seen = new HashSet<>();
+            List<SharedContentReportRow> batch = new ArrayList<>();
+            int rows = 0;
+            for (File file : repositoryFiles) {
+                if (limit != null && rows >= limit) {
+                    break;
+                }
+                if (Stream.of(IGNORED).anyMatch(file.getAbsolutePath()::contains)) {
+                    continue;
+                }
+                SharedContentReportRow row = new SharedContentReportRow(file, RepoDescriptor.MAVEN_REPOSITORY);
+                if (projectsArtifacts.contains(row.getGav()) || !seen.add(row.getGav())) {
+                    continue;
+                }
+                rows++;
+                batch.add(row);
+                if (batch.size() >= BATCH_SIZE) {
+                    processBatch(batch, sorter);
+                    batch.clear();
+                }
+            }
+            processBatch(batch, sorter);
+            sorter.writeSorted(output, line -> line.substring(line.indexOf('\t') + 1));
+        }
+    }
+
+    private void processBatch(List<SharedContentReportRow> batch, ExternalLineSorter sorter) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batch.forEach(this::fillDaData);
+        MRRCSearcher.getInstance().fillMRRCData(batch);
+        List<SharedContentReportRow> toFillBrewData = batch.stream()
                 .filter(row -> row.getProductName() == null || row.getProductVersion() == null)
                 .collect(Collectors.toList());
+        if (!toFillBrewData.isEmpty()) {
+            BrewSearcher.fillBrewData(toFillBrewData);
+        }
 
-        BrewSearcher.fillBrewData(toFillBrewData);
-
-        rows.stream().sorted(SharedContentReportRow::byProductAndGav).forEach(r -> r.printTo(output));
-        return output;
+        batch.forEach(row -> sorter.add(row.toSortableLine()));
+        analyzed += batch.size();
+        log.debug("Analyzed {} artifacts", analyzed);
     }
 
     private void fillDaData(SharedContentReportRow row) {
         log.debug("Will fill {}", row.toGapv());
         daSearcher.fillDAData(row);
-        MRRCSearcher.getInstance().fillMRRCData(row);
-        if (log.isDebugEnabled()) {
-            log.debug("Analyzed {}/{}", analyzed.incrementAndGet(), limit);
-        }
     }
 }
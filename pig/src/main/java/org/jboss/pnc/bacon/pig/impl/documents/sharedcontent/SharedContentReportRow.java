@@ -88,12 +88,19 @@ public class SharedContentReportRow {
         builder.append(StringUtils.join(buildTags, ",")).append("\n");
     }
 
-    private String toComparableString() {
-        return defaultIfNull(productName, "") + "|" + defaultIfNull(productVersion, "") + "|" + toGav();
+    /**
+     * @return the row as printed by {@link #printTo(StringBuilder)}, without the trailing line break, prefixed with the
+     *         key of the row in the report order and a tab. Such lines sort in the report order.
+     */
+    public String toSortableLine() {
+        StringBuilder builder = new StringBuilder(toComparableString()).append('\t');
+        printTo(builder);
+        builder.setLength(builder.length() - 1);
+        return builder.toString();
     }
 
-    public static int byProductAndGav(SharedContentReportRow row1, SharedContentReportRow row2) {
-        return row1.toComparableString().compareTo(row2.toComparableString());
+    private String toComparableString() {
+        return defaultIfNull(productName, "") + "|" + defaultIfNull(productVersion, "") + "|" + toGav();
     }
 
     @Override
@@ -17,18 +17,31 @@
  */
 package org.jboss.pnc.bacon.pig.impl.documents.sharedcontent.da;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jboss.bacon.da.DaHelper;
+import org.jboss.bacon.da.DaLookupCache;
 import org.jboss.bacon.da.rest.endpoint.ListingsApi;
 import org.jboss.bacon.da.rest.endpoint.ReportsApi;
 import org.jboss.da.listings.model.rest.RestProductGAV;
+import org.jboss.da.model.rest.GAV;
 import org.jboss.da.reports.model.request.LookupGAVsRequest;
 import org.jboss.da.reports.model.response.LookupReport;
+import org.jboss.pnc.bacon.common.ConcurrentLookups;
 import org.jboss.pnc.bacon.config.Config;
 import org.jboss.pnc.bacon.config.DaConfig;
 import org.slf4j.Logger;
@@ -43,19 +56,92 @@ import org.slf4j.LoggerFactory;
 public class DADao {
     private static final Logger log = LoggerFactory.getLogger(DADao.class);
 
+    private static volatile boolean lookupCacheBypass = false;
+
     private final ReportsApi reportsClient;
     private final ListingsApi listingsClient;
+    private final int batchSize;
+    private final int parallelism;
+    private final DaLookupCache lookupCache;
 
     public DADao(DaConfig daConfig) {
         reportsClient = DaHelper.createReportsApi();
         listingsClient = DaHelper.createListingsApi();
+        DaConfig lookupConfig = daConfig == null ? new DaConfig() : daConfig;
+        batchSize = Math.max(1, lookupConfig.getLookupBatchSize());
+        parallelism = Math.max(1, lookupConfig.getLookupParallelism());
+        lookupCache = new DaLookupCache(Path.of(DaLookupCache.CACHE_LOCATION), lookupConfig, lookupCacheBypass);
     }
 
     public void fillDaData(CommunityDependency dependency) {
-        log.debug("Analyzing: {}", dependency);
-        LookupGAVsRequest lookupRequest = new LookupGAVsRequest(Collections.singletonList(dependency.toDaGav()));
-        List<LookupReport> lookupReports = reportsClient.lookupGav(lookupRequest);
-        LookupReport lookupReport = getSingle(lookupReports);
+        fillDaData(Collections.singletonList(dependency));
+    }
+
+    /**
+     * Look up the dependencies in DA in batches of at most {@link DaConfig#getLookupBatchSize()} artifacts, with at
+     * most {@link DaConfig#getLookupParallelism()} requests in flight, and fill in the DA data of each dependency
+     *
+     * @param dependencies dependencies to analyze, may contain several dependencies with the same GAV
+     */
+    public void fillDaData(Collection<CommunityDependency> dependencies) {
+        Map<GAV, List<CommunityDependency>> dependenciesByGav = new LinkedHashMap<>();
+        dependencies.forEach(d -> dependenciesByGav.computeIfAbsent(d.toDaGav(), g -> new ArrayList<>()).add(d));
+        List<List<GAV>> batches = ListUtils.partition(new ArrayList<>(dependenciesByGav.keySet()), batchSize);
+        log.debug("Analyzing {} artifacts in {} batches", dependenciesByGav.size(), batches.size());
+
+        if (batches.isEmpty()) {
+            return;
+        }
+        if (batches.size() == 1) {
+            lookupBatch(batches.get(0), dependenciesByGav);
+        } else {
+            lookupBatches(batches, dependenciesByGav);
+        }
+        log.info("DA lookup cache: {} hits, {} misses", lookupCache.getHits(), lookupCache.getMisses());
+    }
+
+    private void lookupBatches(List<List<GAV>> batches, Map<GAV, List<CommunityDependency>> dependenciesByGav) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, batches.size()));
+        try {
+            CompletableFuture<?>[] lookups = batches.stream()
+                    .map(batch -> CompletableFuture.runAsync(() -> lookupBatch(batch, dependenciesByGav), executor))
+                    .toArray(CompletableFuture<?>[]::new);
+            CompletableFuture.allOf(lookups).join();
+        } catch (CompletionException e) {
+            throw ConcurrentLookups.unwrap(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void lookupBatch(List<GAV> batch, Map<GAV, List<CommunityDependency>> dependenciesByGav) {
+        Set<LookupReport> lookupReports = lookupCache.lookup(
+                "reports-gav",
+                null,
+                false,
+                batch,
+                LookupReport.class,
+                LookupReport::getGav,
+                this::lookupGavs);
+        for (LookupReport lookupReport : lookupReports) {
+            List<CommunityDependency> reportDependencies = dependenciesByGav.get(lookupReport.getGav());
+            if (reportDependencies == null) {
+                throw new RuntimeException("Got a report for an artifact that wasn't requested: " + lookupReport);
+            }
+            reportDependencies.forEach(dependency -> fillDaData(dependency, lookupReport));
+        }
+    }
+
+    private List<LookupReport> lookupGavs(Set<GAV> gavs) {
+        List<LookupReport> lookupReports = reportsClient.lookupGav(new LookupGAVsRequest(new ArrayList<>(gavs)));
+        if (lookupReports.size() != gavs.size()) {
+            throw new RuntimeException(
+                    "Expected " + gavs.size() + " reports, got: " + lookupReports.size() + " for " + gavs);
+        }
+        return lookupReports;
+    }
+
+    private static void fillDaData(CommunityDependency dependency, LookupReport lookupReport) {
         String bestMatchVersion = lookupReport.getBestMatchVersion();
         String availableVersions = String.join(",", lookupReport.getAvailableVersions());
 
@@ -72,13 +158,6 @@ public class DADao {
         }
     }
 
-    private LookupReport getSingle(List<LookupReport> lookupReports) {
-        if (lookupReports.size() != 1) {
-            throw new RuntimeException("Expected exactly one report, got: " + lookupReports.size());
-        }
-        return lookupReports.get(0);
-    }
-
     public List<DAListArtifact> getWhitelist() {
         Collection<RestProductGAV> allWhiteArtifacts = listingsClient.getAllWhiteArtifacts();
 
@@ -87,6 +166,14 @@ public class DADao {
 
     private static DADao instance;
 
+    /**
+     * @param bypass if true, the locally cached DA lookup results are ignored and refreshed from DA. Must be set before
+     *        the first {@link #getInstance()}.
+     */
+    public static void setLookupCacheBypass(boolean bypass) {
+        lookupCacheBypass = bypass;
+    }
+
     public static synchronized DADao getInstance() {
         if (instance == null) {
             instance = new DADao(Config.instance().getActiveProfile().getDa());
@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jboss.pnc.bacon.pig.impl.utils.CollectionUtils;
+
+import lombok.Getter;
+
+/**
+ * Computes the dependencies to add to and remove from the build configs, so that they match the dependencies defined
+ * in the build-config.yaml.
+ * <p>
+ * The names of the dependencies are resolved through an index of the build configs, the current dependencies are
+ * given up front, e.g. from a single bulk fetch of the build configs, so that planning doesn't call PNC.
+ */
+class BuildDependencyPlanner {
+
+    private BuildDependencyPlanner() {
+    }
+
+    /**
+     * @param configs build configs, with their ids set
+     * @param currentDependencies ids of the current dependencies, by build config id. A build config that is missing
+     *        has no dependencies.
+     * @return the changes to make, by build config id
+     */
+    static Plan plan(Collection<BuildConfigData> configs, Map<String, Set<String>> currentDependencies) {
+        Map<String, String> idsByName = new HashMap<>();
+        for (BuildConfigData config : configs) {
+            idsByName.put(config.getName(), config.getId());
+        }
+
+        Plan plan = new Plan();
+        for (BuildConfigData config : configs) {
+            Set<String> dependencies = new TreeSet<>();
+            for (String name : config.getDependencies()) {
+                String dependencyId = idsByName.get(name);
+                if (dependencyId == null) {
+                    throw new RuntimeException(
+                            "Build config name " + name
+                                    + " used to reference a dependency but no such build config defined");
+                }
+                dependencies.add(dependencyId);
+            }
+            Set<String> current = currentDependencies.getOrDefault(config.getId(), Collections.emptySet());
+
+            Set<String> superfluous = CollectionUtils.subtractSet(current, dependencies);
+            Set<String> missing = CollectionUtils.subtractSet(dependencies, current);
+            if (!superfluous.isEmpty() || !missing.isEmpty()) {
+                plan.changes.put(config.getId(), new Changes(new TreeSet<>(missing), new TreeSet<>(superfluous)));
+            }
+        }
+        return plan;
+    }
+
+    @Getter
+    static class Plan {
+        private final Map<String, Changes> changes = new LinkedHashMap<>();
+
+        int getAdditionCount() {
+            return changes.values().stream().mapToInt(c -> c.getAdded().size()).sum();
+        }
+
+        int getRemovalCount() {
+            return changes.values().stream().mapToInt(c -> c.getRemoved().size()).sum();
+        }
+    }
+
+    @Getter
+    static class Changes {
+        private final Set<String> added;
+        private final Set<String> removed;
+
+        private Changes(Set<String> added, Set<String> removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+    }
+}
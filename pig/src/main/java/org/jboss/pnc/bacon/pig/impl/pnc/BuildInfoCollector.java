@@ -19,26 +19,34 @@
 package org.jboss.pnc.bacon.pig.impl.pnc;
 
 import static java.util.Optional.of;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.unwrap;
 import static org.jboss.pnc.bacon.pig.impl.utils.PncClientUtils.query;
 import static org.jboss.pnc.bacon.pig.impl.utils.PncClientUtils.toList;
 
 import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
 
 import org.jboss.pnc.bacon.auth.client.PncClientHelper;
+import org.jboss.pnc.bacon.common.ClientPool;
 import org.jboss.pnc.bacon.pig.impl.config.GroupBuildInfo;
 import org.jboss.pnc.client.BuildClient;
 import org.jboss.pnc.client.BuildConfigurationClient;
 import org.jboss.pnc.client.ClientException;
 import org.jboss.pnc.client.GroupBuildClient;
 import org.jboss.pnc.client.GroupConfigurationClient;
-import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.Artifact;
 import org.jboss.pnc.dto.Build;
@@ -49,6 +57,7 @@ import org.jboss.pnc.enums.BuildStatus;
 import org.jboss.pnc.rest.api.parameters.BuildsFilterParameters;
 import org.jboss.pnc.rest.api.parameters.GroupBuildsFilterParameters;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -57,22 +66,69 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class BuildInfoCollector implements Closeable {
+    private static final int DEFAULT_CONCURRENCY = 8;
+
+    private static int concurrency = DEFAULT_CONCURRENCY;
+
     private final BuildClient anonymousBuildClient;
     private final BuildConfigurationClient anonymousBuildConfigClient;
     private final GroupBuildClient anonymousGroupBuildClient;
     private final GroupConfigurationClient anonymousGroupConfigurationClient;
 
+    /**
+     * Clients used by the concurrent requests. A client is used by one request at a time, so that the connections of
+     * the clients are never shared between threads.
+     */
+    private final ClientPool<BuildClients> buildClients = new ClientPool<>(
+            () -> new BuildClients(
+                    new BuildClient(PncClientHelper.getPncConfiguration(false)),
+                    new BuildConfigurationClient(PncClientHelper.getPncConfiguration(false))),
+            BuildClients::close);
+
+    private final PncCallStats callStats = new PncCallStats();
+
+    private DependencyArtifactCollector dependencyArtifactCollector;
+
+    /**
+     * Set the maximum number of builds collected concurrently from PNC
+     *
+     * @param concurrency maximum number of concurrent requests
+     */
+    public static void setConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            log.warn("PNC concurrency has to be a positive integer. Setting to {}", DEFAULT_CONCURRENCY);
+            concurrency = DEFAULT_CONCURRENCY;
+        }
+        BuildInfoCollector.concurrency = concurrency;
+    }
+
     public void addDependencies(PncBuild bd, String filter) {
-        try {
-            List<Artifact> artifacts = toList(
-                    anonymousBuildClient.getDependencyArtifacts(bd.getId(), Optional.empty(), Optional.of(filter)));
-            bd.addDependencyArtifacts(artifacts);
-        } catch (RemoteResourceException e) {
-            throw new RuntimeException("Failed to get dependency artifacts for " + bd.getId(), e);
+        addDependencies(List.of(bd), filter);
+    }
+
+    /**
+     * Get the dependency artifacts of all the builds in one pass. The artifacts are shared between the builds and
+     * between the calls.
+     *
+     * @param builds builds to get the dependency artifacts for
+     * @param filter RSQL query the dependency artifacts have to match
+     */
+    public void addDependencies(Collection<PncBuild> builds, String filter) {
+        getDependencyArtifactCollector().collect(builds, filter);
+    }
+
+    private synchronized DependencyArtifactCollector getDependencyArtifactCollector() {
+        if (dependencyArtifactCollector == null) {
+            dependencyArtifactCollector = new DependencyArtifactCollector(concurrency);
         }
+        return dependencyArtifactCollector;
     }
 
     public PncBuild getLatestBuild(String configId, BuildSearchType searchType) {
+        return getLatestBuild(new BuildClients(anonymousBuildClient, anonymousBuildConfigClient), configId, searchType);
+    }
+
+    private PncBuild getLatestBuild(BuildClients clients, String configId, BuildSearchType searchType) {
         try {
             BuildsFilterParameters filter = new BuildsFilterParameters();
 
@@ -94,9 +150,11 @@ public class BuildInfoCollector implements Closeable {
             }
 
             // Note: sort by id not allowed
-            Iterator<Build> buildIterator = anonymousBuildConfigClient
-                    .getBuilds(configId, filter, of("=desc=submitTime"), queryParam)
-                    .iterator();
+            Iterator<Build> buildIterator = callStats.time(
+                    "getBuildsOfBuildConfig",
+                    () -> clients.getBuildConfigClient()
+                            .getBuilds(configId, filter, of("=desc=submitTime"), queryParam)
+                            .iterator());
 
             if (!buildIterator.hasNext()) {
                 throw new NoSuccessfulBuildException(configId);
@@ -105,7 +163,7 @@ public class BuildInfoCollector implements Closeable {
             Build build = buildIterator.next();
 
             PncBuild result = new PncBuild(build);
-            result.addBuiltArtifacts(toList(anonymousBuildClient.getBuiltArtifacts(build.getId())));
+            result.addBuiltArtifacts(getBuiltArtifacts(clients, build.getId()));
             return result;
         } catch (ClientException e) {
             throw new RuntimeException("Failed to get latest successful build for " + configId, e);
@@ -129,38 +187,43 @@ public class BuildInfoCollector implements Closeable {
      */
     public GroupBuildInfo getBuildsFromLatestGroupConfiguration(String groupConfigurationId, boolean temporaryBuild) {
         try {
-            RemoteCollection<BuildConfiguration> configs = anonymousGroupConfigurationClient
-                    .getBuildConfigs(groupConfigurationId);
+            List<BuildConfiguration> configList = callStats.time(
+                    "getBuildConfigsOfGroupConfig",
+                    () -> toList(anonymousGroupConfigurationClient.getBuildConfigs(groupConfigurationId)));
+            BuildSearchType searchType = temporaryBuild ? BuildSearchType.ANY : BuildSearchType.PERMANENT;
+            List<PncBuild> latestBuilds = collectConcurrently(
+                    configList,
+                    (clients, config) -> getLatestBuild(clients, config.getId(), searchType));
 
             Map<String, PncBuild> builds = new HashMap<>();
-            for (BuildConfiguration config : configs) {
-                PncBuild build = getLatestBuild(
-                        config.getId(),
-                        temporaryBuild ? BuildSearchType.ANY : BuildSearchType.PERMANENT);
-
-                builds.put(config.getName(), build);
+            for (int i = 0; i < configList.size(); i++) {
+                builds.put(configList.get(i).getName(), latestBuilds.get(i));
             }
 
             // TODO: builds should be enough, getting latest build group to satisfy the current API
             return new GroupBuildInfo(getLatestGroupBuild(groupConfigurationId, temporaryBuild), builds);
-        } catch (RemoteResourceException e) {
+        } catch (ClientException e) {
             throw new RuntimeException(
                     "Cannot get list of group builds for group configuration " + groupConfigurationId);
+        } finally {
+            callStats.logSummary("group configuration " + groupConfigurationId);
         }
     }
 
     private GroupBuild getLatestGroupBuild(String groupConfigurationId, boolean temporaryBuild)
-            throws RemoteResourceException {
+            throws ClientException {
         GroupBuildsFilterParameters groupBuildsFilterParameters = new GroupBuildsFilterParameters();
         groupBuildsFilterParameters.setLatest(true);
         // we have to sort by startTime since group builds with 'NO_REBUILD_REQUIRED' don't have the endTime set
-        Collection<GroupBuild> groupBuilds = anonymousGroupConfigurationClient
-                .getAllGroupBuilds(
-                        groupConfigurationId,
-                        groupBuildsFilterParameters,
-                        of("=desc=startTime"),
-                        query("temporaryBuild==%s", temporaryBuild))
-                .getAll();
+        Collection<GroupBuild> groupBuilds = callStats.time(
+                "getGroupBuildsOfGroupConfig",
+                () -> anonymousGroupConfigurationClient
+                        .getAllGroupBuilds(
+                                groupConfigurationId,
+                                groupBuildsFilterParameters,
+                                of("=desc=startTime"),
+                                query("temporaryBuild==%s", temporaryBuild))
+                        .getAll());
 
         Optional<GroupBuild> latest = groupBuilds.stream().filter(gb -> gb.getStatus().isFinal()).findFirst();
         if (latest.isPresent()) {
@@ -189,25 +252,77 @@ public class BuildInfoCollector implements Closeable {
         filter.setRunning(false);
 
         try {
-            Collection<Build> builds = anonymousGroupBuildClient.getBuilds(groupBuild.getId(), filter).getAll();
-
-            for (Build build : builds) {
-                PncBuild pncBuild;
+            Collection<Build> builds = callStats.time(
+                    "getBuildsOfGroupBuild",
+                    () -> anonymousGroupBuildClient.getBuilds(groupBuild.getId(), filter).getAll());
 
-                if (build.getStatus() == BuildStatus.NO_REBUILD_REQUIRED) {
-                    BuildRef buildRef = build.getNoRebuildCause();
-                    Build realBuild = anonymousBuildClient.getSpecific(buildRef.getId());
-                    pncBuild = new PncBuild(realBuild);
-                } else {
-                    pncBuild = new PncBuild(build);
-                }
-
-                pncBuild.addBuiltArtifacts(toList(anonymousBuildClient.getBuiltArtifacts(pncBuild.getId())));
+            for (PncBuild pncBuild : collectConcurrently(builds, this::getBuildWithArtifacts)) {
                 result.put(pncBuild.getName(), pncBuild);
             }
             return new GroupBuildInfo(groupBuild, result);
-        } catch (RemoteResourceException e) {
+        } catch (ClientException e) {
             throw new RuntimeException("Failed to get group build info for " + groupBuild.getId(), e);
+        } finally {
+            callStats.logSummary("group build " + groupBuild.getId());
+        }
+    }
+
+    private PncBuild getBuildWithArtifacts(BuildClients clients, Build build) {
+        try {
+            PncBuild pncBuild;
+
+            if (build.getStatus() == BuildStatus.NO_REBUILD_REQUIRED) {
+                BuildRef buildRef = build.getNoRebuildCause();
+                Build realBuild = callStats
+                        .time("getBuild", () -> clients.getBuildClient().getSpecific(buildRef.getId()));
+                pncBuild = new PncBuild(realBuild);
+            } else {
+                pncBuild = new PncBuild(build);
+            }
+
+            pncBuild.addBuiltArtifacts(getBuiltArtifacts(clients, pncBuild.getId()));
+            return pncBuild;
+        } catch (ClientException e) {
+            throw new RuntimeException("Failed to get build info for " + build.getId(), e);
+        }
+    }
+
+    private List<Artifact> getBuiltArtifacts(BuildClients clients, String buildId) throws ClientException {
+        return callStats.time("getBuiltArtifacts", () -> toList(clients.getBuildClient().getBuiltArtifacts(buildId)));
+    }
+
+    /**
+     * Run the function for each of the items, with at most {@link #concurrency} of them in flight. Every running
+     * function gets its own set of clients.
+     *
+     * @return results of the function, in the order of the items
+     */
+    private <T> List<PncBuild> collectConcurrently(
+            Collection<T> items,
+            BiFunction<BuildClients, T, PncBuild> function) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, items.size()));
+        try {
+            List<CompletableFuture<PncBuild>> futures = new ArrayList<>();
+            for (T item : items) {
+                futures.add(
+                        CompletableFuture.supplyAsync(
+                                () -> buildClients.withClient(clients -> function.apply(clients, item)),
+                                executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+            List<PncBuild> results = new ArrayList<>();
+            for (CompletableFuture<PncBuild> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
@@ -230,6 +345,21 @@ public class BuildInfoCollector implements Closeable {
         anonymousBuildConfigClient.close();
         anonymousGroupBuildClient.close();
         anonymousGroupConfigurationClient.close();
+        buildClients.close();
+        if (dependencyArtifactCollector != null) {
+            dependencyArtifactCollector.close();
+        }
+    }
+
+    @Value
+    private static class BuildClients {
+        BuildClient buildClient;
+        BuildConfigurationClient buildConfigClient;
+
+        private void close() {
+            buildClient.close();
+            buildConfigClient.close();
+        }
     }
 
     /**
@@ -0,0 +1,199 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.unwrap;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jboss.pnc.bacon.auth.client.PncClientHelper;
+import org.jboss.pnc.bacon.common.ClientPool;
+import org.jboss.pnc.client.BuildClient;
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.rest.api.parameters.PageParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the dependency artifacts of several builds at once.
+ * <p>
+ * The pages of the dependency artifacts of all the builds are fetched concurrently, with at most {@code concurrency}
+ * requests in flight. Builds of a group share most of their dependencies, so every artifact is wrapped only once and
+ * kept in a map shared by all the builds: the dependency artifacts of the builds reference the entries of the map.
+ */
+public class DependencyArtifactCollector implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(DependencyArtifactCollector.class);
+
+    static final int PAGE_SIZE = 200;
+
+    private final int concurrency;
+    private final PageFetcher pageFetcher;
+
+    /**
+     * Dependency artifacts of all the collected builds, by artifact id
+     */
+    private final Map<String, ArtifactWrapper> artifactsById = new ConcurrentHashMap<>();
+
+    public DependencyArtifactCollector(int concurrency) {
+        this(concurrency, new PncPageFetcher());
+    }
+
+    DependencyArtifactCollector(int concurrency, PageFetcher pageFetcher) {
+        this.concurrency = Math.max(1, concurrency);
+        this.pageFetcher = pageFetcher;
+    }
+
+    /**
+     * Fetch the dependency artifacts of the builds and set them as the dependency artifacts of each of the builds
+     *
+     * @param builds builds to collect the dependencies for
+     * @param filter RSQL query the dependency artifacts have to match
+     */
+    public void collect(Collection<PncBuild> builds, String filter) {
+        if (builds.isEmpty()) {
+            return;
+        }
+        int sharedBefore = artifactsById.size();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            Map<PncBuild, CompletableFuture<List<ArtifactWrapper>>> futures = new LinkedHashMap<>();
+            for (PncBuild build : builds) {
+                futures.put(build, collect(build.getId(), filter, executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+            futures.forEach((build, future) -> build.setDependencyArtifacts(future.join()));
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        log.debug(
+                "Collected dependencies of {} builds, {} new distinct artifacts",
+                builds.size(),
+                artifactsById.size() - sharedBefore);
+    }
+
+    /**
+     * @return number of distinct dependency artifacts collected so far
+     */
+    public int size() {
+        return artifactsById.size();
+    }
+
+    private CompletableFuture<List<ArtifactWrapper>> collect(String buildId, String filter, ExecutorService executor) {
+        return fetchPage(buildId, filter, 0, executor).thenCompose(firstPage -> {
+            List<CompletableFuture<Page<Artifact>>> pages = new ArrayList<>();
+            pages.add(CompletableFuture.completedFuture(firstPage));
+            for (int pageIndex = 1; pageIndex < firstPage.getTotalPages(); pageIndex++) {
+                pages.add(fetchPage(buildId, filter, pageIndex, executor));
+            }
+            return CompletableFuture.allOf(pages.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+                List<ArtifactWrapper> artifacts = new ArrayList<>();
+                for (CompletableFuture<Page<Artifact>> page : pages) {
+                    for (Artifact artifact : page.join().getContent()) {
+                        artifacts.add(
+                                artifactsById.computeIfAbsent(artifact.getId(), id -> new ArtifactWrapper(artifact)));
+                    }
+                }
+                return artifacts;
+            });
+        });
+    }
+
+    private CompletableFuture<Page<Artifact>> fetchPage(
+            String buildId,
+            String filter,
+            int pageIndex,
+            ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return pageFetcher.getPage(buildId, filter, pageIndex, PAGE_SIZE);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Failed to get dependency artifacts for " + buildId, e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        artifactsById.clear();
+        pageFetcher.close();
+    }
+
+    /**
+     * Fetches a single page of the dependency artifacts of a build
+     */
+    interface PageFetcher extends Closeable {
+        Page<Artifact> getPage(String buildId, String filter, int pageIndex, int pageSize);
+
+        @Override
+        default void close() {
+        }
+    }
+
+    /**
+     * Fetches the pages from PNC. A client is used by one request at a time, so that the connections of the clients are
+     * never shared between threads.
+     */
+    private static class PncPageFetcher implements PageFetcher {
+        private final ClientPool<PagedBuildClient> clients = new ClientPool<>(
+                PagedBuildClient::new,
+                BuildClient::close);
+
+        @Override
+        public Page<Artifact> getPage(String buildId, String filter, int pageIndex, int pageSize) {
+            return clients
+                    .withClient(client -> client.getDependencyArtifactsPage(buildId, filter, pageIndex, pageSize));
+        }
+
+        @Override
+        public void close() {
+            clients.close();
+        }
+    }
+
+    /**
+     * Build client giving access to single pages of the dependency artifacts, which the iterating
+     * {@link BuildClient#getDependencyArtifacts(String)} doesn't
+     */
+    private static class PagedBuildClient extends BuildClient {
+        private PagedBuildClient() {
+            super(PncClientHelper.getPncConfiguration(false));
+        }
+
+        private Page<Artifact> getDependencyArtifactsPage(String buildId, String filter, int pageIndex, int pageSize) {
+            PageParameters parameters = new PageParameters();
+            parameters.setPageIndex(pageIndex);
+            parameters.setPageSize(pageSize);
+            parameters.setQ(filter);
+            return getEndpoint().getDependencyArtifacts(buildId, parameters);
+        }
+    }
+}
@@ -23,25 +23,33 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.URIish;
-import org.jboss.pnc.bacon.pig.impl.utils.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * TODO: drop it once https://projects.engineering.redhat.com/browse/NCL-1322 is implemented
+ * <p>
+ * The head of the branch and the tag of the latest build are resolved by listing the remote refs, no objects are
+ * downloaded for that. The commits of the tag are read from a bare mirror of the repository, kept in
+ * {@link #GIT_CACHE_LOCATION} across runs, to which only the missing tags are fetched.
  *
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com <br>
  *         Date: 3/4/19
@@ -49,11 +57,20 @@ import org.slf4j.LoggerFactory;
 public class GitRepoInspector {
 
     private static final Logger log = LoggerFactory.getLogger(GitRepoInspector.class);
-    private static final String GIT_REMOTE_NAME = "prod";
+
+    public static final String GIT_CACHE_LOCATION = System.getProperty("user.home") + File.separator + ".cache"
+            + File.separator + "pnc-bacon" + File.separator + "git-mirrors";
+
+    private static File mirrorsDirectory = new File(GIT_CACHE_LOCATION);
+
+    /**
+     * Checks of build configs sharing a repository use the same mirror, one at a time
+     */
+    private static final Map<String, Object> mirrorLocks = new ConcurrentHashMap<>();
 
     /**
      * Check if branch 'refSpec' is different from the branch used in the last successful build (either temporary or
-     * permanent).
+     * permanent). Safe to call concurrently for different build configs.
      *
      * @param configId
      * @param internalUrl
@@ -72,97 +89,116 @@ public class GitRepoInspector {
                 refSpec,
                 internalUrl,
                 configId);
-        File tempDir = FileUtils.mkTempDir("git");
-        try (Git git = cloneRepo(internalUrl, tempDir)) {
-            Optional<String> latestCommit = headRevision(git, refSpec);
-
-            if (!latestCommit.isPresent()) {
-                log.info(
-                        "Couldn't find the head of revision for {}. We assume that it is a commit id instead",
-                        refSpec);
-                latestCommit = Optional.of(refSpec);
-            }
-
+        try {
             String tagName = getLatestBuiltTag(configId, temporaryBuild);
-            Set<String> baseCommitPosibilities = getBaseCommitPossibilities(git, tagName);
-
-            return !baseCommitPosibilities.contains(latestCommit.get());
+            return isModifiedBranch(toAnonymous(internalUrl), refSpec, tagName);
         } catch (NoSuccessfulBuildException e) {
             log.info(e.getMessage());
         } catch (Exception e) {
             log.warn("Failed trying to check if branch is modified", e);
-        } finally {
-            try {
-                org.apache.commons.io.FileUtils.deleteDirectory(tempDir);
-            } catch (IOException e) {
-                // not important enough to log
-            }
         }
         return false;
     }
 
-    private static Git cloneRepo(String internalUrl, File targetDir) throws GitAPIException, IOException {
-        log.debug("Cloning repository {} into {}", internalUrl, targetDir);
+    static boolean isModifiedBranch(URIish url, String refSpec, String tagName) throws GitAPIException, IOException {
+        synchronized (mirrorLocks.computeIfAbsent(url.toString(), k -> new Object())) {
+            try (Git git = openMirror(url)) {
+                Map<String, Ref> remoteRefs = git.lsRemote()
+                        .setRemote(url.toString())
+                        .setHeads(true)
+                        .setTags(true)
+                        .callAsMap();
+
+                Optional<ObjectId> head = findCommit(remoteRefs, refSpec);
+                String latestCommit;
+                if (head.isPresent()) {
+                    latestCommit = head.get().getName();
+                } else {
+                    log.info(
+                            "Couldn't find the head of revision for {}. We assume that it is a commit id instead",
+                            refSpec);
+                    latestCommit = refSpec;
+                }
 
-        Git git = Git.init().setDirectory(targetDir).call();
+                Optional<ObjectId> tagCommit = findCommit(remoteRefs, Constants.R_TAGS + tagName);
+                if (tagCommit.isPresent() && tagCommit.get().getName().equals(latestCommit)) {
+                    return false;
+                }
+                Set<String> baseCommitPosibilities = getBaseCommitPossibilities(git, url, tagName, tagCommit);
 
-        try (Repository repository = git.getRepository()) {
-            StoredConfig config = repository.getConfig();
-            config.setBoolean("http", null, "sslVerify", false);
-            config.save();
+                return !baseCommitPosibilities.contains(latestCommit);
+            }
         }
+    }
 
-        git.remoteAdd().setName(GIT_REMOTE_NAME).setUri(toAnonymous(internalUrl)).call();
+    /**
+     * Open the mirror of the repository, creating it if it doesn't exist yet
+     */
+    private static Git openMirror(URIish url) throws GitAPIException, IOException {
+        File mirrorDir = new File(mirrorsDirectory, DigestUtils.sha1Hex(url.toString()));
+        if (new File(mirrorDir, Constants.HEAD).exists()) {
+            log.debug("Using the mirror of {} in {}", url, mirrorDir);
+            return Git.open(mirrorDir);
+        }
+        log.debug("Creating a mirror of {} in {}", url, mirrorDir);
+        Git git = Git.init().setBare(true).setDirectory(mirrorDir).call();
 
-        git.fetch().setRemote(GIT_REMOTE_NAME).setTagOpt(TagOpt.FETCH_TAGS).call();
+        StoredConfig config = git.getRepository().getConfig();
+        config.setBoolean("http", null, "sslVerify", false);
+        config.save();
         return git;
     }
 
-    private static Optional<String> headRevision(Git git, String branch) throws GitAPIException, IOException {
-
-        try (Repository repository = git.getRepository()) {
-
-            Optional<Ref> ref = getRef(branch, repository);
-            if (ref.isPresent()) {
-                ObjectId id = ref.get().getPeeledObjectId();
-                if (id == null) {
-                    id = ref.get().getObjectId();
-                }
-                Iterable<RevCommit> commits = git.log().add(id).call();
-                return Optional.of(commits.iterator().next().getName());
-            } else {
-                return Optional.empty();
+    /**
+     * @return the commit the ref points to, annotated tags are peeled
+     */
+    private static Optional<ObjectId> findCommit(Map<String, Ref> remoteRefs, String reference) {
+        for (String name : new String[] { Constants.R_HEADS + reference, Constants.R_TAGS + reference, reference }) {
+            Ref ref = remoteRefs.get(name);
+            if (ref != null) {
+                ObjectId id = ref.getPeeledObjectId();
+                return Optional.of(id != null ? id : ref.getObjectId());
             }
         }
+        return Optional.empty();
     }
 
     /**
      * TODO: smarter check is required, here if a repour tag is on an "upstream" commit TODO: we may miss modifications
      * (because we return here the tag commit and its parent)
      */
-    private static Set<String> getBaseCommitPossibilities(Git git, String tagName) throws GitAPIException, IOException {
+    private static Set<String> getBaseCommitPossibilities(
+            Git git,
+            URIish url,
+            String tagName,
+            Optional<ObjectId> tagCommit) throws GitAPIException, IOException {
         log.debug("Getting base commit possibilities for tag: {}", tagName);
-        Set<String> result = new HashSet<>();
-
-        try (Repository repository = git.getRepository()) {
-            Optional<Ref> ref = getRef(tagName, repository);
 
-            if (ref.isPresent()) {
-                ObjectId id = ref.get().getPeeledObjectId() != null ? ref.get().getPeeledObjectId()
-                        : ref.get().getObjectId();
+        if (!tagCommit.isPresent()) {
+            log.warn("Couldn't find the tag '{}' in the repository", tagName);
+            return Collections.emptySet();
+        }
 
-                Iterator<RevCommit> log = git.log().add(id).call().iterator();
+        Repository repository = git.getRepository();
+        if (!repository.getObjectDatabase().has(tagCommit.get())) {
+            log.debug("Fetching tag {} from {}", tagName, url);
+            String tagRef = Constants.R_TAGS + tagName;
+            git.fetch()
+                    .setRemote(url.toString())
+                    .setRefSpecs(new RefSpec("+" + tagRef + ":" + tagRef))
+                    .setTagOpt(TagOpt.NO_TAGS)
+                    .call();
+        }
 
-                result.add(log.next().getName());
-                if (log.hasNext()) {
-                    result.add(log.next().getName());
-                }
-                return result;
-            } else {
-                log.warn("Couldn't find the tag '{}' in the repository", tagName);
-                return Collections.emptySet();
+        Set<String> result = new HashSet<>();
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit commit = walk.parseCommit(tagCommit.get());
+            result.add(commit.getName());
+            if (commit.getParentCount() > 0) {
+                result.add(commit.getParent(0).getName());
             }
         }
+        return result;
     }
 
     private static String getLatestBuiltTag(String configId, boolean temporaryBuild) {
@@ -186,21 +222,10 @@ public class GitRepoInspector {
     }
 
     /**
-     * Use this helper method to find the ref since we need to specify the GIT remote name to find it
-     *
-     * @param reference reference to find
-     * @param repository Repository
-     * @return Optional<Ref>: if not found it is empty
-     * @throws IOException
+     * Use another directory for the mirrors, e.g. in tests
      */
-    private static Optional<Ref> getRef(String reference, Repository repository) throws IOException {
-
-        Ref ref = repository.findRef(GIT_REMOTE_NAME + "/" + reference);
-
-        if (ref == null) {
-            ref = repository.findRef(reference);
-        }
-        return Optional.ofNullable(ref);
+    static void setMirrorsDirectory(File directory) {
+        mirrorsDirectory = directory;
     }
 
     private GitRepoInspector() {
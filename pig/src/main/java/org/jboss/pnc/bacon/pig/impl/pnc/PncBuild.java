@@ -77,6 +77,9 @@ public class PncBuild {
     @JsonIgnore
     private List<String> buildLog;
     private List<ArtifactWrapper> builtArtifacts;
+    /**
+     * When collected by {@link DependencyArtifactCollector}, the wrappers are shared with the other builds of the group
+     */
     private List<ArtifactWrapper> dependencyArtifacts;
 
     @Deprecated // only for jackson
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.pnc.client.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency of the calls made to PNC, aggregated by endpoint
+ */
+public class PncCallStats {
+    private static final Logger log = LoggerFactory.getLogger(PncCallStats.class);
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Make a call to PNC and record how long it took
+     *
+     * @param endpoint name under which the call is recorded
+     * @param call the call to make
+     * @return result of the call
+     * @throws ClientException if the call failed, the latency of failed calls is recorded too
+     */
+    public <T> T time(String endpoint, PncCall<T> call) throws ClientException {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            stats.computeIfAbsent(endpoint, k -> new EndpointStats()).record(elapsed);
+            log.trace("{} took {} ms", endpoint, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    public long getCount(String endpoint) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        return endpointStats == null ? 0 : endpointStats.count.get();
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        new TreeMap<>(stats).forEach((endpoint, endpointStats) -> {
+            long count = endpointStats.count.get();
+            summary.append(
+                    String.format(
+                            "%n  %s: %d calls, avg %d ms, max %d ms",
+                            endpoint,
+                            count,
+                            TimeUnit.NANOSECONDS.toMillis(endpointStats.total.get() / Math.max(1, count)),
+                            TimeUnit.NANOSECONDS.toMillis(endpointStats.max.get())));
+        });
+        return summary.toString();
+    }
+
+    public void logSummary(String operation) {
+        if (!stats.isEmpty()) {
+            log.info("PNC call latency for {}:{}", operation, summary());
+        }
+    }
+
+    @FunctionalInterface
+    public interface PncCall<T> {
+        T call() throws ClientException;
+    }
+
+    private static class EndpointStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private void record(long elapsed) {
+            count.incrementAndGet();
+            total.addAndGet(elapsed);
+            max.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+}
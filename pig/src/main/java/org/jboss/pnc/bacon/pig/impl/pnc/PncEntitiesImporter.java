@@ -18,6 +18,10 @@
 package org.jboss.pnc.bacon.pig.impl.pnc;
 
 import static java.util.Optional.empty;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.batches;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.getOrCompute;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.quote;
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.unwrap;
 import static org.jboss.pnc.bacon.pig.impl.utils.PncClientUtils.findByNameQuery;
 import static org.jboss.pnc.bacon.pig.impl.utils.PncClientUtils.maybeSingle;
 import static org.jboss.pnc.bacon.pig.impl.utils.PncClientUtils.query;
@@ -25,22 +29,28 @@ import static org.jboss.pnc.bacon.pig.impl.utils.PncClientUtils.toStream;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.jboss.pnc.bacon.auth.client.PncClientHelper;
+import org.jboss.pnc.bacon.common.ClientPool;
 import org.jboss.pnc.bacon.pig.impl.PigContext;
 import org.jboss.pnc.bacon.pig.impl.config.BuildConfig;
 import org.jboss.pnc.bacon.pig.impl.config.PigConfiguration;
 import org.jboss.pnc.bacon.pig.impl.config.ProductConfig;
 import org.jboss.pnc.bacon.pig.impl.utils.CollectionUtils;
 import org.jboss.pnc.bacon.pig.impl.utils.PncClientUtils;
-import org.jboss.pnc.bacon.pig.impl.utils.SleepUtils;
 import org.jboss.pnc.client.BuildConfigurationClient;
 import org.jboss.pnc.client.ClientException;
 import org.jboss.pnc.client.EnvironmentClient;
@@ -52,7 +62,6 @@ import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.constants.Attributes;
 import org.jboss.pnc.dto.BuildConfiguration;
-import org.jboss.pnc.dto.BuildConfigurationRef;
 import org.jboss.pnc.dto.Environment;
 import org.jboss.pnc.dto.GroupConfiguration;
 import org.jboss.pnc.dto.Product;
@@ -70,6 +79,8 @@ import org.jboss.pnc.restclient.AdvancedSCMRepositoryClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lombok.Value;
+
 /**
  * @author Michal Szynkiewicz, michal.l.szynkiewicz@gmail.com <br>
  *         Date: 11/28/17
@@ -77,11 +88,13 @@ import org.slf4j.LoggerFactory;
 public class PncEntitiesImporter implements Closeable {
     private static final Logger log = LoggerFactory.getLogger(PncEntitiesImporter.class);
 
+    private static final int DEFAULT_CONCURRENCY = 8;
+
+    private static int concurrency = DEFAULT_CONCURRENCY;
+
     private final BuildConfigurationClient buildConfigClient;
     private final GroupConfigurationClient groupConfigClient;
     private final ProductClient productClient;
-    private final ProjectClient projectClient;
-    private final AdvancedSCMRepositoryClient repoClient;
     private final ProductVersionClient versionClient;
     private final EnvironmentClient environmentClient;
 
@@ -90,19 +103,66 @@ public class PncEntitiesImporter implements Closeable {
     private ProductMilestone milestone;
     private GroupConfiguration buildGroup;
     private List<BuildConfigData> configs;
-    private final PigConfiguration pigConfiguration = PigContext.get().getPigConfiguration();
+    private final PigConfiguration pigConfiguration;
 
     private final PncConfigurator pncConfigurator;
 
+    /**
+     * Clients used by the concurrent import of build configs, the clients are not thread safe
+     */
+    private final ClientPool<ImportClients> importClients;
+
+    /**
+     * Projects and SCM repositories shared by build configs are looked up, or created, only once
+     */
+    private final Map<String, CompletableFuture<Project>> projectsByName = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<SCMRepository>> repositoriesByUrl = new ConcurrentHashMap<>();
+
     public PncEntitiesImporter() {
-        buildConfigClient = new BuildConfigurationClient(PncClientHelper.getPncConfiguration());
-        groupConfigClient = new GroupConfigurationClient(PncClientHelper.getPncConfiguration());
-        productClient = new ProductClient(PncClientHelper.getPncConfiguration());
-        projectClient = new ProjectClient(PncClientHelper.getPncConfiguration());
-        repoClient = new AdvancedSCMRepositoryClient(PncClientHelper.getPncConfiguration());
-        versionClient = new ProductVersionClient(PncClientHelper.getPncConfiguration());
-        environmentClient = new EnvironmentClient(PncClientHelper.getPncConfiguration());
-        pncConfigurator = new PncConfigurator();
+        this(
+                PigContext.get().getPigConfiguration(),
+                new BuildConfigurationClient(PncClientHelper.getPncConfiguration()),
+                new GroupConfigurationClient(PncClientHelper.getPncConfiguration()),
+                new ProductClient(PncClientHelper.getPncConfiguration()),
+                new ProductVersionClient(PncClientHelper.getPncConfiguration()),
+                new EnvironmentClient(PncClientHelper.getPncConfiguration()),
+                new PncConfigurator(),
+                () -> new ImportClients(
+                        new BuildConfigurationClient(PncClientHelper.getPncConfiguration()),
+                        new ProjectClient(PncClientHelper.getPncConfiguration()),
+                        new AdvancedSCMRepositoryClient(PncClientHelper.getPncConfiguration())));
+    }
+
+    PncEntitiesImporter(
+            PigConfiguration pigConfiguration,
+            BuildConfigurationClient buildConfigClient,
+            GroupConfigurationClient groupConfigClient,
+            ProductClient productClient,
+            ProductVersionClient versionClient,
+            EnvironmentClient environmentClient,
+            PncConfigurator pncConfigurator,
+            Supplier<ImportClients> importClientsFactory) {
+        this.pigConfiguration = pigConfiguration;
+        this.buildConfigClient = buildConfigClient;
+        this.groupConfigClient = groupConfigClient;
+        this.productClient = productClient;
+        this.versionClient = versionClient;
+        this.environmentClient = environmentClient;
+        this.pncConfigurator = pncConfigurator;
+        this.importClients = new ClientPool<>(importClientsFactory, ImportClients::close);
+    }
+
+    /**
+     * Set the number of build configs compared, created or updated concurrently
+     *
+     * @param concurrency number of build configs imported concurrently
+     */
+    public static void setConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            log.warn("Import concurrency has to be a positive integer. Setting to {}", DEFAULT_CONCURRENCY);
+            concurrency = DEFAULT_CONCURRENCY;
+        }
+        PncEntitiesImporter.concurrency = concurrency;
     }
 
     public ImportResult performImport(boolean skipBranchCheck, boolean temporaryBuild) {
@@ -189,39 +249,105 @@ public class PncEntitiesImporter implements Closeable {
         }
     }
 
+    /**
+     * Add and remove dependencies of the build configs. The current dependencies of all the build configs are fetched
+     * in bulk and the changes are planned up front. The changes of different build configs are then applied
+     * concurrently, the changes of a single build config one after another.
+     */
     private void setUpBuildDependencies() {
-        configs.parallelStream().forEach(this::setUpBuildDependencies);
+        long start = System.currentTimeMillis();
+        Map<String, BuildConfiguration> configsById = getBuildConfigsById(
+                configs.stream().map(BuildConfigData::getId).collect(Collectors.toList()));
+        Map<String, Set<String>> currentDependencies = new HashMap<>();
+        configsById.forEach((id, config) -> currentDependencies.put(id, config.getDependencies().keySet()));
+
+        BuildDependencyPlanner.Plan plan = BuildDependencyPlanner.plan(configs, currentDependencies);
+        Map<String, BuildDependencyPlanner.Changes> changes = plan.getChanges();
+
+        if (!changes.isEmpty()) {
+            PncCallStats callStats = new PncCallStats();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, changes.size()));
+            try {
+                CompletableFuture<?>[] futures = changes.entrySet()
+                        .stream()
+                        .map(
+                                entry -> CompletableFuture.runAsync(
+                                        () -> applyDependencyChanges(
+                                                entry.getKey(),
+                                                entry.getValue(),
+                                                configsById,
+                                                callStats),
+                                        executor))
+                        .toArray(CompletableFuture<?>[]::new);
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            } finally {
+                executor.shutdownNow();
+            }
+            callStats.logSummary("build dependencies");
+        }
+        for (BuildConfigData config : configs) {
+            if (changes.containsKey(config.getId())) {
+                config.setModified(true);
+            }
+        }
+        log.info(
+                "Set up dependencies of {} build configs: {} added, {} removed, {} configs changed in {} ms",
+                configs.size(),
+                plan.getAdditionCount(),
+                plan.getRemovalCount(),
+                changes.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void applyDependencyChanges(
+            String configId,
+            BuildDependencyPlanner.Changes changes,
+            Map<String, BuildConfiguration> configsById,
+            PncCallStats callStats) {
+        importClients.withClient(clients -> {
+            for (String dependencyId : changes.getRemoved()) {
+                removeDependency(clients, callStats, configId, dependencyId);
+            }
+            for (String dependencyId : changes.getAdded()) {
+                addDependency(clients, callStats, configId, configsById.get(dependencyId));
+            }
+            return null;
+        });
     }
 
-    private void setUpBuildDependencies(BuildConfigData config) {
-        String id = config.getId();
-
-        // todo : store build configuration refs in BuildConfigData and use it instead of ids here
-        Set<String> dependencies = config.getDependencies()
-                .stream()
-                .map(this::configByName)
-                .collect(Collectors.toSet());
-        Set<String> currentDependencies = getCurrentDependencies(id);
-
-        Set<String> superfluous = CollectionUtils.subtractSet(currentDependencies, dependencies);
-        if (!superfluous.isEmpty()) {
-            superfluous.forEach(dependencyId -> removeDependency(id, dependencyId));
+    /**
+     * @return the build configs with the ids, by id
+     */
+    private Map<String, BuildConfiguration> getBuildConfigsById(List<String> ids) {
+        Map<String, BuildConfiguration> result = new HashMap<>();
+        for (List<String> batch : batches(ids.stream())) {
+            try {
+                toStream(buildConfigClient.getAll(empty(), query("id=in=(%s)", String.join(",", batch))))
+                        .forEach(config -> result.put(config.getId(), config));
+            } catch (RemoteResourceException e) {
+                throw new RuntimeException("Failed to get build configurations " + batch, e);
+            }
         }
-
-        Set<String> missing = CollectionUtils.subtractSet(dependencies, currentDependencies);
+        Set<String> missing = CollectionUtils.subtractSet(new HashSet<>(ids), result.keySet());
         if (!missing.isEmpty()) {
-            missing.stream().map(this::getBuildConfigFromId).forEach(dependency -> addDependency(id, dependency));
-        }
-
-        if (!superfluous.isEmpty() || !missing.isEmpty()) {
-            config.setModified(true);
+            throw new RuntimeException("Failed to find build configurations " + missing);
         }
+        return result;
     }
 
-    private void addDependency(String configId, BuildConfiguration dependency) {
+    private void addDependency(
+            ImportClients clients,
+            PncCallStats callStats,
+            String configId,
+            BuildConfiguration dependency) {
         try {
-            buildConfigClient.addDependency(configId, dependency);
-        } catch (RemoteResourceException e) {
+            callStats.time("addDependency", () -> {
+                clients.getBuildConfigClient().addDependency(configId, dependency);
+                return null;
+            });
+        } catch (ClientException e) {
             throw new RuntimeException(
                     "Project " + dependency.getProject() + " build " + dependency.getName()
                             + ", Failed to add dependency " + dependency.getId() + " to " + configId,
@@ -229,35 +355,23 @@ public class PncEntitiesImporter implements Closeable {
         }
     }
 
-    private void removeDependency(String buildConfigId, String dependencyId) {
+    private void removeDependency(
+            ImportClients clients,
+            PncCallStats callStats,
+            String buildConfigId,
+            String dependencyId) {
         try {
-            buildConfigClient.removeDependency(buildConfigId, dependencyId);
-        } catch (RemoteResourceException e) {
+            callStats.time("removeDependency", () -> {
+                clients.getBuildConfigClient().removeDependency(buildConfigId, dependencyId);
+                return null;
+            });
+        } catch (ClientException e) {
             throw new RuntimeException(
                     "Failed to remove dependency " + dependencyId + " from config" + buildConfigId,
                     e);
         }
     }
 
-    private Set<String> getCurrentDependencies(String buildConfigId) {
-        try {
-            return toStream(buildConfigClient.getDependencies(buildConfigId)).map(BuildConfigurationRef::getId)
-                    .collect(Collectors.toSet());
-        } catch (RemoteResourceException e) {
-            throw new RuntimeException("Failed to get dependencies for build config " + buildConfigId, e);
-        }
-    }
-
-    private String configByName(String name) {
-        Optional<BuildConfigData> maybeConfig = configs.stream().filter(c -> c.getName().equals(name)).findAny();
-        return maybeConfig
-                .orElseThrow(
-                        () -> new RuntimeException(
-                                "Build config name " + name
-                                        + " used to reference a dependency but no such build config defined"))
-                .getId();
-    }
-
     private void addBuildConfigIdsToGroup() {
         String configIdsAsString = configs.stream()
                 .map(BuildConfigData::getId)
@@ -301,15 +415,7 @@ public class PncEntitiesImporter implements Closeable {
         log.info("Adding/updating build configurations");
         List<BuildConfiguration> currentConfigs = getCurrentBuildConfigs();
         dropConfigsFromInvalidVersion(currentConfigs, pigConfiguration.getBuilds());
-        return updateOrCreate(currentConfigs, pigConfiguration.getBuilds(), skipBranchCheck, temporaryBuild);
-    }
-
-    private Optional<BuildConfiguration> getBuildConfigFromName(String name) {
-        try {
-            return maybeSingle(buildConfigClient.getAll(empty(), findByNameQuery(name)));
-        } catch (RemoteResourceException e) {
-            throw new RuntimeException("Failed to get build configuration " + name, e);
-        }
+        return updateOrCreate(pigConfiguration.getBuilds(), skipBranchCheck, temporaryBuild);
     }
 
     private BuildConfiguration getBuildConfigFromId(String id) {
@@ -320,60 +426,114 @@ public class PncEntitiesImporter implements Closeable {
         }
     }
 
-    private List<BuildConfigData> updateOrCreate(
-            List<BuildConfiguration> currentConfigs,
+    /**
+     * Create the build configs that don't exist yet and update the ones that changed. The existing build configs and
+     * projects are looked up in bulk, then the build configs are compared, created or updated concurrently.
+     *
+     * @return the data of the build configs, in the order of {@code builds}
+     */
+    List<BuildConfigData> updateOrCreate(
             List<BuildConfig> builds,
             boolean skipBranchCheck,
             boolean temporaryBuild) {
-        List<BuildConfigData> buildList = new ArrayList<>();
-        for (BuildConfig bc : builds) {
-            BuildConfigData data = new BuildConfigData(bc);
-            for (BuildConfiguration config : currentConfigs) {
-                if (config.getName().equals(bc.getName())) {
-                    data.setOldConfig(config);
-                    data.setId(config.getId());
-                    if (data.shouldBeUpdated(skipBranchCheck, temporaryBuild)) {
-                        updateBuildConfig(data, config);
-                    }
-                }
+        if (builds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, BuildConfiguration> existingConfigs = getBuildConfigsByName(builds);
+        prefetchProjects(builds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, builds.size()));
+        try {
+            List<CompletableFuture<BuildConfigData>> futures = new ArrayList<>(builds.size());
+            for (BuildConfig bc : builds) {
+                futures.add(
+                        CompletableFuture.supplyAsync(
+                                () -> importClients.withClient(
+                                        clients -> updateOrCreate(
+                                                clients,
+                                                bc,
+                                                existingConfigs.get(bc.getName()),
+                                                skipBranchCheck,
+                                                temporaryBuild)),
+                                executor));
             }
-            // Check if build exists already (globally)
-            // True = Add to BCS and update BC (maybe ask?)
-            Optional<BuildConfiguration> matchedBuildConfig = getBuildConfigFromName(bc.getName());
-            if (matchedBuildConfig.isPresent()) {
-                log.debug("Found matching build config for {}", bc.getName());
-                data.setOldConfig(matchedBuildConfig.get());
-                data.setId(matchedBuildConfig.get().getId());
-                if (data.shouldBeUpdated(skipBranchCheck, temporaryBuild)) {
-                    updateBuildConfig(data, matchedBuildConfig.get());
-                }
-                data.setModified(true);
-            } else {
-                log.debug("No matching build config found in the BCS");
-                // False = Create new project/BC
-                BuildConfiguration createdConfig = createBuildConfig(data.getNewConfig());
-                data.setId(createdConfig.getId());
-                data.setModified(true);
-                log.debug("Didn't find matching build config for {}", bc.getName());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BuildConfigData updateOrCreate(
+            ImportClients clients,
+            BuildConfig bc,
+            BuildConfiguration existing,
+            boolean skipBranchCheck,
+            boolean temporaryBuild) {
+        BuildConfigData data = new BuildConfigData(bc);
+        if (existing != null) {
+            log.debug("Found matching build config for {}", bc.getName());
+            data.setOldConfig(existing);
+            data.setId(existing.getId());
+            if (data.shouldBeUpdated(skipBranchCheck, temporaryBuild)) {
+                updateBuildConfig(clients, data, existing);
             }
-            buildList.add(data);
+        } else {
+            log.debug("Didn't find matching build config for {}, creating it", bc.getName());
+            BuildConfiguration createdConfig = createBuildConfig(clients, data.getNewConfig());
+            data.setId(createdConfig.getId());
         }
-        return buildList;
+        data.setModified(true);
+        return data;
     }
 
-    private BuildConfiguration createBuildConfig(BuildConfig buildConfig) {
-        BuildConfiguration config = generatePncBuildConfig(buildConfig);
+    /**
+     * @return existing build configs with the names of the builds, by name
+     */
+    private Map<String, BuildConfiguration> getBuildConfigsByName(List<BuildConfig> builds) {
+        Map<String, BuildConfiguration> result = new HashMap<>();
+        for (List<String> names : batches(builds.stream().map(BuildConfig::getName))) {
+            try {
+                toStream(buildConfigClient.getAll(empty(), findByNamesQuery(names)))
+                        .forEach(config -> result.put(config.getName(), config));
+            } catch (RemoteResourceException e) {
+                throw new RuntimeException("Failed to get build configurations " + names, e);
+            }
+        }
+        return result;
+    }
+
+    private void prefetchProjects(List<BuildConfig> builds) {
+        importClients.withClient(clients -> {
+            for (List<String> names : batches(builds.stream().map(BuildConfig::getProject))) {
+                try {
+                    toStream(clients.getProjectClient().getAll(empty(), findByNamesQuery(names))).forEach(
+                            project -> projectsByName.putIfAbsent(
+                                    project.getName(),
+                                    CompletableFuture.completedFuture(project)));
+                } catch (RemoteResourceException e) {
+                    throw new RuntimeException("Failed to search for projects " + names, e);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static Optional<String> findByNamesQuery(List<String> names) {
+        return query("name=in=(%s)", quote(names));
+    }
+
+    private BuildConfiguration createBuildConfig(ImportClients clients, BuildConfig buildConfig) {
+        BuildConfiguration config = generatePncBuildConfig(clients, buildConfig, null);
         try {
-            return buildConfigClient.createNew(config);
+            return clients.getBuildConfigClient().createNew(config);
         } catch (ClientException e) {
             throw new RuntimeException("Failed to create build configuration " + config, e);
         }
     }
 
-    private BuildConfiguration generatePncBuildConfig(BuildConfig buildConfig) {
-        return generatePncBuildConfig(buildConfig, null);
-    }
-
     /**
      * @param buildConfig PiG buildconfig to generate
      * @param existing if present, we'll use it as the buildconfig to modify if null: we'll use a fresh buildconfig
@@ -381,10 +541,13 @@ public class PncEntitiesImporter implements Closeable {
      *
      * @return BuildConfiguration generated
      */
-    private BuildConfiguration generatePncBuildConfig(BuildConfig buildConfig, BuildConfiguration existing) {
-        ProjectRef project = getOrGenerateProject(buildConfig.getProject());
+    private BuildConfiguration generatePncBuildConfig(
+            ImportClients clients,
+            BuildConfig buildConfig,
+            BuildConfiguration existing) {
+        ProjectRef project = getOrGenerateProject(clients, buildConfig.getProject());
 
-        SCMRepository repository = getOrGenerateRepository(buildConfig);
+        SCMRepository repository = getOrGenerateRepository(clients, buildConfig);
 
         Environment environment = Environment.builder().id(buildConfig.getEnvironmentId()).build();
 
@@ -408,17 +571,20 @@ public class PncEntitiesImporter implements Closeable {
                 .build();
     }
 
-    private SCMRepository getOrGenerateRepository(BuildConfig buildConfig) {
-        Optional<SCMRepository> existingRepository = getExistingRepository(buildConfig);
-        return existingRepository.orElseGet(() -> createRepository(buildConfig));
+    private SCMRepository getOrGenerateRepository(ImportClients clients, BuildConfig buildConfig) {
+        return getOrCompute(
+                repositoriesByUrl,
+                buildConfig.getScmUrl(),
+                () -> getExistingRepository(clients, buildConfig)
+                        .orElseGet(() -> createRepository(clients, buildConfig)));
     }
 
-    private Optional<SCMRepository> getExistingRepository(BuildConfig buildConfig) {
+    private Optional<SCMRepository> getExistingRepository(ImportClients clients, BuildConfig buildConfig) {
 
         String matchUrl = buildConfig.getScmUrl();
 
         try {
-            List<SCMRepository> foundRepository = toStream(repoClient.getAll(matchUrl, null))
+            List<SCMRepository> foundRepository = toStream(clients.getRepoClient().getAll(matchUrl, null))
                     .collect(Collectors.toList());
             if (foundRepository.isEmpty()) {
                 return Optional.empty();
@@ -433,18 +599,17 @@ public class PncEntitiesImporter implements Closeable {
         }
     }
 
-    private SCMRepository createRepository(BuildConfig buildConfig) {
+    private SCMRepository createRepository(ImportClients clients, BuildConfig buildConfig) {
         String scmUrl = buildConfig.getScmUrl();
         CreateAndSyncSCMRequest createRepoRequest = CreateAndSyncSCMRequest.builder()
                 .preBuildSyncEnabled(true)
                 .scmUrl(scmUrl)
                 .build();
         try {
-            CompletableFuture<AdvancedSCMRepositoryClient.SCMCreationResult> response = repoClient
+            CompletableFuture<AdvancedSCMRepositoryClient.SCMCreationResult> response = clients.getRepoClient()
                     .createNewAndWait(createRepoRequest);
 
             log.info("Waiting for repository creation of '{}'", scmUrl);
-            SleepUtils.waitFor(response::isDone, 10, true);
             AdvancedSCMRepositoryClient.SCMCreationResult result = response.join();
             log.info("{}", result.toString());
 
@@ -458,33 +623,38 @@ public class PncEntitiesImporter implements Closeable {
         }
     }
 
-    private BuildConfiguration updateBuildConfig(BuildConfigData data, BuildConfiguration existing) {
+    private BuildConfiguration updateBuildConfig(
+            ImportClients clients,
+            BuildConfigData data,
+            BuildConfiguration existing) {
         String configId = data.getId();
 
-        BuildConfiguration buildConfiguration = generatePncBuildConfig(data.getNewConfig(), existing);
+        BuildConfiguration buildConfiguration = generatePncBuildConfig(clients, data.getNewConfig(), existing);
 
         try {
-            buildConfigClient.update(configId, buildConfiguration);
-            return buildConfigClient.getSpecific(configId);
+            clients.getBuildConfigClient().update(configId, buildConfiguration);
+            return clients.getBuildConfigClient().getSpecific(configId);
         } catch (ClientException e) {
             throw new RuntimeException("Failed to update build configuration " + configId, e);
         }
     }
 
-    private Project getOrGenerateProject(String projectName) {
-        RemoteCollection<Project> query;
-        try {
-            query = projectClient.getAll(empty(), findByNameQuery(projectName));
-        } catch (RemoteResourceException e) {
-            throw new RuntimeException("Failed to search for project " + projectName, e);
-        }
-        return maybeSingle(query).orElseGet(() -> generateProject(projectName));
+    private Project getOrGenerateProject(ImportClients clients, String projectName) {
+        return getOrCompute(projectsByName, projectName, () -> {
+            RemoteCollection<Project> query;
+            try {
+                query = clients.getProjectClient().getAll(empty(), findByNameQuery(projectName));
+            } catch (RemoteResourceException e) {
+                throw new RuntimeException("Failed to search for project " + projectName, e);
+            }
+            return maybeSingle(query).orElseGet(() -> generateProject(clients, projectName));
+        });
     }
 
-    private Project generateProject(String projectName) {
+    private Project generateProject(ImportClients clients, String projectName) {
         Project project = Project.builder().name(projectName).build();
         try {
-            return projectClient.createNew(project);
+            return clients.getProjectClient().createNew(project);
         } catch (ClientException e) {
             throw new RuntimeException("Failed to create project " + projectName, e);
         }
@@ -670,10 +840,22 @@ public class PncEntitiesImporter implements Closeable {
         buildConfigClient.close();
         groupConfigClient.close();
         productClient.close();
-        projectClient.close();
-        repoClient.close();
         versionClient.close();
         environmentClient.close();
         pncConfigurator.close();
+        importClients.close();
+    }
+
+    @Value
+    static class ImportClients {
+        BuildConfigurationClient buildConfigClient;
+        ProjectClient projectClient;
+        AdvancedSCMRepositoryClient repoClient;
+
+        private void close() {
+            buildConfigClient.close();
+            projectClient.close();
+            repoClient.close();
+        }
     }
 }
@@ -0,0 +1,365 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.impl.repo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Value;
+
+/**
+ * Generates checksum files, e.g. {@code foo.jar.sha1}, next to the files of a Maven repository.
+ * <p>
+ * All the requested checksums of a file are computed in a single pass over the file, read through a reusable direct
+ * buffer. Files are processed on a dedicated executor with a bounded number of threads, so that checksumming doesn't
+ * compete with the common pool and doesn't saturate the disk.
+ * <p>
+ * Generated checksum files get the modification time of the file they were computed for. A non-empty checksum file
+ * that is not older than its file, e.g. generated for it or downloaded after it, is considered current and is not
+ * computed again, see {@link #isCurrent(Path, String)}.
+ * <p>
+ * Files of at least {@link #LARGE_FILE_SIZE} bytes, e.g. distribution zips, are only read by a limited number of
+ * threads at a time across all the engines, so that several of them don't compete for the disk.
+ * <p>
+ * Existing checksum files can be checked against their files with {@link #verify(Collection, String...)}.
+ */
+public class ChecksumEngine implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ChecksumEngine.class);
+
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_LARGE_FILE_CONCURRENCY = 2;
+    static final int BUFFER_SIZE = 1024 * 1024;
+    static final long LARGE_FILE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Supported algorithms, by the extension of their checksum files
+     */
+    private static final Map<String, String> ALGORITHMS = new LinkedHashMap<>();
+    static {
+        ALGORITHMS.put("md5", "MD5");
+        ALGORITHMS.put("sha1", "SHA-1");
+        ALGORITHMS.put("sha256", "SHA-256");
+        ALGORITHMS.put("sha512", "SHA-512");
+    }
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal
+            .withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private static int parallelism = DEFAULT_PARALLELISM;
+
+    static volatile Semaphore largeFiles = new Semaphore(DEFAULT_LARGE_FILE_CONCURRENCY);
+
+    private final ExecutorService executor;
+
+    public ChecksumEngine() {
+        this(parallelism);
+    }
+
+    public ChecksumEngine(int parallelism) {
+        executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Set the number of files checksummed in parallel by the engines created afterwards
+     *
+     * @param parallelism number of threads of an engine
+     */
+    public static void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            log.warn("Checksum parallelism has to be a positive integer. Setting to {}", DEFAULT_PARALLELISM);
+            parallelism = DEFAULT_PARALLELISM;
+        }
+        ChecksumEngine.parallelism = parallelism;
+    }
+
+    /**
+     * Set the number of large files checksummed at the same time, across all the engines
+     *
+     * @param concurrency number of large files read concurrently
+     */
+    public static void setLargeFileConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            log.warn(
+                    "Large file checksum concurrency has to be a positive integer. Setting to {}",
+                    DEFAULT_LARGE_FILE_CONCURRENCY);
+            concurrency = DEFAULT_LARGE_FILE_CONCURRENCY;
+        }
+        largeFiles = new Semaphore(concurrency);
+    }
+
+    /**
+     * Generate the checksum files of the file on the executor of the engine
+     *
+     * @param file file to generate checksums for
+     * @param algs checksum algorithms, any of md5, sha1, sha256 and sha512
+     * @return future completed when the checksum files are written
+     */
+    public CompletableFuture<Void> submit(Path file, String... algs) {
+        return CompletableFuture.runAsync(() -> addCheckSums(file, algs), executor);
+    }
+
+    /**
+     * Generate the checksum files of all the files, in parallel, and wait for them to be written
+     *
+     * @param files files to generate checksums for
+     * @param algs checksum algorithms, any of md5, sha1, sha256 and sha512
+     */
+    public void addCheckSums(Collection<Path> files, String... algs) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(submit(file, algs));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Check the existing checksum files of all the files, in parallel
+     *
+     * @param files files to check the checksum files of
+     * @param algs checksum algorithms, any of md5, sha1, sha256 and sha512
+     * @return checksum files that don't match their files
+     */
+    public List<Mismatch> verify(Collection<Path> files, String... algs) {
+        List<CompletableFuture<List<Mismatch>>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> verifyCheckSums(file, algs), executor));
+        }
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (CompletableFuture<List<Mismatch>> future : futures) {
+            mismatches.addAll(future.join());
+        }
+        return mismatches;
+    }
+
+    /**
+     * Check the existing checksum files of the file, reading the file once. Missing checksum files are not reported.
+     *
+     * @param file file to check the checksum files of
+     * @param algs checksum algorithms, any of md5, sha1, sha256 and sha512
+     * @return checksum files that don't match the file
+     */
+    public static List<Mismatch> verifyCheckSums(Path file, String... algs) {
+        try {
+            Map<String, String> expected = new LinkedHashMap<>();
+            for (String alg : algs) {
+                checkAlgorithm(alg);
+                Path checksumFile = checksumFile(file, alg);
+                if (Files.isRegularFile(checksumFile)) {
+                    expected.put(alg, readChecksum(checksumFile));
+                }
+            }
+            if (expected.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Map<String, String> actual = digest(file, expected.keySet());
+            List<Mismatch> mismatches = new ArrayList<>();
+            for (Map.Entry<String, String> checksum : expected.entrySet()) {
+                String alg = checksum.getKey();
+                if (!checksum.getValue().equals(actual.get(alg))) {
+                    mismatches.add(new Mismatch(file, alg, checksum.getValue(), actual.get(alg)));
+                }
+            }
+            return mismatches;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to verify checksum files of " + file, e);
+        }
+    }
+
+    /**
+     * Reads a checksum file, which may also contain the name of the file after the checksum, as generated by e.g.
+     * {@code md5sum}
+     */
+    private static String readChecksum(Path checksumFile) throws IOException {
+        String content = Files.readString(checksumFile, StandardCharsets.UTF_8).trim();
+        int end = 0;
+        while (end < content.length() && !Character.isWhitespace(content.charAt(end))) {
+            end++;
+        }
+        return content.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Generate the checksum files of the file that aren't current, reading the file once
+     *
+     * @param file file to generate checksums for
+     * @param algs checksum algorithms, any of md5, sha1, sha256 and sha512
+     * @return true if any checksum file was written
+     */
+    public static boolean addCheckSums(Path file, String... algs) {
+        try {
+            FileTime lastModified = Files.getLastModifiedTime(file);
+            List<String> missing = new ArrayList<>(algs.length);
+            for (String alg : algs) {
+                checkAlgorithm(alg);
+                if (!isCurrent(checksumFile(file, alg), lastModified)) {
+                    missing.add(alg);
+                }
+            }
+            if (missing.isEmpty()) {
+                return false;
+            }
+            Map<String, String> checksums = digest(file, missing);
+            for (Map.Entry<String, String> checksum : checksums.entrySet()) {
+                Path checksumFile = checksumFile(file, checksum.getKey());
+                Files.writeString(checksumFile, checksum.getValue(), StandardCharsets.UTF_8);
+                Files.setLastModifiedTime(checksumFile, lastModified);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create checksum files for " + file, e);
+        }
+    }
+
+    /**
+     * Compute the checksums of the file in a single pass, through a fixed size buffer
+     *
+     * @param file file to read
+     * @param algs checksum algorithms, any of md5, sha1, sha256 and sha512
+     * @return hex encoded checksums, by algorithm
+     * @throws IOException if the file can't be read
+     */
+    public static Map<String, String> digest(Path file, Collection<String> algs) throws IOException {
+        Map<String, MessageDigest> digests = new LinkedHashMap<>();
+        for (String alg : algs) {
+            digests.put(alg, newDigest(alg));
+        }
+        Semaphore permits = Files.size(file) >= LARGE_FILE_SIZE ? largeFiles : null;
+        if (permits != null) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to checksum " + file);
+            }
+        }
+        ByteBuffer buffer = BUFFER.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                for (MessageDigest digest : digests.values()) {
+                    buffer.mark();
+                    digest.update(buffer);
+                    buffer.reset();
+                }
+                buffer.clear();
+            }
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+        Map<String, String> checksums = new LinkedHashMap<>();
+        digests.forEach((alg, digest) -> checksums.put(alg, Hex.encodeHexString(digest.digest())));
+        return checksums;
+    }
+
+    public static Path checksumFile(Path file, String alg) {
+        return file.resolveSibling(file.getFileName() + "." + alg);
+    }
+
+    public static boolean isChecksumFile(Path file) {
+        String fileName = file.getFileName().toString();
+        for (String extension : RepoDescriptor.CHECKSUM_EXTENSIONS) {
+            if (fileName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param file file the checksum is for
+     * @param alg checksum algorithm, any of md5, sha1, sha256 and sha512
+     * @return true if the checksum file of the file exists, isn't empty and isn't older than the file
+     * @throws IOException if the modification time of the file can't be read
+     */
+    public static boolean isCurrent(Path file, String alg) throws IOException {
+        return isCurrent(checksumFile(file, alg), Files.getLastModifiedTime(file));
+    }
+
+    private static boolean isCurrent(Path checksumFile, FileTime lastModified) throws IOException {
+        try {
+            return Files.getLastModifiedTime(checksumFile).compareTo(lastModified) >= 0 && Files.size(checksumFile) > 0;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static void checkAlgorithm(String alg) {
+        if (!ALGORITHMS.containsKey(alg)) {
+            throw new IllegalArgumentException("Unexpected checksum type " + alg);
+        }
+    }
+
+    /**
+     * @param alg checksum algorithm, any of md5, sha1, sha256 and sha512
+     * @return a new digest for the algorithm
+     */
+    public static MessageDigest newDigest(String alg) {
+        checkAlgorithm(alg);
+        try {
+            return MessageDigest.getInstance(ALGORITHMS.get(alg));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Checksum algorithm " + alg + " is not available", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A checksum file whose content doesn't match the checksum of its file
+     */
+    @Value
+    public static class Mismatch {
+        Path file;
+        String algorithm;
+        String expected;
+        String actual;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.bacon.pig.impl.repo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches artifact identifiers, e.g. {@code org.foo:bar:jar:1.0}, against exclusion regexes. An identifier is excluded
+ * if any of the regexes is found in it.
+ * <p>
+ * The regexes are compiled once. Unless one of them uses back references, named groups or comments, they are also
+ * combined into a single alternation, so that an identifier is scanned once rather than once per regex.
+ */
+class ExclusionMatcher {
+    /**
+     * Back references, whose group numbers would change, named groups, whose names could clash, the comments flag, with
+     * which a comment could hide the end of the group of the regex, and quotes, which needn't be closed by \E and would
+     * then quote the end of the group
+     */
+    private static final Pattern NOT_COMBINABLE = Pattern
+            .compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]|\\(\\?[a-zA-Z-]*x|\\\\Q");
+
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final Pattern combined;
+
+    ExclusionMatcher(Collection<String> exclusionRegexes) {
+        StringBuilder alternation = new StringBuilder();
+        boolean combinable = true;
+        for (String regex : exclusionRegexes) {
+            patterns.add(Pattern.compile(regex));
+            combinable &= !NOT_COMBINABLE.matcher(regex).find();
+            if (alternation.length() > 0) {
+                alternation.append('|');
+            }
+            alternation.append("(?:").append(regex).append(')');
+        }
+        combined = combinable && patterns.size() > 1 ? combine(alternation.toString()) : null;
+    }
+
+    /**
+     * @return the combined regex, or null to match the regexes one by one if they can't be combined after all
+     */
+    private static Pattern combine(String alternation) {
+        try {
+            return Pattern.compile(alternation);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    boolean matches(String artifactIdentifier) {
+        if (combined != null) {
+            return combined.matcher(artifactIdentifier).find();
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(artifactIdentifier).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param artifactIdentifier artifact identifier
+     * @return the first regex found in the identifier, e.g. to report why an artifact was excluded
+     */
+    Optional<String> findMatchingRegex(String artifactIdentifier) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(artifactIdentifier).find()) {
+                return Optional.of(pattern.pattern());
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -20,6 +20,9 @@ package org.jboss.pnc.bacon.pig.impl.repo;
 import java.io.File;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.jboss.pnc.bacon.pig.impl.utils.FileDownloadUtils;
 import org.jboss.pnc.bacon.pig.impl.utils.GAV;
@@ -47,13 +50,11 @@ public class ExternalArtifactDownloader {
     public static File downloadExternalArtifact(GAV gav, File targetPath, boolean sourcesOptional) {
         targetPath.toPath().getParent().toFile().mkdirs();
 
-        String indyUrl = gav.isTemporary() ? Indy.getIndyTempUrl() : Indy.getIndyUrl();
-
-        URI downloadUrl = URI.create(String.format("%s/%s", indyUrl, gav.toUri()));
+        URI downloadUrl = downloadUrl(gav);
         try {
             FileDownloadUtils.downloadTo(downloadUrl, targetPath);
         } catch (RuntimeException any) {
-            if (sourcesOptional && "sources".equals(gav.getClassifier()) || "javadoc".equals(gav.getClassifier())) {
+            if (isOptional(gav, sourcesOptional)) {
                 log.warn("Unable to download sources for {}: {}", gav, any.getMessage());
             } else {
                 throw any;
@@ -63,6 +64,50 @@ public class ExternalArtifactDownloader {
         return targetPath;
     }
 
+    /**
+     * Download the artifacts concurrently, see {@link FileDownloadUtils#downloadAll(Map)}
+     *
+     * @param gavs artifacts to download
+     * @param targetRepoContents root of the maven repository to download the artifacts to
+     * @param sourcesOptional whether failing to download sources should only be logged
+     */
+    public static void downloadExternalArtifacts(
+            Collection<GAV> gavs,
+            Path targetRepoContents,
+            boolean sourcesOptional) {
+        Map<URI, GAV> gavsByUrl = new LinkedHashMap<>();
+        Map<URI, File> downloads = new LinkedHashMap<>();
+        for (GAV gav : gavs) {
+            URI downloadUrl = downloadUrl(gav);
+            gavsByUrl.put(downloadUrl, gav);
+            downloads.put(downloadUrl, targetPath(gav, targetRepoContents));
+        }
+
+        RuntimeException failure = null;
+        for (Map.Entry<URI, RuntimeException> failed : FileDownloadUtils.tryDownloadAll(downloads).entrySet()) {
+            GAV gav = gavsByUrl.get(failed.getKey());
+            if (isOptional(gav, sourcesOptional)) {
+                log.warn("Unable to download sources for {}: {}", gav, failed.getValue().getMessage());
+            } else if (failure == null) {
+                failure = failed.getValue();
+            } else {
+                failure.addSuppressed(failed.getValue());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static URI downloadUrl(GAV gav) {
+        String indyUrl = gav.isTemporary() ? Indy.getIndyTempUrl() : Indy.getIndyUrl();
+        return URI.create(String.format("%s/%s", indyUrl, gav.toUri()));
+    }
+
+    private static boolean isOptional(GAV gav, boolean sourcesOptional) {
+        return sourcesOptional && "sources".equals(gav.getClassifier()) || "javadoc".equals(gav.getClassifier());
+    }
+
     public static File targetPath(GAV gav, Path targetRepoContents) {
         Path versionPath = targetRepoContents.resolve(gav.toVersionPath());
         return versionPath.resolve(gav.toFileName()).toFile();
@@ -38,7 +38,7 @@ import org.jboss.pnc.bacon.pig.impl.utils.GAV;
  */
 public class RepoDescriptor {
 
-    public static final String[] CHECKSUM_EXTENSIONS = { ".md5", ".sha1" };
+    public static final String[] CHECKSUM_EXTENSIONS = { ".md5", ".sha1", ".sha256", ".sha512" };
     public static final String MAVEN_REPOSITORY = "maven-repository/";
 
     /**
@@ -81,6 +81,7 @@ import org.jboss.pnc.bacon.pig.impl.pnc.PncBuild;
 import org.jboss.pnc.bacon.pig.impl.utils.FileUtils;
 import org.jboss.pnc.bacon.pig.impl.utils.GAV;
 import org.jboss.pnc.bacon.pig.impl.utils.GavSet;
+import org.jboss.pnc.bacon.pig.impl.utils.ParallelZipWriter;
 import org.jboss.pnc.bacon.pig.impl.utils.ResourceUtils;
 import org.jboss.pnc.bacon.pig.impl.utils.indy.Indy;
 import org.slf4j.Logger;
@@ -127,6 +128,18 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
     private static final Path RESOLVE_M2_CACHE = Path
             .of(org.apache.commons.io.FileUtils.getUserDirectoryPath(), ".cache", "bacon", "m2-cache");
 
+    private static boolean verifyChecksums;
+
+    /**
+     * Set whether the existing checksum files of the repository are checked against their files before it's zipped.
+     * Mismatches are reported as warnings.
+     *
+     * @param verifyChecksums true to verify the checksums
+     */
+    public static void setVerifyChecksums(boolean verifyChecksums) {
+        RepoManager.verifyChecksums = verifyChecksums;
+    }
+
     public RepoManager(
             PigConfiguration pigConfiguration,
             String releasePath,
@@ -200,12 +213,20 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
     }
 
     void getRedhatArtifacts(List<ArtifactWrapper> artifactsToPack, PncBuild build) {
-        log.info("Getting all artifacts and dependencies for [{}]", build.getName());
+        getRedhatArtifacts(artifactsToPack, List.of(build));
+    }
+
+    void getRedhatArtifacts(List<ArtifactWrapper> artifactsToPack, Collection<PncBuild> builds) {
+        log.info(
+                "Getting all artifacts and dependencies for {}",
+                builds.stream().map(PncBuild::getName).collect(Collectors.toList()));
         // ⚠ this only selects maven-style identifiers where the version has redhat in it
         // <group-id>:<artifact-id>:<packaging>:<version>
-        buildInfoCollector.addDependencies(build, "identifier=like=%:%:%:%redhat%");
-        artifactsToPack.addAll(build.getBuiltArtifacts());
-        artifactsToPack.addAll(build.getDependencyArtifacts());
+        buildInfoCollector.addDependencies(builds, "identifier=like=%:%:%:%redhat%");
+        for (PncBuild build : builds) {
+            artifactsToPack.addAll(build.getBuiltArtifacts());
+            artifactsToPack.addAll(build.getDependencyArtifacts());
+        }
     }
 
     private File createMavenGenerationDir() {
@@ -249,8 +270,7 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
                     .map(GAV::toJavadocJar)
                     .forEach(gavsToPack::add);
         }
-        gavsToPack.forEach(
-                a -> ExternalArtifactDownloader.downloadExternalArtifact(a, sourceDir.toPath(), !strictDownloadSource));
+        ExternalArtifactDownloader.downloadExternalArtifacts(gavsToPack, sourceDir.toPath(), !strictDownloadSource);
     }
 
     @Deprecated
@@ -270,10 +290,12 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
             throw new RuntimeException("There are no builds captured for the build group. Aborting!");
         }
         List<ArtifactWrapper> artifactsToPack = new ArrayList<>();
-        builds.values()
-                .stream()
-                .filter(b -> !generationData.getExcludeSourceBuilds().contains(b.getName()))
-                .forEach(b -> getRedhatArtifacts(artifactsToPack, b));
+        getRedhatArtifacts(
+                artifactsToPack,
+                builds.values()
+                        .stream()
+                        .filter(b -> !generationData.getExcludeSourceBuilds().contains(b.getName()))
+                        .collect(Collectors.toList()));
         File sourceDir = createMavenGenerationDir();
         filterAndDownload(artifactsToPack, sourceDir);
         return repackage(sourceDir);
@@ -286,10 +308,11 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
         if (generationData.getSourceBuilds().isEmpty()) {
             throw new RuntimeException("There are no build configs defined for maven repository generation. Aborting!");
         }
+        List<PncBuild> sourceBuilds = new ArrayList<>();
         for (String buildConfigName : generationData.getSourceBuilds()) {
-            PncBuild build = getBuild(buildConfigName);
-            getRedhatArtifacts(artifactsToPack, build);
+            sourceBuilds.add(getBuild(buildConfigName));
         }
+        getRedhatArtifacts(artifactsToPack, sourceBuilds);
         File sourceDir = createMavenGenerationDir();
 
         filterAndDownload(artifactsToPack, sourceDir);
@@ -374,15 +397,25 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
         }
 
         RepositoryUtils.addMissingSources(targetRepoContentsDir);
-        RepositoryUtils.addCheckSums(targetRepoContentsDir);
         if (generationData.isIncludeMavenMetadata()) {
             RepositoryUtils.generateMavenMetadata(targetRepoContentsDir);
         }
-        zip(targetTopLevelDirectory, targetZipPath);
+        if (verifyChecksums) {
+            RepositoryUtils.verifyCheckSums(targetRepoContentsDir);
+        }
+        // the missing checksums are computed while the repository is zipped, instead of reading the files once more
+        zipWithChecksums(targetTopLevelDirectory, targetZipPath);
 
         return result(targetTopLevelDirectory, targetZipPath);
     }
 
+    private void zipWithChecksums(File m2Repo, Path repoZipPath) {
+        log.debug("Zipping the repository");
+        new ParallelZipWriter(Runtime.getRuntime().availableProcessors())
+                .withChecksums(targetRepoContentsDir, "md5", "sha1")
+                .zip(repoZipPath.toFile(), m2Repo.getParentFile(), m2Repo);
+    }
+
     private File download() {
         PncBuild build = getBuild(generationData.getSourceBuild());
         File downloadedZip = new File(workDir, "downloaded.zip");
@@ -694,12 +727,14 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
         final File targetTopLevelDirectory = new File(workDir, getTargetTopLevelDirectoryName());
         targetTopLevelDirectory.mkdirs();
 
+        // the lock file refers to the resolved artifacts, which are moved by repackage
+        cachi2LockfileForBom(artifactCollector);
+
         final Path targetZipPath = getTargetZipPath();
         repackage(repoDir, targetTopLevelDirectory);
 
         zip(targetTopLevelDirectory, targetZipPath);
 
-        cachi2LockfileForBom(artifactCollector);
         return result(targetTopLevelDirectory, targetZipPath);
     }
 
@@ -966,21 +1001,30 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
         var resolvedArtifacts = new ArrayList<>(artifactCollector.getResolvedArtifacts());
         var progressTracker = new ArtifactProgressTracker("Finalized ", resolvedArtifacts.size());
         final List<CompletableFuture<?>> all = new ArrayList<>(resolvedArtifacts.size());
-        for (var resolvedArtifact : resolvedArtifacts) {
-            if (resolvedArtifact.isRedHatVersion()) {
-                all.add(finalizeRedHatArtifact(resolver, resolvedArtifact, progressTracker, summary));
-            } else {
-                all.add(finalizeCommunityArtifact(resolvedArtifact, progressTracker));
+        try (ChecksumEngine checksumEngine = new ChecksumEngine()) {
+            for (var resolvedArtifact : resolvedArtifacts) {
+                if (resolvedArtifact.isRedHatVersion()) {
+                    all.add(
+                            finalizeRedHatArtifact(
+                                    resolver,
+                                    resolvedArtifact,
+                                    progressTracker,
+                                    summary,
+                                    checksumEngine));
+                } else {
+                    all.add(finalizeCommunityArtifact(resolvedArtifact, progressTracker));
+                }
             }
+            CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).join();
         }
-        CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).join();
     }
 
     private CompletableFuture<?> finalizeRedHatArtifact(
             MavenArtifactResolver resolver,
             ResolvedGav resolved,
             ArtifactProgressTracker progressTracker,
-            BomRepoGenerationSummary summary) {
+            BomRepoGenerationSummary summary,
+            ChecksumEngine checksumEngine) {
         return CompletableFuture.runAsync(() -> {
             boolean jarResolved = resolved.isFlagSet(ResolvedGav.JAR_RESOLVED);
             var gav = resolved.getGav();
@@ -1045,9 +1089,7 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
             // generate md5 and sha1 checksums
             final List<CompletableFuture<Void>> checksums = new ArrayList<>(resolved.getArtifacts().size());
             for (var a : resolved.getArtifacts()) {
-                checksums.add(CompletableFuture.runAsync(() -> {
-                    RepositoryUtils.addCheckSums(a.getFile().toPath(), "md5", "sha1");
-                }));
+                checksums.add(checksumEngine.submit(a.getFile().toPath(), "md5", "sha1"));
             }
 
             CompletableFuture.allOf(checksums.toArray(new CompletableFuture<?>[0])).join();
@@ -1528,10 +1570,20 @@ public class RepoManager extends DeliverableManager<RepoGenerationData, Reposito
         return result;
     }
 
+    /**
+     * Move the generated repository to the target directory. The generated repository is not needed afterwards, moving
+     * it avoids keeping two copies of the repository on the disk. If it can't be moved, e.g. because it's on another
+     * file system, it's copied.
+     */
     @Override
     protected void repackage(File contentsDirectory, File targetTopLevelDirectory) {
         targetRepoContentsDir = new File(targetTopLevelDirectory, RepoDescriptor.MAVEN_REPOSITORY);
-        FileUtils.copy(contentsDirectory, targetRepoContentsDir);
+        try {
+            Files.move(contentsDirectory.toPath(), targetRepoContentsDir.toPath());
+        } catch (IOException e) {
+            log.debug("Unable to move {}, copying it: {}", contentsDirectory, e.getMessage());
+            FileUtils.copy(contentsDirectory, targetRepoContentsDir);
+        }
         addExtraFiles(targetTopLevelDirectory);
     }
 
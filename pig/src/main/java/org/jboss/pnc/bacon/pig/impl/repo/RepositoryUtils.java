@@ -19,13 +19,9 @@ package org.jboss.pnc.bacon.pig.impl.repo;
 
 import static java.util.Comparator.comparingInt;
 
-import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -43,13 +39,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.Versioning;
@@ -158,13 +154,46 @@ public class RepositoryUtils {
 
     public static void addCheckSums(File mavenRepositoryDirectory) {
         log.debug("Generating missing checksums");
+        List<Path> files = listNonCheckSumFiles(mavenRepositoryDirectory);
+        try (ChecksumEngine checksumEngine = new ChecksumEngine()) {
+            checksumEngine.addCheckSums(files, "md5", "sha1");
+        }
+    }
+
+    /**
+     * Checks the existing md5 and sha1 checksum files of a Maven repository against the files, in parallel. Every
+     * checksum file that doesn't match is reported as a warning.
+     *
+     * @param mavenRepositoryDirectory directory of the repository
+     * @return checksum files that don't match their files
+     */
+    public static List<ChecksumEngine.Mismatch> verifyCheckSums(File mavenRepositoryDirectory) {
+        log.info("Verifying the existing checksums of {}", mavenRepositoryDirectory);
+        List<Path> files = listNonCheckSumFiles(mavenRepositoryDirectory);
+        List<ChecksumEngine.Mismatch> mismatches;
+        try (ChecksumEngine checksumEngine = new ChecksumEngine()) {
+            mismatches = checksumEngine.verify(files, "md5", "sha1");
+        }
+        for (ChecksumEngine.Mismatch mismatch : mismatches) {
+            log.warn(
+                    "The {} checksum of {} is {}, but its checksum file contains {}",
+                    mismatch.getAlgorithm(),
+                    mismatch.getFile(),
+                    mismatch.getActual(),
+                    mismatch.getExpected());
+        }
+        log.info("Verified the checksums of {} files, {} mismatches", files.size(), mismatches.size());
+        return mismatches;
+    }
+
+    private static List<Path> listNonCheckSumFiles(File mavenRepositoryDirectory) {
         try (Stream<Path> stream = Files.walk(mavenRepositoryDirectory.toPath())) {
-            stream.filter(p -> p.toFile().isFile())
+            return stream.filter(Files::isRegularFile)
                     .filter(RepositoryUtils::isNotCheckSumFile)
-                    .forEach(RepositoryUtils::addCheckSums);
+                    .collect(Collectors.toList());
         } catch (IOException e) {
             throw new RuntimeException(
-                    "Unable to generate checksums for " + mavenRepositoryDirectory.getAbsolutePath(),
+                    "Unable to list the files of " + mavenRepositoryDirectory.getAbsolutePath(),
                     e);
         }
     }
@@ -173,75 +202,16 @@ public class RepositoryUtils {
         return Stream.of(RepoDescriptor.CHECKSUM_EXTENSIONS).noneMatch(ext -> path.toString().endsWith(ext));
     }
 
-    protected static void addCheckSums(Path filePath) {
-        generateCheckSum(filePath, "md5sum", ".md5");
-        generateCheckSum(filePath, "sha1sum", ".sha1");
-    }
-
-    private static void generateCheckSum(Path filePath, String checksumType, String extension) {
-        String file = filePath.toAbsolutePath().toString();
-        File checkSumFile = new File(file + extension);
-
-        if (checkSumFile.exists()) {
-            return;
-        }
-
-        try {
-            String checksum;
-
-            try (FileInputStream data = new FileInputStream(file)) {
-                switch (checksumType) {
-                    case "md5sum":
-                        checksum = DigestUtils.md5Hex(data);
-                        break;
-                    case "sha1sum":
-                        checksum = DigestUtils.sha1Hex(data);
-                        break;
-                    default:
-                        throw new IOException("Unknown checksum type: " + checksumType);
-                }
-            }
-
-            FileUtils.write(checkSumFile, checksum, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to create checksum file: " + checkSumFile.getAbsolutePath());
-        }
-    }
-
     /**
-     * Calculates and persists checksums for a file in a local Maven repository. The implementation reads the file once
-     * for all the checksums. The algorithms passed in are currently limited to {@code md5} and {@code sha1}.
+     * Calculates and persists checksums for a file in a local Maven repository. The implementation streams the file
+     * once for all the checksums through a fixed size buffer, and limits how many large files are read at the same
+     * time, see {@link ChecksumEngine}.
      *
      * @param file file to generate checksums for
-     * @param algs checksum algorithms to use, for example md5, sha1.
+     * @param algs checksum algorithms to use: md5, sha1, sha256 or sha512
      */
     public static void addCheckSums(Path file, String... algs) {
-        byte[] content = null;
-        for (var alg : algs) {
-            var checksumFile = file.getParent().resolve(file.getFileName() + "." + alg);
-            if (!Files.exists(checksumFile)) {
-                if (content == null) {
-                    try {
-                        content = Files.readAllBytes(file);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                }
-                final String checksum;
-                if ("md5".equals(alg)) {
-                    checksum = DigestUtils.md5Hex(content);
-                } else if ("sha1".equals(alg)) {
-                    checksum = DigestUtils.sha1Hex(content);
-                } else {
-                    throw new IllegalArgumentException("Unexpected checksum type " + alg);
-                }
-                try (BufferedWriter writer = Files.newBufferedWriter(checksumFile)) {
-                    writer.append(checksum);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            }
-        }
+        ChecksumEngine.addCheckSums(file, algs);
     }
 
     public static void removeIrrelevantFiles(File element) {
@@ -264,27 +234,42 @@ public class RepositoryUtils {
      */
     public static void removeExcludedArtifacts(File element, List<String> excludedArtifacts) {
         log.debug("Removing excluded artifacts from the repository");
-        try (Stream<Path> stream = Files.walk(element.toPath())) {
-            stream.filter(Files::isRegularFile).forEach(path -> {
-                Path subpath = element.toPath().toAbsolutePath().relativize(path.toAbsolutePath());
-                for (String exclusionRegex : excludedArtifacts) {
-                    Pattern matchesRegex = Pattern.compile(exclusionRegex);
-                    var artifactIdentifier = convertArtifactPathToIdentifier(subpath.toString());
-                    if (matchesRegex.matcher(artifactIdentifier).find()) {
-                        log.debug(
-                                "Removing path {} from the repository since the artifact {} matches regex: {}",
-                                path,
-                                artifactIdentifier,
-                                exclusionRegex);
-                        File parent = path.toFile().getParentFile();
-                        path.toFile().delete();
-                        recursivelyDeleteEmptyFolder(parent);
-                    }
-                }
-            });
+        ExclusionMatcher exclusions = new ExclusionMatcher(excludedArtifacts);
+        if (exclusions.isEmpty()) {
+            return;
+        }
+        Path root = element.toPath().toAbsolutePath();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        List<Path> excluded = files.parallelStream().filter(path -> {
+            var artifactIdentifier = convertArtifactPathToIdentifier(root.relativize(path).toString());
+            if (!exclusions.matches(artifactIdentifier)) {
+                return false;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(
+                        "Removing path {} from the repository since the artifact {} matches regex: {}",
+                        path,
+                        artifactIdentifier,
+                        exclusions.findMatchingRegex(artifactIdentifier).orElse(null));
+            }
+            return true;
+        }).collect(Collectors.toList());
+
+        // the parents are cleaned up once all the files are deleted, the deepest first
+        Set<File> parents = new TreeSet<>(
+                comparingInt((File dir) -> dir.getPath().length()).reversed().thenComparing(File::getPath));
+        for (Path path : excluded) {
+            path.toFile().delete();
+            parents.add(path.toFile().getParentFile());
+        }
+        parents.forEach(RepositoryUtils::recursivelyDeleteEmptyFolder);
+        log.debug("Removed {} excluded files out of {}", excluded.size(), files.size());
     }
 
     /**
@@ -0,0 +1,210 @@
+package org.jboss.pnc.bacon.pig.impl.sources;
+
+import static org.jboss.pnc.bacon.common.ConcurrentLookups.unwrap;
+import static org.jboss.pnc.common.scm.ScmUrlGeneratorProvider.determineScmProvider;
+import static org.jboss.pnc.common.scm.ScmUrlGeneratorProvider.getScmUrlGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.jboss.pnc.bacon.config.Config;
+import org.jboss.pnc.bacon.pig.impl.pnc.PncBuild;
+import org.jboss.pnc.bacon.pig.impl.utils.FileUtils;
+import org.jboss.pnc.common.scm.ScmException;
+import org.jboss.resteasy.util.HttpResponseCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downloads the SCM tarballs of builds and extracts them to the sources directory.
+ * <p>
+ * The tarballs are extracted while they are downloaded, they are not stored on the disk. The top-level directory of a
+ * tarball is renamed to the name of the build, and unwanted files, e.g. {@code repositories-backup.xml}, are skipped.
+ * Several builds are fetched concurrently, over a single HTTP client.
+ */
+public class ScmTarballFetcher implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ScmTarballFetcher.class);
+
+    private static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final Pattern CLEANUP_PATTERN = Pattern.compile("^repositories-backup.xml$");
+
+    private static int concurrency = DEFAULT_CONCURRENCY;
+
+    private final ExecutorService executor;
+    private final TarballOpener opener;
+
+    public ScmTarballFetcher() {
+        this(concurrency, new ScmTarballOpener());
+    }
+
+    ScmTarballFetcher(int concurrency, TarballOpener opener) {
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+        this.opener = opener;
+    }
+
+    /**
+     * Set the number of tarballs fetched concurrently by the fetchers created afterwards
+     *
+     * @param concurrency number of concurrent downloads
+     */
+    public static void setConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            log.warn("Sources concurrency has to be a positive integer. Setting to {}", DEFAULT_CONCURRENCY);
+            concurrency = DEFAULT_CONCURRENCY;
+        }
+        ScmTarballFetcher.concurrency = concurrency;
+    }
+
+    /**
+     * Download and extract the sources of the builds, each to a directory named after the build
+     *
+     * @param builds builds to fetch the sources of
+     * @param contentsDir directory to extract the sources to
+     */
+    public void fetch(Collection<PncBuild> builds, File contentsDir) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(builds.size());
+        for (PncBuild build : builds) {
+            futures.add(CompletableFuture.runAsync(() -> fetch(build, contentsDir), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private void fetch(PncBuild build, File contentsDir) {
+        log.info("Fetching sources of build {}", build.getId());
+        TopLevelDirectoryRenamer renamer = new TopLevelDirectoryRenamer(build);
+        try (InputStream tarball = opener.open(build);
+                InputStream tar = new CompressorStreamFactory()
+                        .createCompressorInputStream(new BufferedInputStream(tarball))) {
+            FileUtils.untar(tar, contentsDir, renamer::rename, renamer::renameLinkTarget);
+        } catch (IOException | CompressorException e) {
+            throw new RuntimeException("Failed to extract the sources of build " + build.getId(), e);
+        }
+        if (renamer.topLevelDirectory == null) {
+            throw new RuntimeException("The sources of build " + build.getId() + " are empty");
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Maps the entries of a tarball to the directory named after the build
+     */
+    private static class TopLevelDirectoryRenamer {
+        private final PncBuild build;
+        private String topLevelDirectory;
+
+        private TopLevelDirectoryRenamer(PncBuild build) {
+            this.build = build;
+        }
+
+        private String rename(String entryName) {
+            String topLevelName = topLevelName(entryName);
+            if (topLevelDirectory == null) {
+                topLevelDirectory = topLevelName;
+            } else if (!topLevelDirectory.equals(topLevelName)) {
+                throw new RuntimeException(
+                        "Found more than one top-level directory in the sources of build " + build + ": "
+                                + topLevelDirectory + ", " + topLevelName);
+            }
+            if (isCleanedUp(entryName)) {
+                log.debug("Skipping file: {}", entryName);
+                return null;
+            }
+            return build.getName() + entryName.substring(topLevelName.length());
+        }
+
+        /**
+         * Maps the target of a hard link the same way as {@link #rename(String)}, without changing the top-level
+         * directory. Targets outside of it, or skipped, are mapped to {@code null}.
+         */
+        private String renameLinkTarget(String linkName) {
+            String topLevelName = topLevelName(linkName);
+            if (!topLevelName.equals(topLevelDirectory) || isCleanedUp(linkName)) {
+                return null;
+            }
+            return build.getName() + linkName.substring(topLevelName.length());
+        }
+
+        private static String topLevelName(String entryName) {
+            // paths inside tar files only ever contain forward slashes
+            int i = entryName.indexOf('/');
+            return i == -1 ? entryName : entryName.substring(0, i);
+        }
+
+        private static boolean isCleanedUp(String entryName) {
+            String path = entryName.endsWith("/") ? entryName.substring(0, entryName.length() - 1) : entryName;
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            return CLEANUP_PATTERN.matcher(fileName).matches();
+        }
+    }
+
+    interface TarballOpener {
+        InputStream open(PncBuild build) throws IOException;
+    }
+
+    /**
+     * Opens the tarball generated by the SCM server of a build, e.g. GitHub or GitLab
+     */
+    private static class ScmTarballOpener implements TarballOpener {
+        private final HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        @Override
+        public InputStream open(PncBuild build) throws IOException {
+            try {
+                var provider = determineScmProvider(build.getScmRepository(), build.getInternalScmUrl());
+                URI uri = new URI(
+                        getScmUrlGenerator(provider)
+                                .generateTarballDownloadUrl(build.getScmRepository(), build.getScmRevision()));
+
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(uri)
+                        .header("Authorization", "Bearer " + Config.instance().getActiveProfile().getGithubToken())
+                        .GET()
+                        .build();
+                var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() != HttpResponseCodes.SC_OK) {
+                    response.body().close();
+                    StringBuilder errorMessage = new StringBuilder();
+                    errorMessage.append("Failed to download sources for build: ").append(build.getId()).append("\n");
+                    errorMessage.append("HTTP Status: ").append(response.statusCode()).append("\n");
+                    throw new RuntimeException(errorMessage.toString());
+                }
+                return response.body();
+            } catch (ScmException | URISyntaxException e) {
+                throw new RuntimeException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
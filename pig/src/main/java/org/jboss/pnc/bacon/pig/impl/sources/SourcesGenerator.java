@@ -1,20 +1,8 @@
 package org.jboss.pnc.bacon.pig.impl.sources;
 
-import static org.jboss.pnc.common.scm.ScmUrlGeneratorProvider.determineScmProvider;
-import static org.jboss.pnc.common.scm.ScmUrlGeneratorProvider.getScmUrlGenerator;
-
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,7 +12,6 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.FilenameUtils;
-import org.jboss.pnc.bacon.config.Config;
 import org.jboss.pnc.bacon.pig.impl.PigContext;
 import org.jboss.pnc.bacon.pig.impl.documents.sharedcontent.BrewSearcher;
 import org.jboss.pnc.bacon.pig.impl.documents.sharedcontent.MRRCSearcher;
@@ -38,9 +25,7 @@ import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.build.finder.koji.KojiBuild;
 import org.jboss.pnc.client.BuildClient;
 import org.jboss.pnc.client.RemoteResourceException;
-import org.jboss.pnc.common.scm.ScmException;
 import org.jboss.pnc.dto.Artifact;
-import org.jboss.resteasy.util.HttpResponseCodes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -138,7 +123,7 @@ public class SourcesGenerator {
             }
         }
 
-        downloadSourcesFromBuilds(additionalBuildsForSources, workDir, contentsDir);
+        downloadSourcesFromBuilds(additionalBuildsForSources, contentsDir);
 
         if (sourcesGenerationData.getStrategy() == SourcesGenerationStrategy.GENERATE_EXTENDED || sourcesGenerationData
                 .getStrategy() == SourcesGenerationStrategy.GENERATE_REDHAT_DEPENDENCIES_EXTENDED) {
@@ -181,87 +166,12 @@ public class SourcesGenerator {
         return completeBuilds;
     }
 
-    private void downloadSourcesFromBuilds(Map<String, PncBuild> builds, File workDir, File contentsDir) {
-        builds.values().forEach(build -> {
-            File targetPath = new File(workDir, build.getName() + "-" + build.getId() + ".tar.gz");
-
-            try {
-                var provider = determineScmProvider(build.getScmRepository(), build.getInternalScmUrl());
-                URI uri = new URI(
-                        getScmUrlGenerator(provider)
-                                .generateTarballDownloadUrl(build.getScmRepository(), build.getScmRevision()));
-
-                HttpClient httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(uri)
-                        .header("Authorization", "Bearer " + Config.instance().getActiveProfile().getGithubToken())
-                        .GET()
-                        .build();
-                var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-                if (response.statusCode() != HttpResponseCodes.SC_OK) {
-                    StringBuilder errorMessage = new StringBuilder();
-                    errorMessage.append("Failed to download sources for build: ").append(build.getId()).append("\n");
-                    errorMessage.append("HTTP Status: ").append(response.statusCode()).append("\n");
-                    throw new RuntimeException(errorMessage.toString());
-                }
-                try (InputStream responseStream = response.body()) {
-                    Files.copy(responseStream, targetPath.toPath());
-                }
-
-            } catch (ScmException | URISyntaxException | IOException | InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-
-            Collection<String> untaredFiles = FileUtils.untar(targetPath, contentsDir);
-            List<String> topLevelDirectories = untaredFiles.stream()
-                    .filter(this::isNotANestedFile)
-                    .collect(Collectors.toList());
-
-            if (topLevelDirectories.size() != 1) {
-                throw new RuntimeException(
-                        "Found more than one top-level directory (" + topLevelDirectories.size()
-                                + ") untared for build " + build + ", the untared archive: "
-                                + targetPath.getAbsolutePath() + ", the top level directories:" + topLevelDirectories);
-            }
-
-            String topLevelDirectoryName = untaredFiles.iterator().next();
-            File topLevelDirectory = new File(contentsDir, topLevelDirectoryName);
-            cleanupSources(topLevelDirectory);
-            File properTopLevelDirectory = new File(contentsDir, build.getName());
-            topLevelDirectory.renameTo(properTopLevelDirectory);
-        });
-    }
-
-    /**
-     * <p>
-     * Deletes unwanted files found on the sources folder.
-     * </p>
-     *
-     * @param topLevelDirectory
-     *        <p>
-     *        Root folder for searching the unwanted files.
-     *        </p>
-     */
-    private void cleanupSources(final File topLevelDirectory) {
-        final String cleanupRegex = "^repositories-backup.xml$";
-        try (Stream<Path> stream = Files.walk(topLevelDirectory.toPath())) {
-            stream.filter(path -> path.getFileName().toString().matches(cleanupRegex)).forEach(path -> {
-                log.debug("Deleting file: {}", path);
-                path.toFile().delete();
-            });
-        } catch (IOException e) {
-            log.error(e.getMessage(), e);
-            e.printStackTrace();
+    private void downloadSourcesFromBuilds(Map<String, PncBuild> builds, File contentsDir) {
+        try (ScmTarballFetcher fetcher = new ScmTarballFetcher()) {
+            fetcher.fetch(builds.values(), contentsDir);
         }
     }
 
-    private boolean isNotANestedFile(String name) {
-        // either "some-directory" or "some-directory/"
-        // paths inside tar files only ever contain forward slashes
-        int i = name.indexOf("/");
-        return i == -1 || i + 1 == name.length();
-    }
-
     private void addSourcesOfUnreleasedDependencies(RepositoryData repo, File workDir, File contentsDir) {
         File unreleasedWorkDir = new File(workDir, topLevelDirectoryName);
         unreleasedWorkDir.mkdirs();
@@ -0,0 +1,148 @@
+package org.jboss.pnc.bacon.pig.impl.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Value;
+
+/**
+ * Sorts lines with an external merge sort, so that the number of lines kept in memory is bounded.
+ * <p>
+ * Lines are buffered until the buffer is full. The full buffer is then sorted and spilled to a temporary file. When the
+ * sorted lines are requested, the spilled files are merged with the lines still in the buffer. Lines are sorted in
+ * their natural order and must not contain line breaks.
+ */
+public class ExternalLineSorter implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ExternalLineSorter.class);
+
+    private final int maxLinesInMemory;
+    private final List<String> buffer = new ArrayList<>();
+    private final List<Path> spills = new ArrayList<>();
+    private Path tmpDir;
+
+    /**
+     * @param maxLinesInMemory number of lines buffered before they are spilled to disk
+     */
+    public ExternalLineSorter(int maxLinesInMemory) {
+        this.maxLinesInMemory = Math.max(1, maxLinesInMemory);
+    }
+
+    public void add(String line) {
+        buffer.add(line);
+        if (buffer.size() >= maxLinesInMemory) {
+            spill();
+        }
+    }
+
+    /**
+     * Write all the added lines in sorted order, each followed by a line break
+     *
+     * @param output where to write the lines to
+     * @param mapper transformation applied to every line before it's written, e.g. to strip a sort key
+     * @throws IOException if the lines couldn't be written
+     */
+    public void writeSorted(Writer output, Function<String, String> mapper) throws IOException {
+        Collections.sort(buffer);
+        List<BufferedReader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::getLine));
+            for (Path spill : spills) {
+                BufferedReader reader = Files.newBufferedReader(spill, UTF_8);
+                readers.add(reader);
+                nextHead(reader).ifPresent(heads::add);
+            }
+            int bufferIndex = 0;
+            while (!heads.isEmpty() || bufferIndex < buffer.size()) {
+                String line;
+                boolean fromBuffer = bufferIndex < buffer.size()
+                        && (heads.isEmpty() || buffer.get(bufferIndex).compareTo(heads.peek().getLine()) <= 0);
+                if (fromBuffer) {
+                    line = buffer.get(bufferIndex++);
+                } else {
+                    Head head = heads.poll();
+                    line = head.getLine();
+                    nextHead(head.getReader()).ifPresent(heads::add);
+                }
+                output.write(mapper.apply(line));
+                output.write('\n');
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        buffer.clear();
+        for (Path spill : spills) {
+            try {
+                Files.deleteIfExists(spill);
+            } catch (IOException e) {
+                log.debug("Unable to delete {}", spill, e);
+            }
+        }
+        spills.clear();
+        if (tmpDir != null) {
+            try {
+                Files.deleteIfExists(tmpDir);
+            } catch (IOException e) {
+                log.debug("Unable to delete {}", tmpDir, e);
+            }
+        }
+    }
+
+    private void spill() {
+        Collections.sort(buffer);
+        try {
+            if (tmpDir == null) {
+                tmpDir = Files.createTempDirectory("bacon-sort");
+            }
+            Path spill = Files.createTempFile(tmpDir, "chunk-", ".txt");
+            spills.add(spill);
+            try (BufferedWriter writer = Files.newBufferedWriter(spill, UTF_8)) {
+                for (String line : buffer) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spill sorted lines to disk", e);
+        }
+        log.debug("Spilled {} sorted lines to disk", buffer.size());
+        buffer.clear();
+    }
+
+    private static Optional<Head> nextHead(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        return line == null ? Optional.empty() : Optional.of(new Head(line, reader));
+    }
+
+    /**
+     * Next line of a spilled file, along with the reader of the file
+     */
+    @Value
+    private static class Head {
+        String line;
+        BufferedReader reader;
+    }
+}
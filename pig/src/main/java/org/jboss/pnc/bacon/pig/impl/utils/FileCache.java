@@ -1,82 +1,305 @@
 package org.jboss.pnc.bacon.pig.impl.utils;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.concurrent.ConcurrentMap;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-import org.mapdb.Serializer;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lombok.Value;
+
+/**
+ * Content-addressed on-disk cache of downloaded files.
+ * <p>
+ * The cache directory has the following layout:
+ * <ul>
+ * <li>{@code blobs/<2 first chars of sha256>/<sha256>} - the cached file contents, named by their sha256 digest</li>
+ * <li>{@code index/<sha256 of key>} - a small file with the digest of the blob on the first line and the key on the
+ * second line</li>
+ * <li>{@code tmp/} - staging area for blobs and index entries being written</li>
+ * </ul>
+ * Blobs and index entries are always written to the staging area first and atomically moved into place, so several
+ * bacon processes can share the same cache directory. The last modified time of a blob is bumped on every hit and is
+ * used to evict the least recently used blobs once the cache grows over its maximum size. Eviction is guarded by a file
+ * lock so that only one process at a time trims the cache.
+ */
 public class FileCache {
 
     private static final Logger log = LoggerFactory.getLogger(FileCache.class);
-    private static final int MAX_SIZE_CACHE_GB = 5;
-    private static final int MAX_SIZE_INDIVIDUAL_FILE_CACHE_MB = 50;
 
-    private DB db;
-    private ConcurrentMap<String, byte[]> cachedMap;
+    public static final long DEFAULT_MAX_SIZE_BYTES = 5L * 1024L * 1024L * 1024L;
 
-    public FileCache(Path cacheFile) {
+    /**
+     * Once eviction kicks in, the cache is trimmed to this fraction of its maximum size so that it doesn't have to run
+     * again on the very next put
+     */
+    private static final double EVICTION_TARGET_RATIO = 0.9;
 
-        // if cache file parent folder doesn't exist, create it
-        if (!Files.exists(cacheFile.getParent())) {
-            try {
-                Files.createDirectories(cacheFile.getParent());
-            } catch (IOException e) {
-                log.error("Unable to create directory {}", cacheFile.getParent(), e);
-                throw new RuntimeException(e);
-            }
-        }
+    private final Path blobsDir;
+    private final Path indexDir;
+    private final Path tmpDir;
+    private final Path lockFile;
+    private final long maxSize;
+    private final boolean hardLinks;
 
-        db = DBMaker.fileDB(cacheFile.toString())
-                .closeOnJvmShutdown()
-                .make();
+    /**
+     * Size of all the blobs as seen by this process. Other processes may add blobs too, the real size is recomputed
+     * whenever eviction runs.
+     */
+    private final AtomicLong estimatedSize;
 
-        cachedMap = db.hashMap("file-map", Serializer.STRING, Serializer.BYTE_ARRAY)
-                .expireStoreSize(MAX_SIZE_CACHE_GB * 1024L * 1024L * 1024L) // max size in bytes,
-                .expireAfterGet()
-                .expireAfterCreate()
-                .createOrOpen();
+    public FileCache(Path cacheDir) {
+        this(cacheDir, DEFAULT_MAX_SIZE_BYTES, false);
+    }
+
+    /**
+     * @param cacheDir directory holding the cache
+     * @param maxSize maximum size of the cached blobs in bytes
+     * @param hardLinks if true, cache hits are hard-linked into the target location when possible instead of being
+     *        copied. Only safe if the retrieved files are never modified in place.
+     */
+    public FileCache(Path cacheDir, long maxSize, boolean hardLinks) {
+        this.blobsDir = cacheDir.resolve("blobs");
+        this.indexDir = cacheDir.resolve("index");
+        this.tmpDir = cacheDir.resolve("tmp");
+        this.lockFile = cacheDir.resolve(".lock");
+        this.maxSize = maxSize;
+        this.hardLinks = hardLinks;
+
+        try {
+            Files.createDirectories(blobsDir);
+            Files.createDirectories(indexDir);
+            Files.createDirectories(tmpDir);
+        } catch (IOException e) {
+            log.error("Unable to create directory {}", cacheDir, e);
+            throw new RuntimeException(e);
+        }
+        estimatedSize = new AtomicLong(listBlobs().stream().mapToLong(CachedBlob::getSize).sum());
     }
 
     public void put(String key, File file) {
+        Path tmpBlob = null;
         try {
-            if (file.length() < MAX_SIZE_INDIVIDUAL_FILE_CACHE_MB * 1024L * 1024L) {
-                // This is done to prevent OutOfMemory issues because readAllBytes load everything in memory
-                cachedMap.put(key, Files.readAllBytes(file.toPath()));
-                db.commit();
+            tmpBlob = Files.createTempFile(tmpDir, "blob-", ".tmp");
+            MessageDigest sha256 = DigestUtils.getSha256Digest();
+            // compute the digest while copying the file, so that it is read only once
+            try (InputStream input = new DigestInputStream(Files.newInputStream(file.toPath()), sha256)) {
+                Files.copy(input, tmpBlob, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String digest = Hex.encodeHexString(sha256.digest());
+
+            Path blob = blobPath(digest);
+            if (Files.exists(blob)) {
+                Files.delete(tmpBlob);
+                touch(blob);
             } else {
-                log.warn("File {} is too big for the cache ({}). Skipping!", file.getAbsolutePath(), file.length());
+                long size = Files.size(tmpBlob);
+                Files.createDirectories(blob.getParent());
+                Files.move(tmpBlob, blob, StandardCopyOption.ATOMIC_MOVE);
+                estimatedSize.addAndGet(size);
             }
+            writeIndex(key, digest);
         } catch (IOException e) {
             log.warn("Error writing file {} for cache. Skipping!", file.getAbsolutePath(), e);
+            deleteQuietly(tmpBlob);
+            return;
+        }
+
+        if (estimatedSize.get() > maxSize) {
+            evict();
         }
     }
 
     public void listContent() {
-        cachedMap.keySet().forEach(System.out::println);
+        try (Stream<Path> entries = Files.list(indexDir)) {
+            entries.map(this::readIndexEntry)
+                    .flatMap(Optional::stream)
+                    .map(entry -> entry[1])
+                    .forEach(System.out::println);
+        } catch (IOException e) {
+            log.warn("Unable to list the content of the cache in {}", indexDir, e);
+        }
     }
 
     public boolean copyTo(String key, File targetPath) {
+        Path indexFile = indexPath(key);
+        Optional<String[]> entry = readIndexEntry(indexFile);
+        if (entry.isEmpty()) {
+            return false;
+        }
+        Path blob = blobPath(entry.get()[0]);
         try {
+            touch(blob);
+        } catch (NoSuchFileException e) {
+            // blob evicted, drop the dangling index entry
+            deleteQuietly(indexFile);
+            return false;
+        } catch (IOException e) {
+            log.debug("Unable to update access time of {}", blob, e);
+        }
 
-            byte[] data = cachedMap.get(key);
-
-            if (data == null) {
-                // either not present in cache, or evicted
-                return false;
+        if (hardLinks && link(blob, targetPath.toPath())) {
+            return true;
+        }
+        try (FileChannel input = FileChannel.open(blob, StandardOpenOption.READ);
+                FileChannel output = FileChannel.open(
+                        targetPath.toPath(),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = input.size();
+            long position = 0;
+            while (position < size) {
+                position += input.transferTo(position, size - position, output);
             }
-            Files.write(targetPath.toPath(), data);
             return true;
+        } catch (NoSuchFileException e) {
+            // evicted by another process in the meantime
+            return false;
         } catch (IOException e) {
             log.warn("Error reading file {} from cache. Skipping!", targetPath.getAbsolutePath(), e);
             return false;
         }
     }
 
+    /**
+     * Remove the least recently used blobs until the cache fits in {@link #EVICTION_TARGET_RATIO} of its maximum size.
+     * If another process is already evicting, this is a no-op.
+     */
+    synchronized void evict() {
+        try (FileChannel channel = FileChannel
+                .open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock()) {
+            if (lock == null) {
+                return;
+            }
+            List<CachedBlob> blobs = listBlobs();
+            long totalSize = blobs.stream().mapToLong(CachedBlob::getSize).sum();
+            long targetSize = (long) (maxSize * EVICTION_TARGET_RATIO);
+
+            blobs.sort(Comparator.comparing(CachedBlob::getLastUsed));
+            int evicted = 0;
+            for (CachedBlob blob : blobs) {
+                if (totalSize <= targetSize) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(blob.getPath());
+                    totalSize -= blob.getSize();
+                    evicted++;
+                } catch (IOException e) {
+                    log.warn("Unable to evict {} from cache", blob.getPath(), e);
+                }
+            }
+            estimatedSize.set(totalSize);
+            log.debug("Evicted {} files from cache, current size: {} bytes", evicted, totalSize);
+        } catch (OverlappingFileLockException e) {
+            // already evicting from this JVM
+        } catch (IOException e) {
+            log.warn("Unable to evict files from cache", e);
+        }
+    }
+
+    private List<CachedBlob> listBlobs() {
+        List<CachedBlob> result = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(blobsDir)) {
+            files.filter(Files::isRegularFile).forEach(path -> {
+                try {
+                    result.add(new CachedBlob(path, Files.size(path), Files.getLastModifiedTime(path)));
+                } catch (IOException e) {
+                    // removed by another process in the meantime
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Unable to list the content of the cache in {}", blobsDir, e);
+        }
+        return result;
+    }
+
+    private void writeIndex(String key, String digest) throws IOException {
+        Path tmpIndex = Files.createTempFile(tmpDir, "index-", ".tmp");
+        try {
+            Files.writeString(tmpIndex, digest + "\n" + key, UTF_8);
+            Files.move(tmpIndex, indexPath(key), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteQuietly(tmpIndex);
+        }
+    }
+
+    private Optional<String[]> readIndexEntry(Path indexFile) {
+        try {
+            String[] entry = Files.readString(indexFile, UTF_8).split("\n", 2);
+            return entry.length == 2 ? Optional.of(entry) : Optional.empty();
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.debug("Unable to read cache index entry {}", indexFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private Path indexPath(String key) {
+        return indexDir.resolve(DigestUtils.sha256Hex(key));
+    }
+
+    private Path blobPath(String digest) {
+        return blobsDir.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private static boolean link(Path blob, Path target) {
+        try {
+            Files.deleteIfExists(target);
+            Files.createLink(target, blob);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g. the target is on a different file store, fall back to copying
+            log.debug("Unable to hard-link {} to {}", blob, target, e);
+            return false;
+        }
+    }
+
+    private static void touch(Path path) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Unable to delete {}", path, e);
+        }
+    }
+
+    @Value
+    private static class CachedBlob {
+        Path path;
+        long size;
+        FileTime lastUsed;
+    }
 }
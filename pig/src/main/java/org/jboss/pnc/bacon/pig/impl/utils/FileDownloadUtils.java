@@ -22,8 +22,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.NotFoundException;
 
@@ -34,6 +41,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,45 +57,116 @@ public class FileDownloadUtils {
 
     private static final int READ_TIMEOUT = 900000;
 
+    private static final int IDLE_CONNECTION_TIMEOUT = 30;
+
     private static final int DEFAULT_ATTEMPTS = 1;
     private static final int MAX_ATTEMPTS = 20;
 
+    private static final int DEFAULT_PARALLELISM = 8;
+
     // TODO move it out from here and add it as a method parameter
     private static int attempts = DEFAULT_ATTEMPTS;
 
+    private static int parallelism = DEFAULT_PARALLELISM;
+
     private static final RequestConfig requestConfig = RequestConfig.copy(RequestConfig.DEFAULT)
             .setConnectTimeout(CONNECTION_TIMEOUT)
             .setSocketTimeout(READ_TIMEOUT)
             .build();
 
     public static final String FILE_CACHE_LOCATION = System.getProperty("user.home") + File.separator + ".cache"
-            + File.separator + "pnc-bacon" + File.separator + "pnc-bacon-artifact-cache.db";
+            + File.separator + "pnc-bacon" + File.separator + "artifact-cache";
+
+    /**
+     * MapDB file of the artifact cache used before {@link #FILE_CACHE_LOCATION}, its content isn't read anymore
+     */
+    private static final String LEGACY_FILE_CACHE_LOCATION = System.getProperty("user.home") + File.separator
+            + ".cache" + File.separator + "pnc-bacon" + File.separator + "pnc-bacon-artifact-cache.db";
 
     private static boolean enableCache = false;
     private static List<String> urlsToCache = List.of();
+    private static long cacheMaxSize = FileCache.DEFAULT_MAX_SIZE_BYTES;
+    private static boolean cacheHardLinks = false;
 
     /**
      * Please use it via getFileCache() method, not directly
      */
     private static FileCache fileCache = null;
 
+    /**
+     * Please use it via getHttpClient() method, not directly
+     */
+    private static CloseableHttpClient httpClient = null;
+
     /**
      * Lazily initialize the file cache only when needed
      *
      * @return
      */
-    private static FileCache getFileCache() {
+    private static synchronized FileCache getFileCache() {
         if (fileCache == null) {
-            fileCache = new FileCache(Path.of(FILE_CACHE_LOCATION));
+            fileCache = new FileCache(Path.of(FILE_CACHE_LOCATION), cacheMaxSize, cacheHardLinks);
+            deleteLegacyFileCache(Path.of(LEGACY_FILE_CACHE_LOCATION));
         }
         return fileCache;
     }
 
+    /**
+     * Delete the MapDB file of the previous artifact cache, once the new cache directory is set up. It can be several
+     * GB large.
+     *
+     * @param legacyCacheFile the MapDB file
+     */
+    static void deleteLegacyFileCache(Path legacyCacheFile) {
+        try {
+            if (Files.deleteIfExists(legacyCacheFile)) {
+                log.info(
+                        "Deleted the previous artifact cache {}, artifacts are now cached in {}",
+                        legacyCacheFile,
+                        FILE_CACHE_LOCATION);
+            }
+        } catch (IOException e) {
+            log.warn(
+                    "Unable to delete the previous artifact cache {}, it is not used anymore and can be deleted: {}",
+                    legacyCacheFile,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Lazily initialize the HTTP client shared by all the downloads. The client keeps connections alive and pools them,
+     * up to the download parallelism per host.
+     *
+     * @return
+     */
+    private static synchronized CloseableHttpClient getHttpClient() {
+        if (httpClient == null) {
+            httpClient = HttpClients.custom()
+                    .setDefaultRequestConfig(requestConfig)
+                    .setMaxConnPerRoute(parallelism)
+                    .setMaxConnTotal(parallelism * 2)
+                    .evictIdleConnections(IDLE_CONNECTION_TIMEOUT, TimeUnit.SECONDS)
+                    .build();
+        }
+        return httpClient;
+    }
+
     public static void controlCache(boolean enableCacheTemp, List<String> urlsToCacheTemp) {
         enableCache = enableCacheTemp;
         urlsToCache = urlsToCacheTemp;
     }
 
+    /**
+     * Configure the artifact cache. Has to be called before the first cached download.
+     *
+     * @param maxSizeInBytes maximum size of the cache, least recently used files are evicted above it
+     * @param hardLinks whether cache hits should be hard-linked to the target path instead of being copied
+     */
+    public static void configureCache(long maxSizeInBytes, boolean hardLinks) {
+        cacheMaxSize = maxSizeInBytes;
+        cacheHardLinks = hardLinks;
+    }
+
     public static void downloadTo(URI downloadUrl, File targetPath) {
         downloadTo(downloadUrl, targetPath, enableCache);
     }
@@ -104,33 +183,83 @@ public class FileDownloadUtils {
         }
 
         log.debug("Downloading {} to {}", downloadUrl, targetPath);
-        doDownload(downloadUrl, targetPath, attempts, cache);
+        doDownload(downloadUrl, targetPath);
 
-        if (cache) {
+        if (cache && inUrlsToCache(downloadUrl)) {
             log.debug("Writing content of {} to cache!", targetPath);
             getFileCache().put(downloadUrl.toString(), targetPath);
         }
     }
 
-    private static void doDownload(URI downloadUrl, File targetPath, int attemptsLeft, boolean cache) {
-
-        try (CloseableHttpClient httpClient = HttpClients.custom().setDefaultRequestConfig(requestConfig).build()) {
-            downloadWithClient(httpClient, downloadUrl, targetPath);
-        } catch (NotFoundException nfe) {
-            throw new RuntimeException("URL " + downloadUrl + " returns status 404: Not Found", nfe);
-        } catch (Exception e) {
-            attemptsLeft--;
-            if (attemptsLeft == 0) {
-                throw new RuntimeException(
-                        "failed to download " + downloadUrl + " to " + targetPath.getAbsolutePath(),
-                        e);
-            } else {
+    /**
+     * Download all the files concurrently, with at most {@link #setParallelism(int) parallelism} downloads in flight.
+     * Each download is retried on its own, the same way as in {@link #downloadTo(URI, File)}.
+     *
+     * @param downloads target files, by the URL to download them from
+     * @throws RuntimeException if any of the downloads failed, after all the other downloads finished
+     */
+    public static void downloadAll(Map<URI, File> downloads) {
+        Map<URI, RuntimeException> failures = tryDownloadAll(downloads);
+        if (!failures.isEmpty()) {
+            RuntimeException failure = new RuntimeException(
+                    "failed to download " + failures.size() + " file(s), e.g. " + failures.keySet().iterator().next());
+            failures.values().forEach(failure::addSuppressed);
+            throw failure;
+        }
+    }
+
+    /**
+     * Same as {@link #downloadAll(Map)}, but leaves it up to the caller to decide what to do with the failed downloads.
+     *
+     * @param downloads target files, by the URL to download them from
+     * @return failures of the downloads that didn't succeed, by URL. Empty if all the downloads succeeded.
+     */
+    public static Map<URI, RuntimeException> tryDownloadAll(Map<URI, File> downloads) {
+        Map<URI, RuntimeException> failures = new ConcurrentHashMap<>();
+        if (downloads.isEmpty()) {
+            return failures;
+        }
+        log.info("Downloading {} files using {} parallel downloads", downloads.size(), parallelism);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, downloads.size()));
+        try {
+            CompletableFuture<?>[] futures = downloads.entrySet()
+                    .stream()
+                    .map(download -> CompletableFuture.runAsync(() -> {
+                        try {
+                            download.getValue().getParentFile().mkdirs();
+                            downloadTo(download.getKey(), download.getValue());
+                        } catch (RuntimeException e) {
+                            failures.put(download.getKey(), e);
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture<?>[]::new);
+            CompletableFuture.allOf(futures).join();
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    private static void doDownload(URI downloadUrl, File targetPath) {
+        int attemptsLeft = attempts;
+        while (true) {
+            try {
+                downloadWithClient(getHttpClient(), downloadUrl, targetPath);
+                return;
+            } catch (NotFoundException nfe) {
+                throw new RuntimeException("URL " + downloadUrl + " returns status 404: Not Found", nfe);
+            } catch (Exception e) {
+                attemptsLeft--;
+                if (attemptsLeft <= 0) {
+                    throw new RuntimeException(
+                            "failed to download " + downloadUrl + " to " + targetPath.getAbsolutePath(),
+                            e);
+                }
                 log.debug("Failed to download {}. Will reattempt at most {} times", downloadUrl, attemptsLeft);
                 // sleep with exponential backoff up to a maximum of 30 seconds
                 int sleepTimeInSeconds = (int) Math.ceil(Math.pow(30, (double) 1 / attemptsLeft));
                 log.debug("Sleeping for : {}", sleepTimeInSeconds);
                 SleepUtils.sleep(sleepTimeInSeconds);
-                doDownload(downloadUrl, targetPath, attemptsLeft, cache);
             }
         }
     }
@@ -139,6 +268,10 @@ public class FileDownloadUtils {
             throws NotFoundException, HttpException, IOException {
         try (CloseableHttpResponse response = httpClient.execute(new HttpGet(downloadUrl))) {
             int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode < 200 || statusCode > 299) {
+                // make sure the pooled connection can be reused
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
             if (statusCode == 404) {
                 throw new NotFoundException();
             }
@@ -169,6 +302,20 @@ public class FileDownloadUtils {
         FileDownloadUtils.attempts = attempts;
     }
 
+    /**
+     * Set the maximum number of concurrent downloads done by {@link #downloadAll(Map)}. Has to be called before the
+     * first download, as it also sizes the connection pool.
+     *
+     * @param parallelism maximum number of concurrent downloads
+     */
+    public static void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            log.warn("Download parallelism has to be a positive integer. Setting to {}", DEFAULT_PARALLELISM);
+            parallelism = DEFAULT_PARALLELISM;
+        }
+        FileDownloadUtils.parallelism = parallelism;
+    }
+
     private static boolean inUrlsToCache(URI downloadUrl) {
         return urlsToCache.stream().anyMatch(url -> url.contains(downloadUrl.getHost()));
     }
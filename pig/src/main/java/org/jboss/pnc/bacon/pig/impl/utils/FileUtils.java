@@ -25,7 +25,6 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
-import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -33,6 +32,7 @@ import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -199,14 +199,38 @@ public final class FileUtils {
 
         log.debug("untar: detected compressor type: {}", compressorType);
 
-        final Collection<String> entries = new ArrayList<>();
-
         try (final InputStream is = Files.newInputStream(input.toPath());
                 final InputStream cin = compressorType != null
                         ? new CompressorStreamFactory().createCompressorInputStream(compressorType, is)
-                        : is;
-                final ArchiveInputStream in = new ArchiveStreamFactory()
-                        .createArchiveInputStream(ArchiveStreamFactory.TAR, cin)) {
+                        : is) {
+            return untar(cin, directory, UnaryOperator.identity(), UnaryOperator.identity());
+        } catch (IOException | CompressorException e) {
+            throw new RuntimeException("Untar of " + input + " to " + directory + " failed", e);
+        }
+    }
+
+    /**
+     * Extract a tar stream, e.g. while it is being downloaded, without storing the archive first
+     *
+     * @param input uncompressed tar stream, not closed by this method
+     * @param directory directory to extract to
+     * @param entryNames maps the name of an entry to its path in the directory. An entry mapped to {@code null} is
+     *        skipped.
+     * @param linkTargets maps the target of a hard link to its path in the directory. It is called once the target has
+     *        been extracted, so it must not reject or change the mapping of entries, e.g. a prefix rewrite. A hard
+     *        link whose target is mapped to {@code null} is skipped.
+     * @return the names of the extracted entries, as found in the archive
+     */
+    public static Collection<String> untar(
+            final InputStream input,
+            final File directory,
+            final UnaryOperator<String> entryNames,
+            final UnaryOperator<String> linkTargets) {
+        final Collection<String> entries = new ArrayList<>();
+
+        try {
+            final ArchiveInputStream in = new ArchiveStreamFactory()
+                    .createArchiveInputStream(ArchiveStreamFactory.TAR, input);
             final Path dir = directory.toPath();
             final Path canonicalDir = dir.toAbsolutePath().normalize();
 
@@ -216,10 +240,26 @@ public final class FileUtils {
 
             while ((entry = (TarArchiveEntry) in.getNextEntry()) != null) {
                 final String entryName = entry.getName();
+                final String targetName = entryNames.apply(entryName);
+
+                if (targetName == null) {
+                    log.debug("untar: skipping {}", entryName);
+                    continue;
+                }
+
+                final String linkTargetName = entry.isLink() ? linkTargets.apply(entry.getLinkName()) : null;
+
+                if (entry.isLink() && linkTargetName == null) {
+                    log.warn(
+                            "untar: skipping hard link {} to {}, which is not extracted",
+                            entryName,
+                            entry.getLinkName());
+                    continue;
+                }
 
                 entries.add(entryName);
 
-                final Path path = dir.resolve(entryName);
+                final Path path = dir.resolve(targetName);
 
                 log.debug("untar: {}", path);
 
@@ -232,9 +272,15 @@ public final class FileUtils {
                 if (entry.isDirectory()) {
                     Files.createDirectories(path);
                 } else if (entry.isLink()) {
-                    final String linkName = entry.getLinkName();
-                    final Path target = FileSystems.getDefault().getPath(linkName);
+                    // hard link targets are entries of the same archive
+                    final Path target = dir.resolve(linkTargetName);
 
+                    if (!target.toAbsolutePath().normalize().startsWith(canonicalDir)) {
+                        throw new RuntimeException(
+                                "Link target " + target + " is outside of destination directory " + directory);
+                    }
+
+                    Files.createDirectories(path.getParent());
                     Files.createLink(path, target);
                 } else if (entry.isSymbolicLink()) {
                     final String linkName = entry.getLinkName();
@@ -242,9 +288,9 @@ public final class FileUtils {
 
                     Files.createSymbolicLink(path, target);
                 } else if (entry.isFile()) {
+                    Files.createDirectories(path.getParent());
 
                     try (final OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW)) {
-                        Files.createDirectories(path.getParent());
                         IOUtils.copy(in, out);
                     }
                 } else {
@@ -262,8 +308,8 @@ public final class FileUtils {
                     log.debug("Skipping setting of permission for symlink: {}", path);
                 }
             }
-        } catch (IOException | ArchiveException | CompressorException e) {
-            throw new RuntimeException("Untar of " + input + " to " + directory + " failed", e);
+        } catch (IOException | ArchiveException e) {
+            throw new RuntimeException("Untar to " + directory + " failed", e);
         }
 
         return Collections.unmodifiableCollection(entries);
@@ -436,64 +482,17 @@ public final class FileUtils {
         return Collections.unmodifiableCollection(entries);
     }
 
+    /**
+     * Zip the directory, compressing the entries in parallel, see {@link ParallelZipWriter}
+     *
+     * @param output the zip file to create
+     * @param workingDirectory the directory the entry names are relative to
+     * @param directoryToZip the directory to zip
+     * @return names of the zipped entries
+     */
     public static Collection<String> zip(final File output, final File workingDirectory, final File directoryToZip) {
-        final Path directory = directoryToZip.toPath();
-
-        log.debug("zip -r {} {}", output, directory);
-
-        final Collection<String> entries = new ArrayList<>();
-
-        try (final OutputStream out = Files.newOutputStream(output.toPath());
-                final ArchiveOutputStream os = new ArchiveStreamFactory()
-                        .createArchiveOutputStream(ArchiveStreamFactory.ZIP, out)) {
-            try (final Stream<Path> stream = Files.walk(directory, FileVisitOption.FOLLOW_LINKS)) {
-                final Iterator<Path> iterator = stream.iterator();
-
-                while (iterator.hasNext()) { // TODO get rid of iterator
-                    final Path path = iterator.next();
-
-                    if (path.equals(directory)) {
-                        continue;
-                    }
-
-                    String entryName = FilenameUtils
-                            .normalize(workingDirectory.toPath().relativize(path).toString(), true);
-                    if (Files.isDirectory(path)) {
-                        entryName += "/"; // required for directories
-                    }
-
-                    log.debug("zip: {}", entryName);
-
-                    entries.add(entryName);
-
-                    final ArchiveEntry entry = new ZipArchiveEntry(path.toFile(), entryName);
-
-                    setModeAndLastModifiedTime(path, entry);
-
-                    os.putArchiveEntry(entry);
-
-                    if (Files.isSymbolicLink(path)) {
-                        final Path symlinkDestination = Files.readSymbolicLink(path);
-                        final byte[] bytes = symlinkDestination.toString().getBytes(StandardCharsets.UTF_8);
-                        try (final InputStream content = new ByteArrayInputStream(bytes)) {
-                            IOUtils.copy(content, os);
-                            os.closeArchiveEntry();
-                        }
-                    } else if (Files.isRegularFile(path)) {
-                        try (final InputStream content = Files.newInputStream(path)) {
-                            IOUtils.copy(content, os);
-                            os.closeArchiveEntry();
-                        }
-                    } else if (!Files.isDirectory(path)) {
-                        throw new RuntimeException("Unsupported file type for: " + path);
-                    }
-                }
-            }
-        } catch (IOException | ArchiveException e) {
-            throw new RuntimeException("Zip of directory " + directory + " to " + output + " failed", e);
-        }
-
-        return Collections.unmodifiableCollection(entries);
+        return new ParallelZipWriter(Runtime.getRuntime().availableProcessors())
+                .zip(output, workingDirectory, directoryToZip);
     }
 
     public static void copy(final File srcFile, final File destFile) {
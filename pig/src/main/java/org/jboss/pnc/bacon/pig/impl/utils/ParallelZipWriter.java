@@ -0,0 +1,441 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.pnc.bacon.pig.impl.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.jboss.pnc.bacon.pig.impl.repo.ChecksumEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Zips a directory, compressing the entries in parallel.
+ * <p>
+ * The entries are compressed ahead of the writer by a pool of threads, each entry on its own. The writer then copies
+ * the compressed entries into the archive, in the sorted order of their paths, so the archive is the same for the
+ * same content regardless of the number of threads. Files that are already compressed, e.g. jars or tarballs, are
+ * stored as they are.
+ * <p>
+ * Compressed entries are kept in memory up to {@link #IN_MEMORY_LIMIT}, larger ones are written to temporary files.
+ * At most twice as many entries as there are threads are compressed ahead of the writer.
+ * <p>
+ * Optionally, checksum files of a Maven repository can be generated on the fly, see
+ * {@link #withChecksums(File, String...)}, so that the files don't have to be read once more before being zipped.
+ */
+public class ParallelZipWriter {
+    private static final Logger log = LoggerFactory.getLogger(ParallelZipWriter.class);
+
+    static final int IN_MEMORY_LIMIT = 4 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Extensions of files that are compressed already and are stored instead of being compressed again
+     */
+    static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip",
+            "jar",
+            "war",
+            "ear",
+            "rar",
+            "sar",
+            "aar",
+            "apk",
+            "gz",
+            "tgz",
+            "bz2",
+            "xz",
+            "lzma",
+            "zst",
+            "7z",
+            "png",
+            "jpg",
+            "jpeg",
+            "gif");
+
+    private final int parallelism;
+
+    private Path checksummedDirectory;
+    private List<String> checksumAlgorithms = Collections.emptyList();
+
+    public ParallelZipWriter(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Add checksum entries, e.g. {@code foo.jar.sha1}, for the files in the directory that don't have a current checksum
+     * file, see {@link ChecksumEngine#isCurrent(Path, String)}. The checksums are computed while the files are
+     * compressed. The checksum files are also written next to the files, so that the directory matches the archive. A
+     * stale checksum file is replaced, in the archive too.
+     *
+     * @param directory the directory, e.g. a Maven repository, to add the checksums for
+     * @param algs checksum algorithms, any of md5, sha1, sha256 and sha512
+     * @return this writer
+     */
+    public ParallelZipWriter withChecksums(File directory, String... algs) {
+        for (String alg : algs) {
+            ChecksumEngine.newDigest(alg); // fail fast on unsupported algorithms
+        }
+        this.checksummedDirectory = directory.toPath().toAbsolutePath().normalize();
+        this.checksumAlgorithms = List.of(algs);
+        return this;
+    }
+
+    /**
+     * Zip the directory
+     *
+     * @param output the zip file to create
+     * @param workingDirectory the directory the entry names are relative to
+     * @param directoryToZip the directory to zip
+     * @return names of the zipped entries, in the order they were written
+     */
+    public Collection<String> zip(File output, File workingDirectory, File directoryToZip) {
+        Path directory = directoryToZip.toPath();
+        log.debug("zip -r {} {} using {} threads", output, directory, parallelism);
+
+        Collection<String> entries = new ArrayList<>();
+        Path tempDir = null;
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Deque<CompletableFuture<PreparedEntry>> pending = new ArrayDeque<>();
+        try (Stream<Path> stream = Files.walk(directory, FileVisitOption.FOLLOW_LINKS);
+                ZipArchiveOutputStream zipOutput = new ZipArchiveOutputStream(output)) {
+            List<Path> paths = stream.filter(path -> !path.equals(directory)).sorted().collect(Collectors.toList());
+            Map<Path, List<String>> missingChecksums = missingChecksums(paths);
+            // the stale checksum files are replaced by the generated entries, and rewritten by this thread only
+            Set<Path> replacedChecksumFiles = new HashSet<>();
+            for (Map.Entry<Path, List<String>> missing : missingChecksums.entrySet()) {
+                for (String alg : missing.getValue()) {
+                    replacedChecksumFiles.add(ChecksumEngine.checksumFile(missing.getKey(), alg));
+                }
+            }
+            paths.removeAll(replacedChecksumFiles);
+            tempDir = Files.createTempDirectory("bacon-zip");
+            Path entriesDir = tempDir;
+            Function<Path, CompletableFuture<PreparedEntry>> schedule = path -> prepareAsync(
+                    path,
+                    missingChecksums.getOrDefault(path, List.of()),
+                    workingDirectory.toPath(),
+                    entriesDir,
+                    executor);
+
+            Iterator<Path> toPrepare = paths.iterator();
+            int window = parallelism * 2;
+            while (pending.size() < window && toPrepare.hasNext()) {
+                pending.add(schedule.apply(toPrepare.next()));
+            }
+            while (!pending.isEmpty()) {
+                try (PreparedEntry prepared = pending.poll().join()) {
+                    if (toPrepare.hasNext()) {
+                        pending.add(schedule.apply(toPrepare.next()));
+                    }
+                    log.debug("zip: {}", prepared.entry.getName());
+                    entries.add(prepared.entry.getName());
+                    try (InputStream rawContent = prepared.openRawContent()) {
+                        zipOutput.addRawArchiveEntry(prepared.entry, rawContent);
+                    }
+                    for (PreparedEntry checksum : prepared.checksumEntries) {
+                        checksum.writeChecksumFile();
+                        entries.add(checksum.entry.getName());
+                        try (InputStream rawContent = checksum.openRawContent()) {
+                            zipOutput.addRawArchiveEntry(checksum.entry, rawContent);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException | CompletionException e) {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            throw new RuntimeException("Zip of directory " + directory + " to " + output + " failed", cause);
+        } finally {
+            executor.shutdownNow();
+            pending.forEach(future -> future.thenAccept(PreparedEntry::close));
+            if (tempDir != null) {
+                org.apache.commons.io.FileUtils.deleteQuietly(tempDir.toFile());
+            }
+        }
+
+        return Collections.unmodifiableCollection(entries);
+    }
+
+    private CompletableFuture<PreparedEntry> prepareAsync(
+            Path path,
+            List<String> checksumAlgs,
+            Path workingDirectory,
+            Path tempDir,
+            ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return prepare(path, checksumAlgs, workingDirectory, tempDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to compress " + path, e);
+            }
+        }, executor);
+    }
+
+    private PreparedEntry prepare(Path path, List<String> checksumAlgs, Path workingDirectory, Path tempDir)
+            throws IOException {
+        String entryName = FilenameUtils.normalize(workingDirectory.relativize(path).toString(), true);
+        if (Files.isDirectory(path)) {
+            entryName += "/"; // required for directories
+        }
+        // only the mode and the modification time are taken from the file, e.g. its access time would make the archive
+        // differ from run to run
+        ZipArchiveEntry entry = new ZipArchiveEntry(entryName);
+        FileUtils.setModeAndLastModifiedTime(path, entry);
+
+        if (Files.isSymbolicLink(path)) {
+            byte[] target = Files.readSymbolicLink(path).toString().getBytes(StandardCharsets.UTF_8);
+            return deflate(entry, () -> new ByteArrayInputStream(target), target.length, tempDir, Map.of());
+        } else if (Files.isRegularFile(path)) {
+            Map<String, MessageDigest> digests = new LinkedHashMap<>();
+            for (String alg : checksumAlgs) {
+                digests.put(alg, ChecksumEngine.newDigest(alg));
+            }
+            PreparedEntry prepared = isCompressed(path) ? store(entry, path, digests)
+                    : deflate(entry, () -> Files.newInputStream(path), Files.size(path), tempDir, digests);
+            for (Map.Entry<String, MessageDigest> digest : digests.entrySet()) {
+                prepared.checksumEntries.add(checksumEntry(path, entry, digest.getKey(), digest.getValue()));
+            }
+            return prepared;
+        } else if (Files.isDirectory(path)) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(0);
+            entry.setCompressedSize(0);
+            entry.setCrc(0);
+            return new PreparedEntry(entry, new byte[0], null, null);
+        } else {
+            throw new RuntimeException("Unsupported file type for: " + path);
+        }
+    }
+
+    /**
+     * Decide which checksums are added, before any file is zipped
+     *
+     * @param paths the files to zip
+     * @return algorithms of the checksums to add, by file. Files without missing checksums are left out.
+     */
+    private Map<Path, List<String>> missingChecksums(List<Path> paths) throws IOException {
+        Map<Path, List<String>> result = new LinkedHashMap<>();
+        if (checksummedDirectory == null) {
+            return result;
+        }
+        for (Path path : paths) {
+            if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+                    || !path.toAbsolutePath().normalize().startsWith(checksummedDirectory)
+                    || ChecksumEngine.isChecksumFile(path)) {
+                continue;
+            }
+            List<String> algs = new ArrayList<>();
+            for (String alg : checksumAlgorithms) {
+                if (!ChecksumEngine.isCurrent(path, alg)) {
+                    algs.add(alg);
+                }
+            }
+            if (!algs.isEmpty()) {
+                result.put(path, algs);
+            }
+        }
+        return result;
+    }
+
+    private static PreparedEntry checksumEntry(Path path, ZipArchiveEntry fileEntry, String alg, MessageDigest digest)
+            throws IOException {
+        byte[] checksum = Hex.encodeHexString(digest.digest()).getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(checksum);
+
+        ZipArchiveEntry entry = new ZipArchiveEntry(fileEntry.getName() + "." + alg);
+        entry.setLastModifiedTime(fileEntry.getLastModifiedTime());
+        if (fileEntry.getPlatform() == ZipArchiveEntry.PLATFORM_UNIX) {
+            entry.setUnixMode(fileEntry.getUnixMode());
+        }
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(checksum.length);
+        entry.setCompressedSize(checksum.length);
+        entry.setCrc(crc.getValue());
+        PreparedEntry prepared = new PreparedEntry(entry, checksum, null, null);
+        prepared.checksumFile = ChecksumEngine.checksumFile(path, alg);
+        prepared.checksumFileTime = Files.getLastModifiedTime(path);
+        return prepared;
+    }
+
+    static boolean isCompressed(Path path) {
+        String extension = FilenameUtils.getExtension(path.getFileName().toString());
+        return COMPRESSED_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    private static PreparedEntry store(ZipArchiveEntry entry, Path path, Map<String, MessageDigest> digests)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                for (MessageDigest digest : digests.values()) {
+                    digest.update(buffer, 0, read);
+                }
+                size += read;
+            }
+        }
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+        return new PreparedEntry(entry, null, path, null);
+    }
+
+    private static PreparedEntry deflate(
+            ZipArchiveEntry entry,
+            ContentSupplier content,
+            long size,
+            Path tempDir,
+            Map<String, MessageDigest> digests) throws IOException {
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream inMemory = null;
+        Path tempFile = null;
+        try {
+            OutputStream compressed;
+            if (size <= IN_MEMORY_LIMIT) {
+                inMemory = new ByteArrayOutputStream((int) Math.max(32, size / 2));
+                compressed = inMemory;
+            } else {
+                tempFile = Files.createTempFile(tempDir, "entry", ".deflated");
+                compressed = Files.newOutputStream(tempFile);
+            }
+            InputStream input = content.open();
+            for (MessageDigest digest : digests.values()) {
+                input = new DigestInputStream(input, digest);
+            }
+            try (InputStream in = new CheckedInputStream(input, crc);
+                    DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater, BUFFER_SIZE)) {
+                IOUtils.copy(in, out, BUFFER_SIZE);
+            }
+            entry.setMethod(ZipEntry.DEFLATED);
+            entry.setSize(deflater.getBytesRead());
+            entry.setCompressedSize(deflater.getBytesWritten());
+            entry.setCrc(crc.getValue());
+            return new PreparedEntry(entry, inMemory == null ? null : inMemory.toByteArray(), null, tempFile);
+        } catch (IOException | RuntimeException e) {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+            }
+            throw e;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentSupplier {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * An entry ready to be copied into the archive, with its content either in memory, in the original file (for
+     * stored entries) or in a temporary file
+     */
+    private static class PreparedEntry implements Closeable {
+        private final ZipArchiveEntry entry;
+        private final byte[] content;
+        private final Path file;
+        private final Path tempFile;
+        private final List<PreparedEntry> checksumEntries = new ArrayList<>();
+        private Path checksumFile;
+        private FileTime checksumFileTime;
+
+        private PreparedEntry(ZipArchiveEntry entry, byte[] content, Path file, Path tempFile) {
+            this.entry = entry;
+            this.content = content;
+            this.file = file;
+            this.tempFile = tempFile;
+        }
+
+        private InputStream openRawContent() throws IOException {
+            if (content != null) {
+                return new ByteArrayInputStream(content);
+            }
+            return Files.newInputStream(file != null ? file : tempFile);
+        }
+
+        /**
+         * Write the generated checksum next to its file, with the same modification time, so that the directory
+         * matches the archive
+         */
+        private void writeChecksumFile() throws IOException {
+            Files.write(checksumFile, content);
+            Files.setLastModifiedTime(checksumFile, checksumFileTime);
+        }
+
+        @Override
+        public void close() {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.debug("Unable to delete {}", tempFile, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.jboss.pnc.bacon.pig.impl.documents.sharedcontent;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.pnc.bacon.pig.impl.utils.GAV;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MRRCReleaseCheckerTest {
+
+    private static final String METADATA = "<metadata><groupId>org.foo</groupId><artifactId>bar</artifactId>"
+            + "<versioning><versions><version>1.0.0.redhat-00001</version><version>1.1.0.redhat-00001</version>"
+            + "</versions></versioning></metadata>";
+
+    private WireMockServer mockServer;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    void startMockServer() {
+        mockServer = new WireMockServer(options().dynamicPort());
+        mockServer.start();
+    }
+
+    @AfterAll
+    void stopMockServer() {
+        mockServer.stop();
+    }
+
+    @BeforeEach
+    void clearStubs() {
+        mockServer.resetAll();
+    }
+
+    @Test
+    void shouldAnswerUnlistedVersionsFromMetadata() {
+        GAV listed = gav("bar", "1.0.0.redhat-00001");
+        GAV unlisted = gav("bar", "2.0.0.redhat-00001");
+        mockServer.stubFor(
+                get(urlEqualTo("/org/foo/bar/maven-metadata.xml")).willReturn(aResponse().withBody(METADATA)));
+        mockServer.stubFor(head(urlEqualTo("/" + listed.toUri())).willReturn(aResponse().withStatus(200)));
+
+        Map<String, Boolean> released = checker().check(List.of(listed, unlisted));
+
+        assertEquals(Boolean.TRUE, released.get(listed.toUri()));
+        assertEquals(Boolean.FALSE, released.get(unlisted.toUri()));
+        mockServer.verify(0, headRequestedFor(urlEqualTo("/" + unlisted.toUri())));
+    }
+
+    @Test
+    void shouldCheckFilesOfListedVersions() {
+        GAV jar = gav("bar", "1.1.0.redhat-00001");
+        GAV sources = new GAV("org.foo", "bar", "1.1.0.redhat-00001", "jar", "sources");
+        mockServer.stubFor(
+                get(urlEqualTo("/org/foo/bar/maven-metadata.xml")).willReturn(aResponse().withBody(METADATA)));
+        mockServer.stubFor(head(urlEqualTo("/" + jar.toUri())).willReturn(aResponse().withStatus(200)));
+        mockServer.stubFor(head(urlEqualTo("/" + sources.toUri())).willReturn(aResponse().withStatus(404)));
+
+        Map<String, Boolean> released = checker().check(List.of(jar, sources));
+
+        assertEquals(Boolean.TRUE, released.get(jar.toUri()));
+        assertEquals(Boolean.FALSE, released.get(sources.toUri()));
+    }
+
+    @Test
+    void shouldFallBackToHeadWithoutMetadata() {
+        GAV released = gav("baz", "1.0.0.redhat-00001");
+        GAV notReleased = gav("baz", "1.1.0.redhat-00001");
+        mockServer.stubFor(get(urlEqualTo("/org/foo/baz/maven-metadata.xml")).willReturn(aResponse().withStatus(404)));
+        mockServer.stubFor(head(urlEqualTo("/" + released.toUri())).willReturn(aResponse().withStatus(200)));
+        mockServer.stubFor(head(urlEqualTo("/" + notReleased.toUri())).willReturn(aResponse().withStatus(404)));
+
+        Map<String, Boolean> result = checker().check(List.of(released, notReleased));
+
+        assertEquals(Boolean.TRUE, result.get(released.toUri()));
+        assertEquals(Boolean.FALSE, result.get(notReleased.toUri()));
+    }
+
+    @Test
+    void shouldReuseResultsAcrossRuns() {
+        GAV gav = gav("qux", "1.0.0.redhat-00001");
+        mockServer.stubFor(head(urlEqualTo("/" + gav.toUri())).willReturn(aResponse().withStatus(200)));
+
+        assertEquals(Boolean.TRUE, checker().isReleased(gav));
+        assertEquals(Boolean.TRUE, checker().isReleased(gav));
+
+        mockServer.verify(1, headRequestedFor(urlEqualTo("/" + gav.toUri())));
+    }
+
+    @Test
+    void shouldNotCacheServerErrors() {
+        GAV gav = gav("quux", "1.0.0.redhat-00001");
+        mockServer.stubFor(head(urlEqualTo("/" + gav.toUri())).willReturn(aResponse().withStatus(503)));
+
+        assertNull(checker().isReleased(gav));
+
+        mockServer.stubFor(head(urlEqualTo("/" + gav.toUri())).willReturn(aResponse().withStatus(200)));
+        assertEquals(Boolean.TRUE, checker().isReleased(gav));
+        mockServer.verify(2, headRequestedFor(urlEqualTo("/" + gav.toUri())));
+    }
+
+    private MRRCReleaseChecker checker() {
+        return new MRRCReleaseChecker(
+                "http://localhost:" + mockServer.port() + "/",
+                4,
+                tempDir.resolve("mrrc-cache.txt"));
+    }
+
+    private static GAV gav(String artifactId, String version) {
+        return new GAV("org.foo", artifactId, version, "jar");
+    }
+}
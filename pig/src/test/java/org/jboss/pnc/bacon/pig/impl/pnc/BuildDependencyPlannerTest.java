@@ -0,0 +1,50 @@
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pnc.bacon.pig.impl.config.BuildConfig;
+import org.junit.jupiter.api.Test;
+
+class BuildDependencyPlannerTest {
+
+    @Test
+    void shouldPlanAdditionsAndRemovals() {
+        BuildConfigData core = config("1", "core");
+        BuildConfigData api = config("2", "api", "core");
+        BuildConfigData impl = config("3", "impl", "core", "api");
+        BuildConfigData docs = config("4", "docs");
+
+        BuildDependencyPlanner.Plan plan = BuildDependencyPlanner.plan(
+                List.of(core, api, impl, docs),
+                Map.of("2", Set.of("1"), "3", Set.of("1", "4"), "4", Set.of("1")));
+
+        assertEquals(Set.of("3", "4"), plan.getChanges().keySet());
+        assertEquals(Set.of("2"), plan.getChanges().get("3").getAdded());
+        assertEquals(Set.of("4"), plan.getChanges().get("3").getRemoved());
+        assertEquals(Set.of(), plan.getChanges().get("4").getAdded());
+        assertEquals(Set.of("1"), plan.getChanges().get("4").getRemoved());
+        assertEquals(1, plan.getAdditionCount());
+        assertEquals(2, plan.getRemovalCount());
+    }
+
+    @Test
+    void shouldFailOnUndefinedDependency() {
+        RuntimeException e = assertThrows(
+                RuntimeException.class,
+                () -> BuildDependencyPlanner.plan(List.of(config("1", "impl", "missing")), Map.of()));
+        assertTrue(e.getMessage().contains("missing"));
+    }
+
+    private static BuildConfigData config(String id, String name, String... dependencies) {
+        BuildConfig buildConfig = new BuildConfig();
+        buildConfig.setName(name);
+        buildConfig.setDependencies(List.of(dependencies));
+        BuildConfigData data = new BuildConfigData(buildConfig);
+        data.setId(id);
+        return data;
+    }
+}
@@ -0,0 +1,94 @@
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.TargetRepository;
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.enums.RepositoryType;
+import org.junit.jupiter.api.Test;
+
+class DependencyArtifactCollectorTest {
+
+    private static final TargetRepository REPOSITORY = TargetRepository.refBuilder()
+            .identifier("repo1")
+            .repositoryType(RepositoryType.MAVEN)
+            .build();
+
+    @Test
+    void shouldCollectAllPagesAndShareArtifactsBetweenBuilds() {
+        int pageSize = DependencyArtifactCollector.PAGE_SIZE;
+        // build1 depends on artifacts 0..449, build2 on 300..349
+        Map<String, List<Artifact>> dependencies = Map
+                .of("build1", artifacts(0, pageSize * 2 + 50), "build2", artifacts(300, 350));
+        Map<String, AtomicInteger> requestedPages = new ConcurrentHashMap<>();
+        DependencyArtifactCollector collector = new DependencyArtifactCollector(
+                4,
+                (buildId, filter, pageIndex, size) -> {
+                    requestedPages.computeIfAbsent(buildId, k -> new AtomicInteger()).incrementAndGet();
+                    return page(dependencies.get(buildId), pageIndex, size);
+                });
+
+        PncBuild build1 = build("build1");
+        PncBuild build2 = build("build2");
+        collector.collect(List.of(build1, build2), "identifier=like=%redhat%");
+
+        assertEquals(3, requestedPages.get("build1").get());
+        assertEquals(1, requestedPages.get("build2").get());
+        assertEquals(ids(dependencies.get("build1")), wrapperIds(build1.getDependencyArtifacts()));
+        assertEquals(ids(dependencies.get("build2")), wrapperIds(build2.getDependencyArtifacts()));
+        assertEquals(pageSize * 2 + 50, collector.size());
+        assertSame(build1.getDependencyArtifacts().get(300), build2.getDependencyArtifacts().get(0));
+    }
+
+    @Test
+    void shouldFailWhenAPageCannotBeFetched() {
+        DependencyArtifactCollector collector = new DependencyArtifactCollector(2, (buildId, filter, pageIndex, size) -> {
+            throw new IllegalStateException("PNC is down");
+        });
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> collector.collect(List.of(build("42")), null));
+        assertTrue(e.getMessage().contains("42"));
+    }
+
+    private static PncBuild build(String id) {
+        PncBuild build = new PncBuild();
+        build.setId(id);
+        build.setName(id);
+        return build;
+    }
+
+    private static List<Artifact> artifacts(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(
+                        i -> Artifact.builder()
+                                .id(Integer.toString(i))
+                                .identifier("org:dependency:jar:1.0." + i + ".redhat-00001")
+                                .targetRepository(REPOSITORY)
+                                .build())
+                .collect(Collectors.toList());
+    }
+
+    private static Page<Artifact> page(List<Artifact> artifacts, int pageIndex, int pageSize) {
+        int totalPages = (artifacts.size() + pageSize - 1) / pageSize;
+        List<Artifact> content = new ArrayList<>(
+                artifacts.subList(pageIndex * pageSize, Math.min(artifacts.size(), (pageIndex + 1) * pageSize)));
+        return new Page<>(pageIndex, pageSize, totalPages, artifacts.size(), content);
+    }
+
+    private static List<String> ids(List<Artifact> artifacts) {
+        return artifacts.stream().map(Artifact::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> wrapperIds(List<ArtifactWrapper> artifacts) {
+        return artifacts.stream().map(ArtifactWrapper::getId).collect(Collectors.toList());
+    }
+}
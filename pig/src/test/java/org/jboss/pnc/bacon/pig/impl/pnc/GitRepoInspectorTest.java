@@ -0,0 +1,60 @@
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GitRepoInspectorTest {
+
+    @TempDir
+    Path tmpDir;
+
+    private Git upstream;
+    private URIish url;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        GitRepoInspector.setMirrorsDirectory(tmpDir.resolve("mirrors").toFile());
+        File upstreamDir = tmpDir.resolve("upstream").toFile();
+        upstream = Git.init().setDirectory(upstreamDir).setInitialBranch("main").call();
+        url = new URIish(upstreamDir.toURI().toURL());
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+        GitRepoInspector.setMirrorsDirectory(new File(GitRepoInspector.GIT_CACHE_LOCATION));
+    }
+
+    @Test
+    void shouldCompareBranchWithTheTagOfTheLatestBuild() throws Exception {
+        RevCommit upstreamCommit = commit("upstream");
+        // the alignment commit of the build is tagged, it's not on the branch
+        upstream.checkout().setCreateBranch(true).setName("build").call();
+        RevCommit alignmentCommit = commit("alignment");
+        upstream.tag().setName("1.0.0.redhat-00001").setAnnotated(true).setMessage("build").call();
+        upstream.checkout().setName("main").call();
+
+        assertFalse(GitRepoInspector.isModifiedBranch(url, "main", "1.0.0.redhat-00001"));
+        assertFalse(GitRepoInspector.isModifiedBranch(url, upstreamCommit.getName(), "1.0.0.redhat-00001"));
+        assertFalse(GitRepoInspector.isModifiedBranch(url, "build", "1.0.0.redhat-00001"));
+        assertFalse(GitRepoInspector.isModifiedBranch(url, alignmentCommit.getName(), "1.0.0.redhat-00001"));
+
+        commit("change");
+        assertTrue(GitRepoInspector.isModifiedBranch(url, "main", "1.0.0.redhat-00001"));
+        assertTrue(GitRepoInspector.isModifiedBranch(url, "main", "missing-tag"));
+    }
+
+    private RevCommit commit(String message) throws Exception {
+        return upstream.commit().setMessage(message).setAllowEmpty(true).setSign(false).call();
+    }
+}
@@ -0,0 +1,25 @@
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.jboss.pnc.client.ClientException;
+import org.junit.jupiter.api.Test;
+
+class PncCallStatsTest {
+
+    @Test
+    void shouldRecordSuccessfulAndFailedCalls() throws ClientException {
+        PncCallStats stats = new PncCallStats();
+
+        assertEquals("result", stats.time("getBuild", () -> "result"));
+        assertThrows(ClientException.class, () -> stats.time("getBuild", () -> {
+            throw new ClientException("failed");
+        }));
+        stats.time("getBuiltArtifacts", () -> null);
+
+        assertEquals(2, stats.getCount("getBuild"));
+        assertEquals(1, stats.getCount("getBuiltArtifacts"));
+        assertEquals(0, stats.getCount("getGroupBuild"));
+        assertTrue(stats.summary().contains("getBuild: 2 calls"));
+    }
+}
@@ -0,0 +1,139 @@
+package org.jboss.pnc.bacon.pig.impl.pnc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import org.jboss.pnc.bacon.pig.impl.config.BuildConfig;
+import org.jboss.pnc.bacon.pig.impl.config.PigConfiguration;
+import org.jboss.pnc.client.BuildConfigurationClient;
+import org.jboss.pnc.client.ClientException;
+import org.jboss.pnc.client.EnvironmentClient;
+import org.jboss.pnc.client.GroupConfigurationClient;
+import org.jboss.pnc.client.ProductClient;
+import org.jboss.pnc.client.ProductVersionClient;
+import org.jboss.pnc.client.ProjectClient;
+import org.jboss.pnc.client.RemoteCollection;
+import org.jboss.pnc.dto.BuildConfiguration;
+import org.jboss.pnc.dto.Project;
+import org.jboss.pnc.dto.SCMRepository;
+import org.jboss.pnc.restclient.AdvancedSCMRepositoryClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PncEntitiesImporterTest {
+
+    private BuildConfigurationClient buildConfigClient;
+    private BuildConfigurationClient workerBuildConfigClient;
+    private ProjectClient projectClient;
+    private AdvancedSCMRepositoryClient repoClient;
+
+    @BeforeEach
+    void setup() throws Exception {
+        buildConfigClient = mock(BuildConfigurationClient.class);
+        workerBuildConfigClient = mock(BuildConfigurationClient.class);
+        projectClient = mock(ProjectClient.class);
+        repoClient = mock(AdvancedSCMRepositoryClient.class);
+
+        when(buildConfigClient.getAll(any(), any())).thenReturn(remoteCollection(List.of()));
+        when(projectClient.getAll(any(), any())).thenReturn(remoteCollection(List.of()));
+        when(projectClient.createNew(any(Project.class))).thenAnswer(invocation -> {
+            // keep the creation in progress while the other build configs look the project up
+            Thread.sleep(200);
+            Project project = invocation.getArgument(0);
+            return Project.builder().id("project-" + project.getName()).name(project.getName()).build();
+        });
+        when(repoClient.getAll(anyString(), isNull())).thenAnswer(
+                invocation -> remoteCollection(
+                        List.of(SCMRepository.builder().id("1").internalUrl(invocation.getArgument(0)).build())));
+        when(workerBuildConfigClient.createNew(any(BuildConfiguration.class))).thenAnswer(invocation -> {
+            BuildConfiguration config = invocation.getArgument(0);
+            if ("broken".equals(config.getName())) {
+                throw new ClientException("failed");
+            }
+            return config.toBuilder().id("config-" + config.getName()).build();
+        });
+    }
+
+    @Test
+    void shouldCreateSharedProjectOnce() throws Exception {
+        try (PncEntitiesImporter importer = importer()) {
+            List<BuildConfigData> configs = importer
+                    .updateOrCreate(List.of(build("api", "shared"), build("impl", "shared")), false, false);
+
+            assertEquals(
+                    List.of("config-api", "config-impl"),
+                    configs.stream().map(BuildConfigData::getId).collect(Collectors.toList()));
+        }
+        verify(projectClient, times(1)).createNew(any(Project.class));
+    }
+
+    @Test
+    void shouldReportTheFailureOfAWorker() {
+        try (PncEntitiesImporter importer = importer()) {
+            List<BuildConfig> builds = List.of(build("api", "api"), build("broken", "broken"));
+
+            RuntimeException e = assertThrows(
+                    RuntimeException.class,
+                    () -> importer.updateOrCreate(builds, false, false));
+
+            assertFalse(e instanceof CompletionException, e.toString());
+            assertTrue(e.getMessage().startsWith("Failed to create build configuration"), e.getMessage());
+            assertInstanceOf(ClientException.class, e.getCause());
+        }
+    }
+
+    private PncEntitiesImporter importer() {
+        return new PncEntitiesImporter(
+                mock(PigConfiguration.class),
+                buildConfigClient,
+                mock(GroupConfigurationClient.class),
+                mock(ProductClient.class),
+                mock(ProductVersionClient.class),
+                mock(EnvironmentClient.class),
+                mock(PncConfigurator.class),
+                () -> new PncEntitiesImporter.ImportClients(workerBuildConfigClient, projectClient, repoClient));
+    }
+
+    private static BuildConfig build(String name, String project) {
+        BuildConfig buildConfig = new BuildConfig();
+        buildConfig.setName(name);
+        buildConfig.setProject(project);
+        buildConfig.setScmUrl("git+ssh://code.example.com/" + name + ".git");
+        buildConfig.setScmRevision("main");
+        buildConfig.setBuildScript("mvn deploy");
+        buildConfig.setBuildType("MVN");
+        buildConfig.setEnvironmentId("1");
+        return buildConfig;
+    }
+
+    private static <T> RemoteCollection<T> remoteCollection(List<T> items) {
+        return new RemoteCollection<T>() {
+            @Override
+            public int size() {
+                return items.size();
+            }
+
+            @Override
+            public Collection<T> getAll() {
+                return items;
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return items.iterator();
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package org.jboss.pnc.bacon.pig.impl.repo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChecksumEngineTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void shouldComputeAllChecksumsInOnePass() throws IOException {
+        // larger than the buffer, so that the file is read in several chunks
+        byte[] content = new byte[ChecksumEngine.BUFFER_SIZE * 2 + 123];
+        new Random(42).nextBytes(content);
+        Path file = Files.write(tmpDir.resolve("big.zip"), content);
+
+        Map<String, String> checksums = ChecksumEngine.digest(file, List.of("md5", "sha1", "sha256", "sha512"));
+
+        assertEquals(DigestUtils.md5Hex(content), checksums.get("md5"));
+        assertEquals(DigestUtils.sha1Hex(content), checksums.get("sha1"));
+        assertEquals(DigestUtils.sha256Hex(content), checksums.get("sha256"));
+        assertEquals(DigestUtils.sha512Hex(content), checksums.get("sha512"));
+    }
+
+    @Test
+    void shouldSkipCurrentChecksumFiles() throws IOException {
+        Path file = Files.writeString(tmpDir.resolve("foo.jar"), "foo", UTF_8);
+        Path md5 = tmpDir.resolve("foo.jar.md5");
+        Path sha1 = tmpDir.resolve("foo.jar.sha1");
+
+        try (ChecksumEngine engine = new ChecksumEngine(2)) {
+            engine.addCheckSums(List.of(file), "md5", "sha1");
+        }
+        assertEquals(DigestUtils.md5Hex("foo"), Files.readString(md5, UTF_8));
+        assertEquals(DigestUtils.sha1Hex("foo"), Files.readString(sha1, UTF_8));
+        assertFalse(ChecksumEngine.addCheckSums(file, "md5", "sha1"));
+
+        Files.writeString(file, "bar", UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(md5).toMillis() + 2000));
+        assertTrue(ChecksumEngine.addCheckSums(file, "md5", "sha1"));
+        assertEquals(DigestUtils.md5Hex("bar"), Files.readString(md5, UTF_8));
+        assertEquals(DigestUtils.sha1Hex("bar"), Files.readString(sha1, UTF_8));
+    }
+
+    @Test
+    void shouldKeepChecksumFilesNewerThanTheirFile() throws IOException {
+        Path file = Files.writeString(tmpDir.resolve("foo.jar"), "foo", UTF_8);
+        Path sha1 = Files.writeString(tmpDir.resolve("foo.jar.sha1"), "upstream", UTF_8);
+        Files.setLastModifiedTime(sha1, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+
+        assertTrue(ChecksumEngine.isCurrent(file, "sha1"));
+        assertFalse(ChecksumEngine.isCurrent(file, "md5"));
+        assertTrue(ChecksumEngine.addCheckSums(file, "md5", "sha1"));
+        assertEquals("upstream", Files.readString(sha1, UTF_8));
+        assertEquals(DigestUtils.md5Hex("foo"), Files.readString(tmpDir.resolve("foo.jar.md5"), UTF_8));
+    }
+
+    @Test
+    void shouldReportMismatchingChecksumFiles() throws IOException {
+        Path good = Files.writeString(tmpDir.resolve("good.jar"), "good", UTF_8);
+        Path bad = Files.writeString(tmpDir.resolve("bad.jar"), "bad", UTF_8);
+        Path unchecked = Files.writeString(tmpDir.resolve("unchecked.jar"), "unchecked", UTF_8);
+        Files.writeString(tmpDir.resolve("good.jar.md5"), DigestUtils.md5Hex("good").toUpperCase() + "  good.jar\n");
+        Files.writeString(tmpDir.resolve("good.jar.sha1"), DigestUtils.sha1Hex("good"), UTF_8);
+        Files.writeString(tmpDir.resolve("bad.jar.md5"), DigestUtils.md5Hex("bad"), UTF_8);
+        Files.writeString(tmpDir.resolve("bad.jar.sha1"), DigestUtils.sha1Hex("other"), UTF_8);
+
+        List<ChecksumEngine.Mismatch> mismatches;
+        try (ChecksumEngine engine = new ChecksumEngine(2)) {
+            mismatches = engine.verify(List.of(good, bad, unchecked), "md5", "sha1");
+        }
+
+        ChecksumEngine.Mismatch expected = new ChecksumEngine.Mismatch(
+                bad,
+                "sha1",
+                DigestUtils.sha1Hex("other"),
+                DigestUtils.sha1Hex("bad"));
+        assertEquals(List.of(expected), mismatches);
+    }
+
+    @Test
+    void shouldLimitConcurrentLargeFiles() throws Exception {
+        Path large = tmpDir.resolve("large.zip");
+        try (RandomAccessFile file = new RandomAccessFile(large.toFile(), "rw")) {
+            file.setLength(ChecksumEngine.LARGE_FILE_SIZE);
+        }
+        ChecksumEngine.setLargeFileConcurrency(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // hold the only permit, so that the large file has to wait for it
+            Semaphore permits = ChecksumEngine.largeFiles;
+            permits.acquire();
+            Future<Map<String, String>> checksums = executor.submit(() -> ChecksumEngine.digest(large, List.of("md5")));
+            while (!permits.hasQueuedThreads()) {
+                Thread.sleep(10);
+            }
+            assertFalse(checksums.isDone());
+
+            permits.release();
+            String expected;
+            try (InputStream input = Files.newInputStream(large)) {
+                expected = DigestUtils.md5Hex(input);
+            }
+            assertEquals(expected, checksums.get(30, TimeUnit.SECONDS).get("md5"));
+        } finally {
+            executor.shutdownNow();
+            ChecksumEngine.setLargeFileConcurrency(2);
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownAlgorithms() throws IOException {
+        Path file = Files.writeString(tmpDir.resolve("foo.jar"), "foo", UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> ChecksumEngine.addCheckSums(file, "crc32"));
+    }
+}
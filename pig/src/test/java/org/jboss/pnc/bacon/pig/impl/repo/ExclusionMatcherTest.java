@@ -0,0 +1,51 @@
+package org.jboss.pnc.bacon.pig.impl.repo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class ExclusionMatcherTest {
+
+    @Test
+    void shouldMatchAnyOfTheRegexes() {
+        ExclusionMatcher matcher = new ExclusionMatcher(List.of("^org\\.foo:", ":zip:", "(?i)SOURCES$"));
+
+        assertTrue(matcher.matches("org.foo:bar:jar:1.0"));
+        assertTrue(matcher.matches("org.bar:dist:zip:1.0"));
+        assertTrue(matcher.matches("org.bar:baz:jar:1.0:sources"));
+        assertFalse(matcher.matches("com.org.foo:bar:jar:1.0"));
+        assertFalse(matcher.matches("org.bar:baz:jar:1.0"));
+        assertEquals(Optional.of(":zip:"), matcher.findMatchingRegex("org.bar:dist:zip:1.0"));
+    }
+
+    @Test
+    void shouldKeepTheGroupsOfEveryRegex() {
+        ExclusionMatcher matcher = new ExclusionMatcher(List.of("^(a):\\1:", "(?<v>b):\\k<v>:", "(?<v>c)x"));
+
+        assertTrue(matcher.matches("a:a:jar:1"));
+        assertFalse(matcher.matches("a:b:jar:1"));
+        assertTrue(matcher.matches("b:b:jar:1"));
+        assertTrue(matcher.matches("cx:b:jar:1"));
+    }
+
+    @Test
+    void shouldAcceptUnclosedQuotes() {
+        ExclusionMatcher matcher = new ExclusionMatcher(List.of("\\Qorg.foo:bar", "^org\\.baz:"));
+
+        assertTrue(matcher.matches("org.foo:bar:jar:1.0"));
+        assertTrue(matcher.matches("org.baz:qux:jar:1.0"));
+        assertFalse(matcher.matches("orgxfoo:bar:jar:1.0"));
+        assertEquals(Optional.of("\\Qorg.foo:bar"), matcher.findMatchingRegex("org.foo:bar:jar:1.0"));
+    }
+
+    @Test
+    void shouldMatchNothingWithoutRegexes() {
+        ExclusionMatcher matcher = new ExclusionMatcher(List.of());
+
+        assertTrue(matcher.isEmpty());
+        assertFalse(matcher.matches("org.foo:bar:jar:1.0"));
+    }
+}
@@ -4,9 +4,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -57,6 +59,23 @@ class RepositoryUtilsTest {
         assertTrue(another.exists());
     }
 
+    @Test
+    void testRemoveExcludedArtifactsWithSeveralRegexes(@TempDir Path tmpDir) throws IOException {
+        Path repo = tmpDir.resolve("repo");
+        Path bar = Files.createDirectories(repo.resolve("org/foo/bar/1.0"));
+        Path baz = Files.createDirectories(repo.resolve("org/foo/baz/1.0"));
+        Files.createFile(bar.resolve("bar-1.0.jar"));
+        Files.createFile(bar.resolve("bar-1.0.pom"));
+        Files.createFile(baz.resolve("baz-1.0.jar"));
+        Files.createFile(baz.resolve("baz-1.0-dist.zip"));
+
+        RepositoryUtils.removeExcludedArtifacts(repo.toFile(), List.of("^org\\.foo:bar:", ":zip:"));
+
+        assertFalse(Files.exists(repo.resolve("org/foo/bar")));
+        assertTrue(Files.exists(baz.resolve("baz-1.0.jar")));
+        assertFalse(Files.exists(baz.resolve("baz-1.0-dist.zip")));
+    }
+
     @Test
     void testConvertArtifactPathToIdentifier() {
         String path = "test.me.here/letmego/1.2.3/letmego-1.2.3.tar";
@@ -0,0 +1,133 @@
+package org.jboss.pnc.bacon.pig.impl.sources;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.jboss.pnc.bacon.pig.impl.pnc.PncBuild;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ScmTarballFetcherTest {
+
+    @TempDir
+    Path contentsDir;
+
+    @Test
+    void shouldExtractTarballsUnderTheBuildNames() throws IOException {
+        Map<String, byte[]> tarballs = Map.of(
+                "1",
+                tarGz(
+                        "project-abc123/",
+                        null,
+                        "project-abc123/pom.xml",
+                        "<project/>",
+                        "project-abc123/repositories-backup.xml",
+                        "<settings/>"),
+                "2",
+                tarGz("other-def456/", null, "other-def456/src/Main.java", "class Main {}"));
+
+        try (ScmTarballFetcher fetcher = new ScmTarballFetcher(
+                2,
+                build -> new ByteArrayInputStream(tarballs.get(build.getId())))) {
+            fetcher.fetch(List.of(build("1", "project-1.0.0"), build("2", "other-2.0.0")), contentsDir.toFile());
+        }
+
+        assertEquals("<project/>", Files.readString(contentsDir.resolve("project-1.0.0/pom.xml"), UTF_8));
+        assertFalse(Files.exists(contentsDir.resolve("project-1.0.0/repositories-backup.xml")));
+        assertEquals("class Main {}", Files.readString(contentsDir.resolve("other-2.0.0/src/Main.java"), UTF_8));
+        assertFalse(Files.exists(contentsDir.resolve("project-abc123")));
+        assertFalse(Files.exists(contentsDir.resolve("other-def456")));
+    }
+
+    @Test
+    void shouldFailOnSeveralTopLevelDirectories() throws IOException {
+        byte[] tarball = tarGz("a/", null, "a/pom.xml", "<project/>", "b/pom.xml", "<project/>");
+
+        try (ScmTarballFetcher fetcher = new ScmTarballFetcher(1, build -> new ByteArrayInputStream(tarball))) {
+            RuntimeException e = assertThrows(
+                    RuntimeException.class,
+                    () -> fetcher.fetch(List.of(build("1", "project")), contentsDir.toFile()));
+            assertTrue(e.getMessage().contains("more than one top-level directory"), e.getMessage());
+        }
+    }
+
+    @Test
+    void shouldExtractHardLinksUnderTheBuildName() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            addFile(tar, "project-abc123/pom.xml", "<project/>");
+            addFile(tar, "project-abc123/repositories-backup.xml", "<settings/>");
+            addHardLink(tar, "project-abc123/sub/pom.xml", "project-abc123/pom.xml");
+            addHardLink(tar, "project-abc123/backup.xml", "project-abc123/repositories-backup.xml");
+            addHardLink(tar, "project-abc123/other.xml", "other-def456/pom.xml");
+        }
+        byte[] tarball = bytes.toByteArray();
+
+        try (ScmTarballFetcher fetcher = new ScmTarballFetcher(1, build -> new ByteArrayInputStream(tarball))) {
+            fetcher.fetch(List.of(build("1", "project-1.0.0")), contentsDir.toFile());
+        }
+
+        assertEquals("<project/>", Files.readString(contentsDir.resolve("project-1.0.0/sub/pom.xml"), UTF_8));
+        assertFalse(Files.exists(contentsDir.resolve("project-1.0.0/backup.xml")));
+        assertFalse(Files.exists(contentsDir.resolve("project-1.0.0/other.xml")));
+        assertFalse(Files.exists(contentsDir.resolve("project-abc123")));
+    }
+
+    private static void addFile(TarArchiveOutputStream tar, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+    }
+
+    private static void addHardLink(TarArchiveOutputStream tar, String name, String target) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name, TarConstants.LF_LINK);
+        entry.setLinkName(target);
+        tar.putArchiveEntry(entry);
+        tar.closeArchiveEntry();
+    }
+
+    private static PncBuild build(String id, String name) {
+        PncBuild build = new PncBuild();
+        build.setId(id);
+        build.setName(name);
+        return build;
+    }
+
+    /**
+     * @param namesAndContents pairs of entry names and contents, a null content stands for a directory
+     */
+    private static byte[] tarGz(String... namesAndContents) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            entries.put(namesAndContents[i], namesAndContents[i + 1]);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                byte[] content = entry.getValue() == null ? new byte[0] : entry.getValue().getBytes(UTF_8);
+                tarEntry.setSize(content.length);
+                tar.putArchiveEntry(tarEntry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+package org.jboss.pnc.bacon.pig.impl.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ExternalLineSorterTest {
+
+    @Test
+    void shouldSortLinesInMemory() throws IOException {
+        StringWriter output = new StringWriter();
+        try (ExternalLineSorter sorter = new ExternalLineSorter(10)) {
+            sorter.add("b");
+            sorter.add("c");
+            sorter.add("a");
+            sorter.writeSorted(output, String::toUpperCase);
+        }
+
+        assertEquals("A\nB\nC\n", output.toString());
+    }
+
+    @Test
+    void shouldMergeSpilledLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            lines.add(Integer.toString(random.nextInt(500)));
+        }
+
+        StringWriter output = new StringWriter();
+        try (ExternalLineSorter sorter = new ExternalLineSorter(64)) {
+            lines.forEach(sorter::add);
+            sorter.writeSorted(output, line -> line);
+        }
+
+        Collections.sort(lines);
+        assertEquals(lines, Arrays.asList(output.toString().split("\n")));
+    }
+}
@@ -5,39 +5,96 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class FileCacheTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
-    void testBasicFunctionality() {
+    void testBasicFunctionality() throws IOException {
 
         String textToCache = "hello-world";
 
-        try {
-            Path tempCacheFile = Files.createTempFile("bacon-test-", "-file-cache");
-            Files.delete(tempCacheFile); // if the file exists but is empty, MapDB complains
+        FileCache fileCache = new FileCache(tempDir.resolve("cache"));
+
+        Path tempFileToCache = Files.createTempFile(tempDir, "bacon-test-file-to-cache", "-file-cache");
+        Files.writeString(tempFileToCache, textToCache);
 
-            FileCache fileCache = new FileCache(tempCacheFile);
+        fileCache.put("test", tempFileToCache.toFile());
 
-            Path tempFileToCache = Files.createTempFile("bacon-test-file-to-cache", "-file-cache");
-            Files.writeString(tempFileToCache, textToCache);
+        Path tempFileFromCache = Files.createTempFile(tempDir, "bacon-test-file-from-cache", "-file-cache");
+        boolean fetched = fileCache.copyTo("test", tempFileFromCache.toFile());
+        assertTrue(fetched);
 
-            fileCache.put("test", tempFileToCache.toFile());
+        String retrievedValue = Files.readString(tempFileFromCache);
+        assertEquals(textToCache, retrievedValue);
 
-            Path tempFileFromCache = Files.createTempFile("bacon-test-file-from-cache", "-file-cache");
-            boolean fetched = fileCache.copyTo("test", tempFileFromCache.toFile());
-            assertTrue(fetched);
+        assertFalse(fileCache.copyTo("non-existent-key", tempFileFromCache.toFile()));
+    }
+
+    @Test
+    void testSameContentIsStoredOnce() throws IOException {
+        Path cacheDir = tempDir.resolve("cache");
+        FileCache fileCache = new FileCache(cacheDir);
 
-            String retrievedValue = Files.readString(tempFileFromCache);
-            assertEquals(textToCache, retrievedValue);
+        Path file = Files.writeString(tempDir.resolve("file"), "same-content");
+        fileCache.put("first", file.toFile());
+        fileCache.put("second", file.toFile());
 
-            assertFalse(fileCache.copyTo("non-existent-key", tempFileFromCache.toFile()));
+        assertEquals(1, countFiles(cacheDir.resolve("blobs")));
+        assertEquals(2, countFiles(cacheDir.resolve("index")));
+
+        Path target = tempDir.resolve("target");
+        assertTrue(fileCache.copyTo("second", target.toFile()));
+        assertEquals("same-content", Files.readString(target));
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() throws IOException {
+        Path cacheDir = tempDir.resolve("cache");
+        FileCache fileCache = new FileCache(cacheDir, 25, false);
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        Path old = Files.writeString(tempDir.resolve("old"), "0123456789");
+        Path used = Files.writeString(tempDir.resolve("used"), "abcdefghij");
+        fileCache.put("old", old.toFile());
+        fileCache.put("used", used.toFile());
+        try (Stream<Path> blobs = Files.walk(cacheDir.resolve("blobs"))) {
+            for (Path blob : (Iterable<Path>) blobs.filter(Files::isRegularFile)::iterator) {
+                Files.setLastModifiedTime(blob, FileTime.from(Instant.now().minusSeconds(3600)));
+            }
         }
+        assertTrue(fileCache.copyTo("used", tempDir.resolve("retrieved").toFile()));
+
+        Path newer = Files.writeString(tempDir.resolve("newer"), "ABCDEFGHIJ");
+        fileCache.put("newer", newer.toFile());
+
+        assertFalse(fileCache.copyTo("old", tempDir.resolve("old-retrieved").toFile()));
+        assertTrue(fileCache.copyTo("used", tempDir.resolve("used-retrieved").toFile()));
+        assertTrue(fileCache.copyTo("newer", tempDir.resolve("newer-retrieved").toFile()));
     }
 
+    @Test
+    void testHardLinkedHit() throws IOException {
+        FileCache fileCache = new FileCache(tempDir.resolve("cache"), FileCache.DEFAULT_MAX_SIZE_BYTES, true);
+
+        Path file = Files.writeString(tempDir.resolve("file"), "linked");
+        fileCache.put("key", file.toFile());
+
+        Path target = Files.writeString(tempDir.resolve("target"), "previous content");
+        assertTrue(fileCache.copyTo("key", target.toFile()));
+        assertEquals("linked", Files.readString(target));
+    }
+
+    private static long countFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
 }
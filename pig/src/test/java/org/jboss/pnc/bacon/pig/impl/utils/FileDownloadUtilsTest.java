@@ -0,0 +1,94 @@
+package org.jboss.pnc.bacon.pig.impl.utils;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FileDownloadUtilsTest {
+
+    private WireMockServer mockServer;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    void startMockServer() {
+        mockServer = new WireMockServer(options().dynamicPort());
+        mockServer.start();
+    }
+
+    @AfterAll
+    void stopMockServer() {
+        mockServer.stop();
+    }
+
+    @BeforeEach
+    void clearStubs() {
+        mockServer.resetAll();
+    }
+
+    @Test
+    void shouldDownloadAllFiles() throws IOException {
+        Map<URI, File> downloads = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            mockServer.stubFor(get(urlEqualTo("/file-" + i)).willReturn(aResponse().withBody("content-" + i)));
+            downloads.put(uri("/file-" + i), tempDir.resolve("nested/file-" + i).toFile());
+        }
+
+        FileDownloadUtils.downloadAll(downloads);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("content-" + i, Files.readString(tempDir.resolve("nested/file-" + i)));
+        }
+    }
+
+    @Test
+    void shouldReportFailedDownloadsOnly() throws IOException {
+        mockServer.stubFor(get(urlEqualTo("/present")).willReturn(aResponse().withBody("present")));
+        mockServer.stubFor(get(urlEqualTo("/missing")).willReturn(aResponse().withStatus(404)));
+
+        Map<URI, File> downloads = new LinkedHashMap<>();
+        downloads.put(uri("/present"), tempDir.resolve("present").toFile());
+        downloads.put(uri("/missing"), tempDir.resolve("missing").toFile());
+
+        Map<URI, RuntimeException> failures = FileDownloadUtils.tryDownloadAll(downloads);
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.containsKey(uri("/missing")));
+        assertEquals("present", Files.readString(tempDir.resolve("present")));
+        assertThrows(RuntimeException.class, () -> FileDownloadUtils.downloadAll(downloads));
+    }
+
+    @Test
+    void shouldDeleteLegacyFileCache() throws IOException {
+        Path legacyCacheFile = Files.writeString(tempDir.resolve("pnc-bacon-artifact-cache.db"), "mapdb");
+
+        FileDownloadUtils.deleteLegacyFileCache(legacyCacheFile);
+        assertFalse(Files.exists(legacyCacheFile));
+
+        // nothing to delete anymore on the next runs
+        FileDownloadUtils.deleteLegacyFileCache(legacyCacheFile);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + mockServer.port() + path);
+    }
+}
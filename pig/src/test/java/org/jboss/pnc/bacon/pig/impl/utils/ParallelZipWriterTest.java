@@ -0,0 +1,134 @@
+package org.jboss.pnc.bacon.pig.impl.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelZipWriterTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void shouldZipDirectoryDeterministically() throws IOException {
+        Path top = createContent();
+
+        File zip1 = tmpDir.resolve("one.zip").toFile();
+        File zip2 = tmpDir.resolve("two.zip").toFile();
+        Collection<String> entries = new ParallelZipWriter(1).zip(zip1, tmpDir.toFile(), top.toFile());
+        new ParallelZipWriter(8).zip(zip2, tmpDir.toFile(), top.toFile());
+
+        assertEquals(
+                List.of("top/a/", "top/a/b.txt", "top/a/big.bin", "top/a/lib.jar", "top/readme.txt"),
+                new ArrayList<>(entries));
+        assertArrayEquals(Files.readAllBytes(zip1.toPath()), Files.readAllBytes(zip2.toPath()));
+    }
+
+    @Test
+    void shouldStoreCompressedEntriesAndDeflateTheRest() throws IOException {
+        Path top = createContent();
+        File zip = tmpDir.resolve("repo.zip").toFile();
+
+        new ParallelZipWriter(4).zip(zip, tmpDir.toFile(), top.toFile());
+
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("top/a/lib.jar").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("top/readme.txt").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("top/a/big.bin").getMethod());
+            assertTrue(zipFile.getEntry("top/a/").isDirectory());
+            for (String name : List.of("top/a/b.txt", "top/a/big.bin", "top/a/lib.jar", "top/readme.txt")) {
+                byte[] expected = Files.readAllBytes(tmpDir.resolve(name));
+                assertArrayEquals(expected, zipFile.getInputStream(zipFile.getEntry(name)).readAllBytes(), name);
+            }
+        }
+    }
+
+    @Test
+    void shouldAddMissingChecksumsWhileZipping() throws IOException {
+        Path top = createContent();
+        Path a = top.resolve("a");
+        Files.writeString(a.resolve("lib.jar.sha1"), "existing", UTF_8);
+        File zip = tmpDir.resolve("repo.zip").toFile();
+
+        Collection<String> entries = new ParallelZipWriter(2).withChecksums(a.toFile(), "md5", "sha1")
+                .zip(zip, tmpDir.toFile(), top.toFile());
+
+        assertTrue(entries.contains("top/a/big.bin.md5"));
+        assertTrue(entries.contains("top/a/lib.jar.md5"));
+        assertFalse(entries.contains("top/readme.txt.sha1"));
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            for (String name : List.of("top/a/b.txt", "top/a/big.bin", "top/a/lib.jar")) {
+                byte[] content = Files.readAllBytes(tmpDir.resolve(name));
+                assertEquals(DigestUtils.md5Hex(content), entryContent(zipFile, name + ".md5"));
+                assertEquals(DigestUtils.md5Hex(content), Files.readString(tmpDir.resolve(name + ".md5"), UTF_8));
+            }
+            assertEquals(
+                    DigestUtils.sha1Hex(Files.readAllBytes(a.resolve("b.txt"))),
+                    entryContent(zipFile, "top/a/b.txt.sha1"));
+            assertEquals("existing", entryContent(zipFile, "top/a/lib.jar.sha1"));
+        }
+    }
+
+    @Test
+    void shouldReplaceStaleChecksumsWhileZipping() throws IOException {
+        Path top = createContent();
+        Path a = top.resolve("a");
+        Path staleMd5 = Files.writeString(a.resolve("lib.jar.md5"), "stale", UTF_8);
+        Files.setLastModifiedTime(staleMd5, FileTime.fromMillis(0));
+        Files.writeString(a.resolve("b.txt.sha1"), "", UTF_8);
+        File zip = tmpDir.resolve("repo.zip").toFile();
+
+        List<String> entries = new ArrayList<>(
+                new ParallelZipWriter(4).withChecksums(a.toFile(), "md5", "sha1")
+                        .zip(zip, tmpDir.toFile(), top.toFile()));
+
+        assertEquals(1, Collections.frequency(entries, "top/a/lib.jar.md5"));
+        assertEquals(1, Collections.frequency(entries, "top/a/b.txt.sha1"));
+        String libMd5 = DigestUtils.md5Hex(Files.readAllBytes(a.resolve("lib.jar")));
+        String bSha1 = DigestUtils.sha1Hex(Files.readAllBytes(a.resolve("b.txt")));
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            assertEquals(entries.size(), zipFile.size());
+            assertEquals(libMd5, entryContent(zipFile, "top/a/lib.jar.md5"));
+            assertEquals(bSha1, entryContent(zipFile, "top/a/b.txt.sha1"));
+        }
+        assertEquals(libMd5, Files.readString(staleMd5, UTF_8));
+        assertEquals(bSha1, Files.readString(a.resolve("b.txt.sha1"), UTF_8));
+    }
+
+    private static String entryContent(ZipFile zipFile, String name) throws IOException {
+        return new String(zipFile.getInputStream(zipFile.getEntry(name)).readAllBytes(), UTF_8);
+    }
+
+    private Path createContent() throws IOException {
+        Path top = tmpDir.resolve("top");
+        Path a = Files.createDirectories(top.resolve("a"));
+        Files.writeString(top.resolve("readme.txt"), "hello ".repeat(100), UTF_8);
+        Files.writeString(a.resolve("b.txt"), "b", UTF_8);
+        byte[] jar = new byte[10_000];
+        new Random(1).nextBytes(jar);
+        Files.write(a.resolve("lib.jar"), jar);
+        // larger than the in-memory limit, so that it's compressed to a temporary file
+        byte[] big = new byte[ParallelZipWriter.IN_MEMORY_LIMIT + 1000];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = (byte) (i % 17);
+        }
+        Files.write(a.resolve("big.bin"), big);
+        return top;
+    }
+}
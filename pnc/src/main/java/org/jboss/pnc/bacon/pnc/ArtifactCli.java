@@ -1,6 +1,5 @@
 package org.jboss.pnc.bacon.pnc;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.Callable;
@@ -153,10 +152,9 @@ public class ArtifactCli {
         private String id;
 
         @Override
-        public Collection<Build> getAll(String sort, String query) throws RemoteResourceException {
-            try (ArtifactClient client = CREATOR.newClient()) {
-                return client.getDependantBuilds(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+        public RemoteCollection<Build> getAll(String sort, String query) throws RemoteResourceException {
+            ArtifactClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getDependantBuilds(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -170,18 +168,16 @@ public class ArtifactCli {
         private String identifier;
 
         @Override
-        public Collection<Build> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<Build> getAll(String sort, String query) throws RemoteResourceException {
 
             identifier = transformIdentifierIfGAV(identifier);
 
-            try (ArtifactClient client = CREATOR.newClient()) {
-                Artifact a = client
-                        .getAll(null, null, null, Optional.empty(), Optional.ofNullable("identifier==" + identifier))
-                        .iterator()
-                        .next();
-                return client.getDependantBuilds(a.getId(), Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+            ArtifactClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            Artifact a = client
+                    .getAll(null, null, null, Optional.empty(), Optional.ofNullable("identifier==" + identifier))
+                    .iterator()
+                    .next();
+            return client.getDependantBuilds(a.getId(), Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 }
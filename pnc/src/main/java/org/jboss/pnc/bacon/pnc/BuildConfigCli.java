@@ -19,7 +19,6 @@ package org.jboss.pnc.bacon.pnc;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
@@ -33,6 +32,7 @@ import org.jboss.pnc.bacon.common.cli.JSONCommandHandler;
 import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.client.BuildConfigurationClient;
 import org.jboss.pnc.client.ClientException;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.Build;
 import org.jboss.pnc.dto.BuildConfiguration;
@@ -408,10 +408,9 @@ public class BuildConfigCli {
     public static class List extends AbstractListCommand<BuildConfiguration> {
 
         @Override
-        public Collection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
-            try (BuildConfigurationClient client = CREATOR.newClient()) {
-                return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+        public RemoteCollection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
+            BuildConfigurationClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -422,10 +421,10 @@ public class BuildConfigCli {
         private String id;
 
         @Override
-        public Collection<BuildConfigurationRevision> getAll(String sort, String query) throws RemoteResourceException {
-            try (BuildConfigurationClient client = CREATOR.newClient()) {
-                return client.getRevisions(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+        public RemoteCollection<BuildConfigurationRevision> getAll(String sort, String query)
+                throws RemoteResourceException {
+            BuildConfigurationClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getRevisions(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -436,13 +435,10 @@ public class BuildConfigCli {
         private String buildConfigId;
 
         @Override
-        public Collection<Build> getAll(BuildsFilterParameters buildsFilter, String sort, String query)
+        public RemoteCollection<Build> getAll(BuildsFilterParameters buildsFilter, String sort, String query)
                 throws RemoteResourceException {
-            try (BuildConfigurationClient client = CREATOR.newClient()) {
-                return client
-                        .getBuilds(buildConfigId, buildsFilter, Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+            BuildConfigurationClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getBuilds(buildConfigId, buildsFilter, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -17,7 +17,6 @@
  */
 package org.jboss.pnc.bacon.pnc;
 
-import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 
@@ -26,6 +25,7 @@ import org.jboss.pnc.bacon.common.cli.AbstractGetSpecificCommand;
 import org.jboss.pnc.bacon.common.cli.AbstractListCommand;
 import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.client.DeliverableAnalyzerReportClient;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.DeliverableAnalyzerLabelEntry;
 import org.jboss.pnc.dto.DeliverableAnalyzerReport;
@@ -86,11 +86,11 @@ public class DeliverableAnalysisCli {
     public static class List extends AbstractListCommand<DeliverableAnalyzerReport> {
 
         @Override
-        public Collection<DeliverableAnalyzerReport> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<DeliverableAnalyzerReport> getAll(String sort, String query)
+                throws RemoteResourceException {
 
-            try (DeliverableAnalyzerReportClient client = CREATOR.newClient()) {
-                return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+            DeliverableAnalyzerReportClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -101,11 +101,9 @@ public class DeliverableAnalysisCli {
         private String deliverableId;
 
         @Override
-        public Collection<AnalyzedArtifact> getAll(String sort, String query) throws RemoteResourceException {
-            try (DeliverableAnalyzerReportClient client = CREATOR.newClient()) {
-                return client.getAnalyzedArtifacts(deliverableId, Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+        public RemoteCollection<AnalyzedArtifact> getAll(String sort, String query) throws RemoteResourceException {
+            DeliverableAnalyzerReportClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getAnalyzedArtifacts(deliverableId, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -116,12 +114,10 @@ public class DeliverableAnalysisCli {
         private String deliverableId;
 
         @Override
-        public Collection<DeliverableAnalyzerLabelEntry> getAll(String sort, String query)
+        public RemoteCollection<DeliverableAnalyzerLabelEntry> getAll(String sort, String query)
                 throws RemoteResourceException {
-            try (DeliverableAnalyzerReportClient client = CREATOR.newClient()) {
-                return client.getLabelHistory(deliverableId, Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+            DeliverableAnalyzerReportClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getLabelHistory(deliverableId, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
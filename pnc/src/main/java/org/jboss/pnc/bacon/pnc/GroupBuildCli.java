@@ -17,7 +17,6 @@
  */
 package org.jboss.pnc.bacon.pnc;
 
-import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +32,7 @@ import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.bacon.pnc.common.ParameterChecker;
 import org.jboss.pnc.client.ClientException;
 import org.jboss.pnc.client.GroupBuildClient;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.Build;
 import org.jboss.pnc.dto.GroupBuild;
@@ -170,10 +170,9 @@ public class GroupBuildCli {
     public static class List extends AbstractListCommand<GroupBuild> {
 
         @Override
-        public Collection<GroupBuild> getAll(String sort, String query) throws RemoteResourceException {
-            try (GroupBuildClient client = CREATOR.newClient()) {
-                return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+        public RemoteCollection<GroupBuild> getAll(String sort, String query) throws RemoteResourceException {
+            GroupBuildClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -184,13 +183,10 @@ public class GroupBuildCli {
         private String groupBuildId;
 
         @Override
-        public Collection<Build> getAll(BuildsFilterParameters buildsFilter, String sort, String query)
+        public RemoteCollection<Build> getAll(BuildsFilterParameters buildsFilter, String sort, String query)
                 throws RemoteResourceException {
-            try (GroupBuildClient client = CREATOR.newClient()) {
-                return client
-                        .getBuilds(groupBuildId, buildsFilter, Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+            GroupBuildClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getBuilds(groupBuildId, buildsFilter, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -34,6 +34,7 @@ import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.bacon.pnc.common.UrlGenerator;
 import org.jboss.pnc.client.ClientException;
 import org.jboss.pnc.client.GroupConfigurationClient;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.BuildConfiguration;
 import org.jboss.pnc.dto.BuildConfigurationRef;
@@ -179,10 +180,9 @@ public class GroupConfigCli {
     public static class List extends AbstractListCommand<GroupConfiguration> {
 
         @Override
-        public Collection<GroupConfiguration> getAll(String sort, String query) throws RemoteResourceException {
-            try (GroupConfigurationClient client = CREATOR.newClient()) {
-                return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+        public RemoteCollection<GroupConfiguration> getAll(String sort, String query) throws RemoteResourceException {
+            GroupConfigurationClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -193,10 +193,9 @@ public class GroupConfigCli {
         private String id;
 
         @Override
-        public Collection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
-            try (GroupConfigurationClient client = CREATOR.newClient()) {
-                return client.getBuildConfigs(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+        public RemoteCollection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
+            GroupConfigurationClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getBuildConfigs(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
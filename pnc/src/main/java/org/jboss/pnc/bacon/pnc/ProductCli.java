@@ -19,7 +19,6 @@ package org.jboss.pnc.bacon.pnc;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
-import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 
@@ -31,6 +30,7 @@ import org.jboss.pnc.bacon.common.cli.JSONCommandHandler;
 import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.client.ClientException;
 import org.jboss.pnc.client.ProductClient;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.Product;
 import org.jboss.pnc.dto.ProductVersion;
@@ -99,11 +99,10 @@ public class ProductCli {
     public static class List extends AbstractListCommand<Product> {
 
         @Override
-        public Collection<Product> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<Product> getAll(String sort, String query) throws RemoteResourceException {
 
-            try (ProductClient client = CREATOR.newClient()) {
-                return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+            ProductClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getAll(Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -114,11 +113,10 @@ public class ProductCli {
         private String id;
 
         @Override
-        public Collection<ProductVersion> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<ProductVersion> getAll(String sort, String query) throws RemoteResourceException {
 
-            try (ProductClient client = CREATOR.newClient()) {
-                return client.getProductVersions(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+            ProductClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getProductVersions(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -22,7 +22,6 @@ import static org.jboss.pnc.bacon.auth.client.PncClientHelper.parseDateFormat;
 
 import java.net.URL;
 import java.time.Instant;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
@@ -41,6 +40,7 @@ import org.jboss.pnc.client.ClientException;
 import org.jboss.pnc.client.OperationClient;
 import org.jboss.pnc.client.ProductMilestoneClient;
 import org.jboss.pnc.client.ProductVersionClient;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.Artifact;
 import org.jboss.pnc.dto.Build;
@@ -309,12 +309,10 @@ public class ProductMilestoneCli {
         private String id;
 
         @Override
-        public Collection<Build> getAll(BuildsFilterParameters buildsFilter, String sort, String query)
+        public RemoteCollection<Build> getAll(BuildsFilterParameters buildsFilter, String sort, String query)
                 throws RemoteResourceException {
-            try (ProductMilestoneClient client = CREATOR.newClient()) {
-                return client.getBuilds(id, buildsFilter, Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+            ProductMilestoneClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getBuilds(id, buildsFilter, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -364,10 +362,9 @@ public class ProductMilestoneCli {
         private String id;
 
         @Override
-        public Collection<Artifact> getAll(String sort, String query) throws RemoteResourceException {
-            try (ProductMilestoneClient client = CREATOR.newClient()) {
-                return client.getDeliveredArtifacts(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+        public RemoteCollection<Artifact> getAll(String sort, String query) throws RemoteResourceException {
+            ProductMilestoneClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getDeliveredArtifacts(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -19,7 +19,6 @@ package org.jboss.pnc.bacon.pnc;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
-import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 
@@ -32,6 +31,7 @@ import org.jboss.pnc.bacon.common.exception.FatalException;
 import org.jboss.pnc.bacon.pnc.common.ClientCreator;
 import org.jboss.pnc.client.ClientException;
 import org.jboss.pnc.client.ProductVersionClient;
+import org.jboss.pnc.client.RemoteCollection;
 import org.jboss.pnc.client.RemoteResourceException;
 import org.jboss.pnc.dto.BuildConfiguration;
 import org.jboss.pnc.dto.GroupConfiguration;
@@ -140,11 +140,10 @@ public class ProductVersionCli {
         private String id;
 
         @Override
-        public Collection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
 
-            try (ProductVersionClient client = CREATOR.newClient()) {
-                return client.getBuildConfigs(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+            ProductVersionClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getBuildConfigs(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -155,11 +154,10 @@ public class ProductVersionCli {
         private String id;
 
         @Override
-        public Collection<GroupConfiguration> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<GroupConfiguration> getAll(String sort, String query) throws RemoteResourceException {
 
-            try (ProductVersionClient client = CREATOR.newClient()) {
-                return client.getGroupConfigs(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+            ProductVersionClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getGroupConfigs(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -170,11 +168,10 @@ public class ProductVersionCli {
         private String id;
 
         @Override
-        public Collection<ProductMilestone> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<ProductMilestone> getAll(String sort, String query) throws RemoteResourceException {
 
-            try (ProductVersionClient client = CREATOR.newClient()) {
-                return client.getMilestones(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+            ProductVersionClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getMilestones(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -185,11 +182,10 @@ public class ProductVersionCli {
         private String id;
 
         @Override
-        public Collection<ProductRelease> getAll(String sort, String query) throws RemoteResourceException {
+        public RemoteCollection<ProductRelease> getAll(String sort, String query) throws RemoteResourceException {
 
-            try (ProductVersionClient client = CREATOR.newClient()) {
-                return client.getReleases(id, Optional.ofNullable(sort), Optional.ofNullable(query)).getAll();
-            }
+            ProductVersionClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getReleases(id, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
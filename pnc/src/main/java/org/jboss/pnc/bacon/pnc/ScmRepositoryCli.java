@@ -19,7 +19,6 @@ package org.jboss.pnc.bacon.pnc;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
-import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
@@ -195,11 +194,9 @@ public class ScmRepositoryCli {
         private String searchUrl;
 
         @Override
-        public Collection<SCMRepository> getAll(String sort, String query) throws RemoteResourceException {
-            try (SCMRepositoryClient client = CREATOR.newClient()) {
-                return client.getAll(matchUrl, searchUrl, Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+        public RemoteCollection<SCMRepository> getAll(String sort, String query) throws RemoteResourceException {
+            SCMRepositoryClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getAll(matchUrl, searchUrl, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 
@@ -210,11 +207,9 @@ public class ScmRepositoryCli {
         private String scmRepositoryId;
 
         @Override
-        public Collection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
-            try (SCMRepositoryClient client = CREATOR.newClient()) {
-                return client.getBuildConfigs(scmRepositoryId, Optional.ofNullable(sort), Optional.ofNullable(query))
-                        .getAll();
-            }
+        public RemoteCollection<BuildConfiguration> getAll(String sort, String query) throws RemoteResourceException {
+            SCMRepositoryClient client = closeAfterListing(CREATOR.newClient(getPageSize()));
+            return client.getBuildConfigs(scmRepositoryId, Optional.ofNullable(sort), Optional.ofNullable(query));
         }
     }
 }
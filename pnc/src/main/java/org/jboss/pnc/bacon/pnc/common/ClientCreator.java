@@ -34,6 +34,16 @@ public class ClientCreator<T extends ClientBase<?>> {
         return newClientPrivate(false);
     }
 
+    /**
+     * Get a new unauthenticated PNC Client object that fetches the given number of entities per page.
+     *
+     * @param pageSize number of entities per page, or null to use the pageSize of the pnc config
+     * @return Unauthenticated PNC Client
+     */
+    public T newClient(Integer pageSize) {
+        return constructor.apply(PncClientHelper.getPncConfiguration(false, pageSize));
+    }
+
     /**
      * Get a new authenticated PNC Client object.
      *